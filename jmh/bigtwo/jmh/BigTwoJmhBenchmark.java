@@ -0,0 +1,114 @@
+package bigtwo.jmh;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongUnaryOperator;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Class for running the benchmarks of BigTwoBenchmark under JMH, which forks
+ * a JVM per benchmark and guards against dead code with its Blackhole. Each
+ * case is the same code as in BigTwoBenchmark, run one operation at a time.
+ * <p>
+ * JMH does not accept benchmarks in the default package, and code in a
+ * package cannot name the classes of the default package, where the game
+ * is. The case is therefore looked up by reflection when set up, and run as
+ * a LongUnaryOperator (see BigTwoBenchmark.Benchmark).
+ * <p>
+ * Run with "gradle jmh", optionally selecting cases with
+ * "-Pjmh='-p name=Deck.shuffle(seed)'" or any other options of JMH. The
+ * dependency-free runner, BigTwoBenchmark, remains for quick runs without
+ * the build.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class BigTwoJmhBenchmark {
+
+	/**
+	 * The name of the case of BigTwoBenchmark to be run.
+	 */
+	@Param({ "BigTwoClient.composeHand.Single", "BigTwoClient.composeHand.Pair",
+			"BigTwoClient.composeHand.Triple", "BigTwoClient.composeHand.Straight",
+			"BigTwoClient.composeHand.Flush", "BigTwoClient.composeHand.FullHouse",
+			"BigTwoClient.composeHand.Quad", "BigTwoClient.composeHand.StraightFlush",
+			"Hand.beats.Single", "Hand.beats.Pair", "Hand.beats.Triple", "Hand.beats.Straight",
+			"Hand.beats.Flush", "Hand.beats.FullHouse", "Hand.beats.Quad", "Hand.beats.StraightFlush",
+			"Hand.getTopCard.Single", "Hand.getTopCard.Pair", "Hand.getTopCard.Triple",
+			"Hand.getTopCard.Straight", "Hand.getTopCard.Flush", "Hand.getTopCard.FullHouse",
+			"Hand.getTopCard.Quad", "Hand.getTopCard.StraightFlush",
+			"Legacy.composeHand.Single", "Legacy.composeHand.Pair", "Legacy.composeHand.Triple",
+			"Legacy.composeHand.Straight", "Legacy.composeHand.Flush", "Legacy.composeHand.FullHouse",
+			"Legacy.composeHand.Quad", "Legacy.composeHand.StraightFlush",
+			"Legacy.beats.Single", "Legacy.beats.Pair", "Legacy.beats.Triple", "Legacy.beats.Straight",
+			"Legacy.beats.Flush", "Legacy.beats.FullHouse", "Legacy.beats.Quad", "Legacy.beats.StraightFlush",
+			"Legacy.getTopCard.Single", "Legacy.getTopCard.Pair", "Legacy.getTopCard.Triple",
+			"Legacy.getTopCard.Straight", "Legacy.getTopCard.Flush", "Legacy.getTopCard.FullHouse",
+			"Legacy.getTopCard.Quad", "Legacy.getTopCard.StraightFlush",
+			"HandSplitter.split.random", "HandSplitter.split.oneSuit",
+			"Deck.shuffle(SplittableRandom)", "Deck.shuffle(seed)", "Deck.shuffle(ThreadLocalRandom)",
+			"Deck.shuffle(SecureRandom)",
+			"CardList.sort", "CardList.contains", "CardList.removeCard",
+			"CardGameMessage.encode.serialized.MOVE", "CardGameMessage.encode.serialized.PLAYED",
+			"CardGameMessage.encode.serialized.DEAL", "CardGameMessage.encode.serialized.MSG",
+			"CardGameMessage.encode.serialized.START",
+			"CardGameMessage.decode.serialized.MOVE", "CardGameMessage.decode.serialized.PLAYED",
+			"CardGameMessage.decode.serialized.DEAL", "CardGameMessage.decode.serialized.MSG",
+			"CardGameMessage.decode.serialized.START",
+			"CardGameMessage.roundTrip.serialized.MOVE", "CardGameMessage.roundTrip.serialized.PLAYED",
+			"CardGameMessage.roundTrip.serialized.DEAL", "CardGameMessage.roundTrip.serialized.MSG",
+			"CardGameMessage.roundTrip.serialized.START",
+			"CardGameMessage.encode.binary.MOVE", "CardGameMessage.encode.binary.PLAYED",
+			"CardGameMessage.encode.binary.DEAL", "CardGameMessage.encode.binary.MSG",
+			"CardGameMessage.encode.binary.START",
+			"CardGameMessage.decode.binary.MOVE", "CardGameMessage.decode.binary.PLAYED",
+			"CardGameMessage.decode.binary.DEAL", "CardGameMessage.decode.binary.MSG",
+			"CardGameMessage.decode.binary.START",
+			"CardGameMessage.roundTrip.binary.MOVE", "CardGameMessage.roundTrip.binary.PLAYED",
+			"CardGameMessage.roundTrip.binary.DEAL", "CardGameMessage.roundTrip.binary.MSG",
+			"CardGameMessage.roundTrip.binary.START",
+			"BigTwoTable.paint" })
+	public String name;
+
+	private LongUnaryOperator benchmark;
+
+	/**
+	 * Method for looking up the case to be run.
+	 *
+	 * @throws ReflectiveOperationException if BigTwoBenchmark cannot be called.
+	 */
+	@Setup
+	public void setUp() throws ReflectiveOperationException {
+		// the table is painted offscreen only
+		System.setProperty("java.awt.headless", "true");
+		Class<?> runner = Class.forName("BigTwoBenchmark");
+		benchmark = (LongUnaryOperator) runner.getMethod("getBenchmark", String.class)
+				.invoke(runner.getConstructor().newInstance(), name);
+		if (benchmark == null) {
+			throw new IllegalArgumentException("Unknown benchmark: " + name);
+		}
+	}
+
+	/**
+	 * Method for running one operation of the case.
+	 *
+	 * @return long checksum of the result of the operation, consumed by JMH.
+	 */
+	@Benchmark
+	public long run() {
+		return benchmark.applyAsLong(1);
+	}
+}
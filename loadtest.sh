@@ -0,0 +1,62 @@
+#!/bin/bash
+# Measures the connections a Big Two server holds per core, in its
+# thread-per-connection ("platform") and event-loop ("eventloops") execution
+# modes. See LOADTEST.md for the results.
+#
+#   ./loadtest.sh [rooms] [games per room] [port] [mode:idle ...]
+#
+# For each mode and number of idle connections, a BigTwoServer is started
+# and BigTwoLoadGenerator fills the rooms with bots, which play their games
+# while the idle connections are held open. A row is printed with the peak
+# threads and resident memory of the server (read from /proc), the CPU time
+# of the server per game (read from its metrics), the moves per second and
+# the round-trip times of the moves. The server and the generator each need
+# a file descriptor per connection (see ulimit -n).
+
+rooms=${1:-10}
+games=${2:-20}
+port=${3:-2500}
+shift 3 2>/dev/null
+runs=${*:-platform:0 platform:4000 platform:8000 eventloops:0 eventloops:4000 eventloops:8000 eventloops:16000}
+
+cd "$(dirname "$0")" || exit 1
+classes=build/loadtest
+rm -rf $classes && mkdir -p $classes
+javac -nowarn -d $classes src/*.java || exit 1
+
+printf "%-10s %6s %8s %7s %13s %8s %8s %8s\n" mode idle threads "RSS MB" "CPU/game ms" moves/s "p50 ms" "p99 ms"
+for run in $runs; do
+	mode=${run%%:*}
+	idle=${run##*:}
+	metricsPort=$((port + 1000))
+	java -Xmx1g -cp $classes BigTwoServer $port 8192 $mode -headless -level=ERROR \
+		-metrics=$metricsPort > /dev/null 2>&1 &
+	server=$!
+	sleep 2
+	out=$(mktemp)
+	java -Xmx1g -cp $classes BigTwoLoadGenerator localhost $port $rooms $games $idle \
+		-metrics=$metricsPort > "$out" 2>&1 &
+	generator=$!
+	threads=0
+	rss=0
+	while kill -0 $generator 2>/dev/null; do
+		t=$(awk '/^Threads/ { print $2 }' /proc/$server/status)
+		r=$(awk '/^VmRSS/ { print $2 }' /proc/$server/status)
+		[ "${t:-0}" -gt $threads ] && threads=$t
+		[ "${r:-0}" -gt $rss ] && rss=$r
+		sleep 0.5
+	done
+	kill $server
+	wait $server 2>/dev/null
+	if ! grep -q "All bots have finished" "$out"; then
+		echo "$mode $idle: the bots have not finished" >&2
+		cat "$out" >&2
+	fi
+	printf "%-10s %6d %8d %7d %13s %8s %8s %8s\n" $mode $idle $threads $((rss / 1024)) \
+		"$(awk '/^Server CPU\/game/ { print $3 }' "$out")" \
+		"$(awk '/^Moves\/sec/ { printf "%.0f", $2 }' "$out")" \
+		"$(awk '/^Move RTT p50/ { print $4 }' "$out")" \
+		"$(awk '/^Move RTT p99/ { print $4 }' "$out")"
+	rm -f "$out"
+	port=$((port + 1))
+done
@@ -0,0 +1,1000 @@
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.LongUnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Class for benchmarking the hot paths of the game: composing and comparing
+ * hands of every type (also along the path replaced by HandEvaluator, as a
+ * baseline), splitting a whole hand into hands (see HandSplitter), shuffling
+ * a deck with each random number generator, sorting and searching a list of
+ * cards, encoding and decoding messages with each codec, and painting the
+ * table into an offscreen image.
+ * <p>
+ * Each benchmark is run on the calling thread for a number of warm-up
+ * iterations, so that the JIT compiler has compiled it, and then for a number
+ * of measured iterations of a fixed time. The score of a benchmark is its
+ * average time per operation over the measured iterations, with the error
+ * of a 99.9% confidence interval (Student's t). A benchmark loops over its
+ * operations itself, and feeds a checksum of their results into a volatile
+ * field so that they cannot be optimized away.
+ * <p>
+ * The results can be written as CSV and as JSON, in the formats of the
+ * result files of JMH, so that they can be compared across releases with
+ * the same tools.
+ */
+public class BigTwoBenchmark {
+
+	/**
+	 * The default number of warm-up iterations of a benchmark.
+	 */
+	public static final int DEFAULT_WARMUP_ITERATIONS = 5;
+	/**
+	 * The default number of measured iterations of a benchmark.
+	 */
+	public static final int DEFAULT_ITERATIONS = 10;
+	/**
+	 * The default time of an iteration, in milliseconds.
+	 */
+	public static final long DEFAULT_ITERATION_TIME = 200;
+
+	// the quantiles of Student's t distribution for a 99.9% confidence interval,
+	// by degrees of freedom (1 - 30); 30 degrees are used for more
+	private static final double[] T_999 = { 0, 636.619, 31.599, 12.924, 8.610, 6.869, 5.959, 5.408, 5.041,
+			4.781, 4.587, 4.437, 4.318, 4.221, 4.140, 4.073, 4.015, 3.965, 3.922, 3.883, 3.850, 3.819, 3.792,
+			3.768, 3.745, 3.725, 3.707, 3.690, 3.674, 3.659, 3.646 };
+	// the names of the hand types, in the order of HandEvaluator
+	private static final String[] HAND_TYPES = { "Single", "Pair", "Triple", "Straight", "Flush", "FullHouse",
+			"Quad", "StraightFlush" };
+	// the size of the offscreen image the table is painted into
+	private static final int TABLE_WIDTH = 960;
+	private static final int TABLE_HEIGHT = 720;
+
+	// the sink of the checksums of the benchmarks
+	private static volatile long sink;
+
+	private final ArrayList<Benchmark> benchmarks = new ArrayList<Benchmark>();
+	// the size of each message encoded by each codec, as printed
+	private final ArrayList<String> messageSizes = new ArrayList<String>();
+	private int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+	private int iterations = DEFAULT_ITERATIONS;
+	private long iterationTime = DEFAULT_ITERATION_TIME;
+
+	/**
+	 * A benchmark, which runs a number of its operations at a time. As a
+	 * LongUnaryOperator, it can be run by code outside the default package,
+	 * e.g. the JMH benchmarks of the build.
+	 */
+	public abstract static class Benchmark implements LongUnaryOperator {
+		private final String name;
+
+		/**
+		 * Constructor for creating a benchmark.
+		 *
+		 * @param name (String) The name of the benchmark.
+		 */
+		public Benchmark(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Getter method for the name of the benchmark.
+		 *
+		 * @return String specifying the name of the benchmark.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Method for running a number of operations of the benchmark.
+		 *
+		 * @param numOfOps (long) The number of operations.
+		 * @return long checksum of the results of the operations.
+		 * @throws Exception if an operation fails.
+		 */
+		public abstract long run(long numOfOps) throws Exception;
+
+		/**
+		 * Method for running a number of operations of the benchmark, with
+		 * the exceptions wrapped.
+		 *
+		 * @param numOfOps (long) The number of operations.
+		 * @return long checksum of the results of the operations.
+		 */
+		public long applyAsLong(long numOfOps) {
+			try {
+				return run(numOfOps);
+			} catch (RuntimeException ex) {
+				throw ex;
+			} catch (Exception ex) {
+				throw new IllegalStateException("Benchmark " + name + " failed", ex);
+			}
+		}
+	}
+
+	/**
+	 * Class for holding the result of a benchmark.
+	 */
+	public static class Result {
+		private final String name;
+		private final double[] scores;
+
+		private Result(String name, double[] scores) {
+			this.name = name;
+			this.scores = scores;
+		}
+
+		/**
+		 * Getter method for the name of the benchmark.
+		 *
+		 * @return String specifying the name of the benchmark.
+		 */
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Getter method for the time per operation of each measured iteration.
+		 *
+		 * @return double[] specifying the times, in nanoseconds per operation.
+		 */
+		public double[] getScores() {
+			return scores.clone();
+		}
+
+		/**
+		 * Getter method for the average time per operation.
+		 *
+		 * @return double specifying the time, in nanoseconds per operation.
+		 */
+		public double getScore() {
+			double sum = 0;
+			for (double score : scores) {
+				sum += score;
+			}
+			return sum / scores.length;
+		}
+
+		/**
+		 * Getter method for the half-width of the 99.9% confidence interval
+		 * of the average time per operation.
+		 *
+		 * @return double specifying the error, or NaN with a single iteration.
+		 */
+		public double getScoreError() {
+			int n = scores.length;
+			if (n < 2) {
+				return Double.NaN;
+			}
+			double mean = getScore();
+			double sum = 0;
+			for (double score : scores) {
+				sum += (score - mean) * (score - mean);
+			}
+			return T_999[Math.min(n - 1, T_999.length - 1)] * Math.sqrt(sum / (n - 1) / n);
+		}
+	}
+
+	/**
+	 * Constructor for creating a benchmark runner with the benchmarks of the game.
+	 */
+	public BigTwoBenchmark() {
+		addHandBenchmarks();
+		addHandSplitterBenchmarks();
+		addCardListBenchmarks();
+		addMessageBenchmarks();
+		addTableBenchmark();
+	}
+
+	/**
+	 * Setter method for the numbers of iterations and their time.
+	 *
+	 * @param warmupIterations (int) The number of warm-up iterations.
+	 * @param iterations (int) The number of measured iterations.
+	 * @param iterationTime (long) The time of an iteration, in milliseconds.
+	 */
+	public void setIterations(int warmupIterations, int iterations, long iterationTime) {
+		if (warmupIterations < 0 || iterations < 1 || iterationTime < 1) {
+			throw new IllegalArgumentException("Invalid iterations: " + warmupIterations + ", " + iterations
+					+ ", " + iterationTime + " ms");
+		}
+		this.warmupIterations = warmupIterations;
+		this.iterations = iterations;
+		this.iterationTime = iterationTime;
+	}
+
+	/**
+	 * Method for adding a benchmark.
+	 *
+	 * @param benchmark (Benchmark) The benchmark to be added.
+	 */
+	public void add(Benchmark benchmark) {
+		benchmarks.add(benchmark);
+	}
+
+	/**
+	 * Getter method for the names of the benchmarks.
+	 *
+	 * @return ArrayList of the names of the benchmarks.
+	 */
+	public ArrayList<String> getNames() {
+		ArrayList<String> names = new ArrayList<String>();
+		for (Benchmark benchmark : benchmarks) {
+			names.add(benchmark.getName());
+		}
+		return names;
+	}
+
+	/**
+	 * Method for printing the size of each message of the benchmarks encoded
+	 * by each codec, without the 4 bytes of the header of a frame.
+	 */
+	public void printSizes() {
+		for (String size : messageSizes) {
+			System.out.println(size);
+		}
+	}
+
+	/**
+	 * Getter method for a benchmark, e.g. to run it under another harness
+	 * such as JMH.
+	 *
+	 * @param name (String) The name of the benchmark.
+	 * @return Benchmark with the name, or null if there is none.
+	 */
+	public Benchmark getBenchmark(String name) {
+		for (Benchmark benchmark : benchmarks) {
+			if (benchmark.getName().equals(name)) {
+				return benchmark;
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * Method for running the benchmarks whose names match a regular expression.
+	 *
+	 * @param filter (Pattern) The regular expression, or null for all the benchmarks.
+	 * @return ArrayList of the results of the benchmarks.
+	 * @throws Exception if a benchmark fails.
+	 */
+	public ArrayList<Result> run(Pattern filter) throws Exception {
+		ArrayList<Result> results = new ArrayList<Result>();
+		for (Benchmark benchmark : benchmarks) {
+			if (filter == null || filter.matcher(benchmark.getName()).find()) {
+				Result result = run(benchmark);
+				System.out.printf(Locale.ROOT, "%-50s %12.1f +- %8.1f ns/op%n", result.getName(), result.getScore(),
+						result.getScoreError());
+				results.add(result);
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Method for running a benchmark: calibrates the number of operations per
+	 * call, so that the clock is read rarely, and runs the iterations.
+	 */
+	private Result run(Benchmark benchmark) throws Exception {
+		long batch = 1;
+		long iterationNanos = iterationTime * 1000000L;
+		while (true) {
+			long startTime = System.nanoTime();
+			sink += benchmark.run(batch);
+			if (System.nanoTime() - startTime >= iterationNanos / 100 || batch >= (1L << 40)) {
+				break;
+			}
+			batch *= 2;
+		}
+
+		for (int i = 0; i < warmupIterations; i++) {
+			runIteration(benchmark, batch, iterationNanos);
+		}
+		double[] scores = new double[iterations];
+		for (int i = 0; i < iterations; i++) {
+			scores[i] = runIteration(benchmark, batch, iterationNanos);
+		}
+		return new Result(benchmark.getName(), scores);
+	}
+
+	/**
+	 * Method for running an iteration of a benchmark.
+	 *
+	 * @return the time per operation, in nanoseconds.
+	 */
+	private static double runIteration(Benchmark benchmark, long batch, long iterationNanos) throws Exception {
+		long numOfOps = 0;
+		long startTime = System.nanoTime();
+		long elapsedTime;
+		do {
+			sink += benchmark.run(batch);
+			numOfOps += batch;
+			elapsedTime = System.nanoTime() - startTime;
+		} while (elapsedTime < iterationNanos);
+		return (double) elapsedTime / numOfOps;
+	}
+
+	/**
+	 * Method for writing results as CSV, in the format of JMH.
+	 *
+	 * @param results (ArrayList) The results.
+	 * @param fileName (String) The name of the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeCsv(ArrayList<Result> results, String fileName) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(fileName))) {
+			out.println("\"Benchmark\",\"Mode\",\"Threads\",\"Samples\",\"Score\",\"Score Error (99.9%)\",\"Unit\"");
+			for (Result result : results) {
+				out.printf(Locale.ROOT, "\"%s\",\"avgt\",1,%d,%f,%f,\"ns/op\"%n", result.getName(),
+						result.scores.length, result.getScore(), result.getScoreError());
+			}
+		}
+	}
+
+	/**
+	 * Method for writing results as JSON, in the format of JMH.
+	 *
+	 * @param results (ArrayList) The results.
+	 * @param fileName (String) The name of the file.
+	 * @throws IOException if the file cannot be written.
+	 */
+	public void writeJson(ArrayList<Result> results, String fileName) throws IOException {
+		try (PrintWriter out = new PrintWriter(new FileWriter(fileName))) {
+			out.println("[");
+			for (int r = 0; r < results.size(); r++) {
+				Result result = results.get(r);
+				double score = result.getScore();
+				double error = result.getScoreError();
+				out.println("    {");
+				out.println("        \"jmhVersion\" : \"none\",");
+				out.println("        \"benchmark\" : \"" + result.getName() + "\",");
+				out.println("        \"mode\" : \"avgt\",");
+				out.println("        \"threads\" : 1,");
+				out.println("        \"forks\" : 0,");
+				out.println("        \"jvm\" : \"" + jsonEscape(System.getProperty("java.home")) + "\",");
+				out.println("        \"jdkVersion\" : \"" + System.getProperty("java.version") + "\",");
+				out.println("        \"vmName\" : \"" + jsonEscape(System.getProperty("java.vm.name")) + "\",");
+				out.println("        \"warmupIterations\" : " + warmupIterations + ",");
+				out.println("        \"warmupTime\" : \"" + iterationTime + " ms\",");
+				out.println("        \"measurementIterations\" : " + iterations + ",");
+				out.println("        \"measurementTime\" : \"" + iterationTime + " ms\",");
+				out.println("        \"primaryMetric\" : {");
+				out.println("            \"score\" : " + jsonNumber(score) + ",");
+				out.println("            \"scoreError\" : " + jsonNumber(error) + ",");
+				out.println("            \"scoreConfidence\" : [ " + jsonNumber(score - error) + ", "
+						+ jsonNumber(score + error) + " ],");
+				out.println("            \"scoreUnit\" : \"ns/op\",");
+				StringBuilder rawData = new StringBuilder();
+				for (int i = 0; i < result.scores.length; i++) {
+					rawData.append(i == 0 ? "" : ", ").append(jsonNumber(result.scores[i]));
+				}
+				out.println("            \"rawData\" : [ [ " + rawData + " ] ]");
+				out.println("        },");
+				out.println("        \"secondaryMetrics\" : {}");
+				out.println(r == results.size() - 1 ? "    }" : "    },");
+			}
+			out.println("]");
+		}
+	}
+
+	private static String jsonNumber(double value) {
+		return Double.isNaN(value) ? "\"NaN\"" : String.format(Locale.ROOT, "%f", value);
+	}
+
+	private static String jsonEscape(String s) {
+		return s == null ? "" : s.replace("\\", "\\\\").replace("\"", "\\\"");
+	}
+
+	/**
+	 * Method for adding the benchmarks of composing and comparing hands: for
+	 * each type of hand, composing it from its cards, and comparing it with
+	 * a weaker hand of the same type and getting its top card.
+	 */
+	private void addHandBenchmarks() {
+		final CardGamePlayer player = new CardGamePlayer("Benchmark");
+		// two hands of each type, the first one beating the second one
+		int[][][] cards = {
+				{ { 3, 2 } }, { { 0, 2 } },
+				{ { 0, 4 }, { 1, 4 } }, { { 0, 3 }, { 1, 3 } },
+				{ { 0, 6 }, { 1, 6 }, { 3, 6 } }, { { 0, 5 }, { 1, 5 }, { 2, 5 } },
+				{ { 0, 3 }, { 1, 4 }, { 2, 5 }, { 3, 6 }, { 0, 7 } }, { { 0, 2 }, { 1, 3 }, { 2, 4 }, { 3, 5 }, { 1, 6 } },
+				{ { 2, 2 }, { 2, 5 }, { 2, 7 }, { 2, 9 }, { 2, 11 } }, { { 0, 2 }, { 0, 5 }, { 0, 7 }, { 0, 9 }, { 0, 12 } },
+				{ { 0, 8 }, { 1, 8 }, { 2, 8 }, { 0, 2 }, { 1, 2 } }, { { 0, 7 }, { 1, 7 }, { 3, 7 }, { 2, 3 }, { 3, 3 } },
+				{ { 0, 12 }, { 1, 12 }, { 2, 12 }, { 3, 12 }, { 0, 2 } }, { { 0, 10 }, { 1, 10 }, { 2, 10 }, { 3, 10 }, { 1, 2 } },
+				{ { 3, 4 }, { 3, 5 }, { 3, 6 }, { 3, 7 }, { 3, 8 } }, { { 1, 3 }, { 1, 4 }, { 1, 5 }, { 1, 6 }, { 1, 7 } } };
+
+		for (int type = 0; type < HAND_TYPES.length; type++) {
+			final CardList stronger = toCardList(cards[2 * type]);
+			final Hand strongerHand = BigTwoClient.composeHand(player, stronger);
+			final Hand weakerHand = BigTwoClient.composeHand(player, toCardList(cards[2 * type + 1]));
+			if (strongerHand == null || weakerHand == null || !strongerHand.getType().equals(HAND_TYPES[type])
+					|| !weakerHand.getType().equals(HAND_TYPES[type]) || !strongerHand.beats(weakerHand)) {
+				throw new IllegalStateException("Invalid hands of type " + HAND_TYPES[type]);
+			}
+			// the hands alternate, so that the JIT compiler cannot hoist a comparison out of the loop
+			final Hand[] hands = { strongerHand, weakerHand };
+
+			add(new Benchmark("BigTwoClient.composeHand." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						checksum += BigTwoClient.composeHand(player, stronger).size();
+					}
+					return checksum;
+				}
+			});
+			add(new Benchmark("Hand.beats." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						int j = (int) (i & 1);
+						if (hands[j].beats(hands[1 - j])) {
+							checksum++;
+						}
+					}
+					return checksum;
+				}
+			});
+			add(new Benchmark("Hand.getTopCard." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						checksum += hands[(int) (i & 1)].getTopCard().getRank();
+					}
+					return checksum;
+				}
+			});
+
+			// the same operations along the path replaced by HandEvaluator
+			final LegacyHand[] legacyHands = { LegacyHand.compose(player, stronger),
+					LegacyHand.compose(player, toCardList(cards[2 * type + 1])) };
+			if (!legacyHands[0].getType().equals(HAND_TYPES[type]) || !legacyHands[0].beats(legacyHands[1])) {
+				throw new IllegalStateException("Invalid legacy hands of type " + HAND_TYPES[type]);
+			}
+			add(new Benchmark("Legacy.composeHand." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						checksum += LegacyHand.compose(player, stronger).size();
+					}
+					return checksum;
+				}
+			});
+			add(new Benchmark("Legacy.beats." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						int j = (int) (i & 1);
+						if (legacyHands[j].beats(legacyHands[1 - j])) {
+							checksum++;
+						}
+					}
+					return checksum;
+				}
+			});
+			add(new Benchmark("Legacy.getTopCard." + HAND_TYPES[type]) {
+				public long run(long numOfOps) {
+					long checksum = 0;
+					for (long i = 0; i < numOfOps; i++) {
+						checksum += legacyHands[(int) (i & 1)].getTopCard().getRank();
+					}
+					return checksum;
+				}
+			});
+		}
+	}
+
+	/**
+	 * Class for holding a hand composed, validated and compared as before
+	 * HandEvaluator, only as the baseline of the benchmarks of hands: every
+	 * type of hand is created to compose one, the cards are sorted and copied
+	 * into temporary lists to validate a hand and to find its top card, and
+	 * both hands are validated again before they are compared. The 8 classes
+	 * of hands are folded into this one, switching on the type.
+	 */
+	static class LegacyHand extends CardList {
+		private static final long serialVersionUID = 1L;
+
+		private final CardGamePlayer player;
+		private final String type;
+
+		private LegacyHand(CardGamePlayer player, CardList cards, String type) {
+			this.player = player;
+			this.type = type;
+			for (int i = 0; i < cards.size(); i++) {
+				this.addCard(cards.getCard(i));
+			}
+		}
+
+		/**
+		 * Method for composing a hand as BigTwoClient.composeHand() did: a hand
+		 * of every type is created, and the strongest valid one is returned.
+		 *
+		 * @param player CardGamePlayer playing the hand.
+		 * @param cards CardList of the cards of the hand.
+		 * @return LegacyHand composed, or null if the cards form no valid combination.
+		 */
+		static LegacyHand compose(CardGamePlayer player, CardList cards) {
+			ArrayList<LegacyHand> allPossibleHands = new ArrayList<LegacyHand>();
+			for (int type = HAND_TYPES.length - 1; type >= 0; type--) {
+				allPossibleHands.add(new LegacyHand(player, cards, HAND_TYPES[type]));
+			}
+			for (LegacyHand hand : allPossibleHands) {
+				if (hand.isValid()) {
+					return hand;
+				}
+			}
+			return null;
+		}
+
+		String getType() {
+			return type;
+		}
+
+		CardGamePlayer getPlayer() {
+			return player;
+		}
+
+		boolean isValid() {
+			switch (type) {
+			case "Single":
+				return size() == 1;
+			case "Pair":
+				return size() == 2 && getCard(0).getRank() == getCard(1).getRank();
+			case "Triple":
+				if (size() != 3) {
+					return false;
+				}
+				for (int i = 0; i < 3; i++) {
+					if (getCard(i).getRank() != getCard(0).getRank()) {
+						return false;
+					}
+				}
+				return true;
+			case "Straight":
+				if (size() != 5) {
+					return false;
+				}
+				sort();
+				return consecutive();
+			case "Flush":
+				return size() == 5 && sameSuit();
+			case "FullHouse":
+				return size() == 5 && splitByRank(3);
+			case "Quad":
+				return size() == 5 && splitByRank(4);
+			default:
+				return size() == 5 && consecutive() && sameSuit();
+			}
+		}
+
+		private boolean consecutive() {
+			for (int i = 0; i < 5 - 1; i++) {
+				if (bigTwoRank(getCard(i + 1)) - bigTwoRank(getCard(i)) != 1) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		private boolean sameSuit() {
+			for (int i = 0; i < 5; i++) {
+				if (getCard(i).getSuit() != getCard(0).getSuit()) {
+					return false;
+				}
+			}
+			return true;
+		}
+
+		/**
+		 * Method for checking that the cards have two ranks, one of them held
+		 * by the specified number of cards, splitting them into temporary lists.
+		 */
+		private boolean splitByRank(int largerSize) {
+			CardList[] lists = split();
+			return lists[0].size() == largerSize && lists[1].size() == 5 - largerSize
+					|| lists[0].size() == 5 - largerSize && lists[1].size() == largerSize;
+		}
+
+		private CardList[] split() {
+			CardList templist1 = new CardList();
+			CardList templist2 = new CardList();
+			int rank1 = getCard(0).getRank();
+			int rank2 = -1;
+			for (int i = 0; i < 5; i++) {
+				if (getCard(i).getRank() != rank1) {
+					rank2 = getCard(i).getRank();
+					break;
+				}
+			}
+			for (int i = 0; i < 5; i++) {
+				if (getCard(i).getRank() == rank1) {
+					templist1.addCard(getCard(i));
+				} else if (getCard(i).getRank() == rank2) {
+					templist2.addCard(getCard(i));
+				}
+			}
+			return new CardList[] { templist1, templist2 };
+		}
+
+		Card getTopCard() {
+			if (type.equals("FullHouse") || type.equals("Quad")) {
+				int largerSize = type.equals("Quad") ? 4 : 3;
+				CardList[] lists = split();
+				CardList larger = lists[0].size() == largerSize ? lists[0] : lists[1];
+				larger.sort();
+				return larger.getCard(largerSize - 1);
+			}
+			sort();
+			return getCard(size() - 1);
+		}
+
+		boolean beats(LegacyHand hand) {
+			if (!this.isValid() || !hand.isValid() || this.size() != hand.size()) {
+				return false;
+			}
+			Card thisTopCard = this.getTopCard();
+			Card handTopCard = hand.getTopCard();
+			int thisTopCardRank = bigTwoRank(thisTopCard);
+			int handTopCardRank = bigTwoRank(handTopCard);
+			if (hand.size() == 1) {
+				return thisTopCard.compareTo(handTopCard) == 1;
+			} else if (hand.size() == 2) {
+				return thisTopCardRank > handTopCardRank
+						|| thisTopCardRank == handTopCardRank && thisTopCard.getSuit() > handTopCard.getSuit();
+			} else if (hand.size() == 3) {
+				return thisTopCardRank > handTopCardRank;
+			}
+			int thisType = Arrays.asList(HAND_TYPES).indexOf(this.getType());
+			int handType = Arrays.asList(HAND_TYPES).indexOf(hand.getType());
+			if (thisType != handType) {
+				return thisType > handType;
+			}
+			if (type.equals("Flush") && thisTopCard.getSuit() != handTopCard.getSuit()) {
+				return thisTopCard.getSuit() > handTopCard.getSuit();
+			}
+			return thisTopCard.compareTo(handTopCard) == 1;
+		}
+
+		private static int bigTwoRank(Card card) {
+			int rank = card.getRank();
+			return (rank - 2 < 0) ? 13 + rank - 2 : rank - 2;
+		}
+	}
+
+	/**
+	 * Method for adding the benchmarks of splitting a hand of 13 cards into
+	 * hands: hands dealt at random, and the worst case of the 13 cards of a
+	 * suit, which hold the most 5-card hands.
+	 */
+	private void addHandSplitterBenchmarks() {
+		Deck deck = new BigTwoDeck();
+		SplittableRandom random = new SplittableRandom(2396);
+		final CardList[] dealt = new CardList[64];
+		for (int h = 0; h < dealt.length; h++) {
+			deck.shuffle(random);
+			dealt[h] = new CardList();
+			for (int i = 0; i < 13; i++) {
+				dealt[h].addCard(deck.getCard(i));
+			}
+		}
+		final CardList oneSuit = new CardList();
+		for (int rank = 0; rank < 13; rank++) {
+			oneSuit.addCard(BigTwoCard.valueOf(3, rank));
+		}
+
+		add(new Benchmark("HandSplitter.split.random") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					checksum += HandSplitter.split(dealt[(int) (i % dealt.length)]).length;
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("HandSplitter.split.oneSuit") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					checksum += HandSplitter.split(oneSuit).length;
+				}
+				return checksum;
+			}
+		});
+	}
+
+	/**
+	 * Method for adding the benchmarks of shuffling a deck and of sorting,
+	 * searching and removing cards from the 13 cards of a hand.
+	 */
+	private void addCardListBenchmarks() {
+		final Deck deck = new BigTwoDeck();
+		final SplittableRandom random = new SplittableRandom(2396);
+		deck.shuffle(random);
+		final Card[] dealt = new Card[13];
+		final CardList hand = new CardList();
+		for (int i = 0; i < dealt.length; i++) {
+			dealt[i] = deck.getCard(i);
+			hand.addCard(dealt[i]);
+		}
+		final Card[] probes = new Card[52];
+		for (int i = 0; i < probes.length; i++) {
+			probes[i] = BigTwoCard.valueOf(i / 13, i % 13);
+		}
+
+		add(new Benchmark("Deck.shuffle(SplittableRandom)") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					deck.shuffle(random);
+					checksum += deck.getCard(0).getRank();
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("Deck.shuffle(seed)") {
+			// the path of shuffle(), with a new generator of the seed per shuffle
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					deck.shuffle(random.nextLong());
+					checksum += deck.getCard(0).getRank();
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("Deck.shuffle(ThreadLocalRandom)") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					deck.shuffle(ThreadLocalRandom.current());
+					checksum += deck.getCard(0).getRank();
+				}
+				return checksum;
+			}
+		});
+		final SecureRandom secureRandom = new SecureRandom();
+		add(new Benchmark("Deck.shuffle(SecureRandom)") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					deck.shuffle(secureRandom);
+					checksum += deck.getCard(0).getRank();
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("CardList.sort") {
+			// the 13 cards are added in the order dealt, and then sorted
+			public long run(long numOfOps) {
+				CardList cards = new CardList();
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					cards.removeAllCards();
+					for (Card card : dealt) {
+						cards.addCard(card);
+					}
+					cards.sort();
+					checksum += cards.getCard(0).getRank();
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("CardList.contains") {
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					if (hand.contains(probes[(int) (i % probes.length)])) {
+						checksum++;
+					}
+				}
+				return checksum;
+			}
+		});
+		add(new Benchmark("CardList.removeCard") {
+			// each card removed is added back, so that the hand keeps its 13 cards
+			public long run(long numOfOps) {
+				long checksum = 0;
+				for (long i = 0; i < numOfOps; i++) {
+					Card card = dealt[(int) (i % dealt.length)];
+					if (hand.removeCard(card)) {
+						checksum++;
+					}
+					hand.addCard(card);
+				}
+				return checksum;
+			}
+		});
+	}
+
+	/**
+	 * Method for adding the benchmarks of encoding a message, of decoding it,
+	 * and of both, for each codec and for the messages sent during a game.
+	 * The size of each encoded message is kept for printSizes().
+	 */
+	private void addMessageBenchmarks() {
+		Deck deck = new BigTwoDeck();
+		deck.shuffle(2396L);
+		int[] deal = new int[4 + 13];
+		Arrays.fill(deal, 0, 4, 13);
+		for (int i = 0; i < 13; i++) {
+			deal[4 + i] = 13 + i;
+		}
+		CardGameMessage[] messages = {
+				new CardGameMessage(CardGameMessage.MOVE, 2, new int[] { 0, 1, 2, 3, 4 }),
+				new CardGameMessage(CardGameMessage.PLAYED, 2, new int[] { 2, 15, 28, 41, 5 }),
+				new CardGameMessage(CardGameMessage.DEAL, 1, deal),
+				new CardGameMessage(CardGameMessage.MSG, 3, "Player 3 (/127.0.0.1:2396): Good game!"),
+				new CardGameMessage(CardGameMessage.START, -1, deck) };
+		String[] names = { "MOVE", "PLAYED", "DEAL", "MSG", "START" };
+		MessageCodec[] codecs = { SerializedMessageCodec.INSTANCE, BinaryMessageCodec.INSTANCE };
+		String[] codecNames = { "serialized", "binary" };
+
+		for (int c = 0; c < codecs.length; c++) {
+			for (int m = 0; m < messages.length; m++) {
+				final MessageCodec codec = codecs[c];
+				final CardGameMessage message = messages[m];
+				final byte[] encoded;
+				try {
+					encoded = codec.encode(message);
+				} catch (IOException ex) {
+					throw new IllegalStateException("Cannot encode " + names[m], ex);
+				}
+				messageSizes.add(String.format(Locale.ROOT, "%-50s %12d bytes",
+						"CardGameMessage." + codecNames[c] + "." + names[m], encoded.length));
+
+				add(new Benchmark("CardGameMessage.encode." + codecNames[c] + "." + names[m]) {
+					public long run(long numOfOps) throws IOException {
+						long checksum = 0;
+						for (long i = 0; i < numOfOps; i++) {
+							checksum += codec.encode(message).length;
+						}
+						return checksum;
+					}
+				});
+				add(new Benchmark("CardGameMessage.decode." + codecNames[c] + "." + names[m]) {
+					public long run(long numOfOps) throws IOException {
+						long checksum = 0;
+						for (long i = 0; i < numOfOps; i++) {
+							checksum += codec.decode(encoded, 0, encoded.length).getType();
+						}
+						return checksum;
+					}
+				});
+				add(new Benchmark("CardGameMessage.roundTrip." + codecNames[c] + "." + names[m]) {
+					public long run(long numOfOps) throws IOException {
+						long checksum = 0;
+						for (long i = 0; i < numOfOps; i++) {
+							byte[] payload = codec.encode(message);
+							checksum += codec.decode(payload, 0, payload.length).getType() + payload.length;
+						}
+						return checksum;
+					}
+				});
+			}
+		}
+	}
+
+	/**
+	 * Method for adding the benchmark of painting the table in the middle of
+	 * a game into an offscreen image.
+	 */
+	private void addTableBenchmark() {
+		BigTwoGame game = new BigTwoGame();
+		Deck deck = new BigTwoDeck();
+		deck.shuffle(2396L);
+		game.start(deck);
+		for (int i = 0; i < 4; i++) {
+			game.getPlayerList().get(i).setName("Player " + i);
+		}
+		// plays the three of Diamonds
+		game.applyMove(game.getCurrentIdx(), new int[] { 0 });
+
+		final BigTwoTable table = new BigTwoTable(game);
+		for (int i = 0; i < 4; i++) {
+			table.isPresent(i, true);
+		}
+		final BufferedImage image = new BufferedImage(TABLE_WIDTH, TABLE_HEIGHT, BufferedImage.TYPE_INT_RGB);
+		add(new Benchmark("BigTwoTable.paint") {
+			public long run(long numOfOps) {
+				Graphics2D g = image.createGraphics();
+				try {
+					for (long i = 0; i < numOfOps; i++) {
+						table.paintOffscreen(g, TABLE_WIDTH, TABLE_HEIGHT);
+					}
+				} finally {
+					g.dispose();
+				}
+				return image.getRGB(TABLE_WIDTH / 2, TABLE_HEIGHT / 2);
+			}
+		});
+	}
+
+	private static CardList toCardList(int[][] cards) {
+		CardList list = new CardList();
+		for (int[] card : cards) {
+			list.addCard(BigTwoCard.valueOf(card[0], card[1]));
+		}
+		return list;
+	}
+
+	/**
+	 * main() method for running the benchmarks.
+	 *
+	 * @param args (String[]) Optionally, a regular expression selecting the
+	 * 				benchmarks by name, and the options "-list" (printing the
+	 * 				names of the benchmarks), "-sizes" (printing the size of
+	 * 				each message encoded), "-wi=&lt;n&gt;" (warm-up iterations),
+	 * 				"-i=&lt;n&gt;" (measured iterations), "-time=&lt;ms&gt;" (time of an
+	 * 				iteration), "-csv=&lt;file&gt;" and "-json=&lt;file&gt;" (writing
+	 * 				the results).
+	 */
+	public static void main(String[] args) throws Exception {
+		// the table is painted offscreen only
+		System.setProperty("java.awt.headless", "true");
+
+		int warmupIterations = DEFAULT_WARMUP_ITERATIONS;
+		int iterations = DEFAULT_ITERATIONS;
+		long iterationTime = DEFAULT_ITERATION_TIME;
+		String csvFile = null;
+		String jsonFile = null;
+		boolean list = false;
+		boolean sizes = false;
+		Pattern filter = null;
+		for (String arg : args) {
+			if (arg.equals("-list")) {
+				list = true;
+			} else if (arg.equals("-sizes")) {
+				sizes = true;
+			} else if (arg.startsWith("-wi=")) {
+				warmupIterations = Integer.parseInt(arg.substring("-wi=".length()));
+			} else if (arg.startsWith("-i=")) {
+				iterations = Integer.parseInt(arg.substring("-i=".length()));
+			} else if (arg.startsWith("-time=")) {
+				iterationTime = Long.parseLong(arg.substring("-time=".length()));
+			} else if (arg.startsWith("-csv=")) {
+				csvFile = arg.substring("-csv=".length());
+			} else if (arg.startsWith("-json=")) {
+				jsonFile = arg.substring("-json=".length());
+			} else if (arg.startsWith("-")) {
+				System.out.println("Usage: java BigTwoBenchmark [regex] [-list] [-sizes] [-wi=<n>] [-i=<n>] [-time=<ms>]"
+						+ " [-csv=<file>] [-json=<file>]");
+				return;
+			} else {
+				filter = Pattern.compile(arg);
+			}
+		}
+
+		BigTwoBenchmark benchmark = new BigTwoBenchmark();
+		if (sizes) {
+			benchmark.printSizes();
+			return;
+		}
+		if (list) {
+			for (String name : benchmark.getNames()) {
+				if (filter == null || filter.matcher(name).find()) {
+					System.out.println(name);
+				}
+			}
+			return;
+		}
+		benchmark.setIterations(warmupIterations, iterations, iterationTime);
+		ArrayList<Result> results = benchmark.run(filter);
+		if (csvFile != null) {
+			benchmark.writeCsv(results, csvFile);
+		}
+		if (jsonFile != null) {
+			benchmark.writeJson(results, jsonFile);
+		}
+	}
+}
@@ -0,0 +1,493 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Class that implements the CardGame interface and
+ * NetworkGame interface without any user interface.
+ * <p>
+ * Used to model a computer player connecting to a Big Two
+ * game server. The moves are chosen by a BotStrategy, and the
+ * state of the game is kept in a BigTwoGame. A bot plays a
+ * given number of games and then leaves the server.
+ */
+public class BigTwoBot implements CardGame, NetworkGame {
+
+	private BigTwoGame game;
+	private BotStrategy strategy;
+	private int playerID;
+	private String playerName;
+	private String serverIP;
+	private int serverPort;
+	private Socket sock;
+	private OutputStream out;
+	private DataInputStream in;
+	private MessageCodec codec;
+	private int codecID = BinaryMessageCodec.CODEC_ID;
+
+	private int numOfGames;
+	private int gamesPlayed = 0;
+	private int movesMade = 0;
+	private long moveSentAt = 0;
+	private long[] moveLatencies = new long[64];
+	private int numOfLatencies = 0;
+	private volatile boolean finished = false;
+	private Runnable onFinished;
+	private Runnable onJoined;
+
+	/**
+	 * Constructor for creating a Big Two bot.
+	 *
+	 * @param playerName (String) The name of the bot.
+	 * @param strategy (BotStrategy) The strategy choosing the moves of the bot.
+	 * @param numOfGames (int) The number of games to be played before leaving the server.
+	 */
+	public BigTwoBot(String playerName, BotStrategy strategy, int numOfGames) {
+		this.playerName = playerName;
+		this.strategy = strategy;
+		this.numOfGames = numOfGames;
+
+		game = new BigTwoGame();
+		playerID = -1;
+		serverIP = "127.0.0.1";
+		serverPort = 2396;
+	}
+
+	/**
+	 * Method for creating a strategy from its name, as given on a command line.
+	 *
+	 * @param name (String) "greedy", "rules", or "mcts" optionally followed by
+	 * 				":" and the time budget of a move in milliseconds.
+	 * @return BotStrategy specified by the name.
+	 */
+	public static BotStrategy createStrategy(String name) {
+		if (name.equals("greedy")) {
+			return new GreedyStrategy();
+		} else if (name.equals("rules")) {
+			return new RuleBasedStrategy();
+		} else if (name.equals("mcts")) {
+			return new MonteCarloStrategy();
+		} else if (name.startsWith("mcts:")) {
+			return new MonteCarloStrategy(Long.parseLong(name.substring("mcts:".length())));
+		}
+		throw new IllegalArgumentException("Unknown strategy: " + name);
+	}
+
+	/**
+	 * Setter method for the action run once the bot has left the server.
+	 *
+	 * @param onFinished (Runnable) The action to be run, or null.
+	 */
+	public void setOnFinished(Runnable onFinished) {
+		this.onFinished = onFinished;
+	}
+
+	/**
+	 * Setter method for the action run once the bot has joined the game. If set,
+	 * the bot does not get ready for its first game until ready() is called.
+	 *
+	 * @param onJoined (Runnable) The action to be run, or null.
+	 */
+	public void setOnJoined(Runnable onJoined) {
+		this.onJoined = onJoined;
+	}
+
+	/**
+	 * Method for telling the server that the bot is ready for the next game.
+	 */
+	public void ready() {
+		sendMessage(new CardGameMessage(CardGameMessage.READY, -1, null));
+	}
+
+	/**
+	 * Getter method for the number of games played to completion.
+	 *
+	 * @return int value specifying the number of games played.
+	 */
+	public synchronized int getGamesPlayed() {
+		return gamesPlayed;
+	}
+
+	/**
+	 * Getter method for the number of moves made by the bot.
+	 *
+	 * @return int value specifying the number of moves made.
+	 */
+	public synchronized int getMovesMade() {
+		return movesMade;
+	}
+
+	/**
+	 * Returns the round-trip latencies of the moves made by the bot, i.e. the
+	 * time between sending a MOVE message and receiving it back from the server.
+	 *
+	 * @return long[] specifying the latencies in nanoseconds.
+	 */
+	public synchronized long[] getMoveLatencies() {
+		return Arrays.copyOf(moveLatencies, numOfLatencies);
+	}
+
+	/**
+	 * Getter method specifying whether the bot has left the server.
+	 *
+	 * @return true (boolean) if the bot has left the server.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	/**
+	 * A getter method for the number of players.
+	 *
+	 * @return int value specifying the number of players.
+	 */
+	public int getNumOfPlayers() {
+		return game.getNumOfPlayers();
+	}
+
+	/**
+	 * Getter method for the deck of the current game.
+	 *
+	 * @return Deck containing the deck of cards (BigTwoCards).
+	 */
+	public Deck getDeck() {
+		return game.getDeck();
+	}
+
+	/**
+	 * Getter method for the list of players.
+	 *
+	 * @return ArrayList of type CardGamePlayer, which represents the list of players.
+	 */
+	public ArrayList<CardGamePlayer> getPlayerList() {
+		return game.getPlayerList();
+	}
+
+	/**
+	 * Getter method for the hands played on the table.
+	 *
+	 * @return ArrayList of type Hand which represents all the hands (Hand objects) that have been played so far.
+	 */
+	public ArrayList<Hand> getHandsOnTable() {
+		return game.getHandsOnTable();
+	}
+
+	/**
+	 * Getter method for the index of the current player.
+	 *
+	 * @return int value representing the index of the current player.
+	 */
+	public int getCurrentIdx() {
+		return game.getCurrentIdx();
+	}
+
+	/**
+	 * Method for starting/restarting the game with
+	 * the provided shuffled deck of cards.
+	 *
+	 * @param deck (Deck) Deck of cards to be used in the game.
+	 */
+	public void start(Deck deck) {
+		game.start(deck);
+	}
+
+	/**
+	 * Method used by the bot to make a move.
+	 *
+	 * @param playerID (int) Specifies ID of player making the move
+	 * @param cardIdx (int[]) Specifies the list of card indices (from the player's hand)
+	 * 					that the player wishes to use in their move.
+	 */
+	public synchronized void makeMove(int playerID, int[] cardIdx) {
+		moveSentAt = System.nanoTime();
+		sendMessage(new CardGameMessage(CardGameMessage.MOVE, -1, cardIdx));
+	}
+
+	/**
+	 * Method for checking a move broadcast by the server, and applying
+	 * it to the state of the game.
+	 *
+	 * @param playerID (int) The index of player making the move
+	 * @param cardIdx (int[]) The indices of cards that the player selected.
+	 */
+	public void checkMove(int playerID, int[] cardIdx) {
+		game.applyMove(playerID, cardIdx);
+	}
+
+	/**
+	 * Method that checks whether the game has ended.
+	 *
+	 * @return boolean value specifying whether game is over.
+	 */
+	public boolean endOfGame() {
+		return game.endOfGame();
+	}
+
+	/**
+	 * A getter method for the instance variable 'playerID'.
+	 * @return (int) value specifying the playerID of the bot.
+	 */
+	public int getPlayerID() {
+		return playerID;
+	}
+
+	/**
+	 * A setter method for the instance variable 'playerID'.
+	 * @param playerID (int) value specifying what the playerID should be set to.
+	 */
+	public void setPlayerID(int playerID) {
+		this.playerID = playerID;
+	}
+
+	/**
+	 * A getter method for the instance variable 'playerName'.
+	 * @return (String) specifying the name of the bot.
+	 */
+	public String getPlayerName() {
+		return playerName;
+	}
+
+	/**
+	 * A setter method for the instance variable 'playerName'.
+	 * @param playerName (String) The value that playerName should be set to.
+	 */
+	public void setPlayerName(String playerName) {
+		this.playerName = playerName;
+	}
+
+	/**
+	 * A getter method for the instance variable 'serverIP'.
+	 * @return (String) Specifying the serverIP.
+	 */
+	public String getServerIP() {
+		return serverIP;
+	}
+
+	/**
+	 * A setter method for the instance variable 'serverIP'.
+	 * @param serverIP (String) Value specifying what serverIP should be set to.
+	 */
+	public void setServerIP(String serverIP) {
+		this.serverIP = serverIP;
+	}
+
+	/**
+	 * A getter method for the instance variable 'serverPort'.
+	 * @return (int) Specifying the serverPort.
+	 */
+	public int getServerPort() {
+		return serverPort;
+	}
+
+	/**
+	 * A setter method for the instance variable 'serverPort'.
+	 * @param serverPort (int) Specifies what serverPort should be set to.
+	 */
+	public void setServerPort(int serverPort) {
+		this.serverPort = serverPort;
+	}
+
+	/**
+	 * A setter method for the codec requested in the handshake.
+	 * @param codecID (int) The id of the codec, BinaryMessageCodec.CODEC_ID by default.
+	 */
+	public void setCodecID(int codecID) {
+		this.codecID = codecID;
+	}
+
+	/**
+	 * Method for making a socket connection with the
+	 * game server, using the requested codec if the server supports it.
+	 */
+	public void makeConnection() {
+		try {
+			sock = new Socket(serverIP, serverPort);
+			sock.setTcpNoDelay(true);
+			out = new BufferedOutputStream(sock.getOutputStream());
+			in = new DataInputStream(new BufferedInputStream(sock.getInputStream()));
+
+			MessageCodec binaryCodec = new BinaryMessageCodec() {
+				public Deck createDeck() {
+					return new BigTwoDeck();
+				}
+			};
+			MessageFrames.writeHandshake(out, codecID);
+			if (MessageFrames.readHandshake(in) == binaryCodec.getCodecID()) {
+				codec = binaryCodec;
+			} else {
+				codec = SerializedMessageCodec.INSTANCE;
+			}
+
+			Thread thread = new Thread(new ServerHandler(), "BigTwoBot-" + playerName);
+			thread.setDaemon(true);
+			thread.start();
+		} catch (Exception e) {
+			System.out.println(playerName + ": cannot join server.");
+			e.printStackTrace();
+			finish();
+		}
+	}
+
+	/**
+	 * Method for parsing the messages received from
+	 * the game server.
+	 * @param message (GameMessage) that specifies the message received from the server.
+	 */
+	public synchronized void parseMessage(GameMessage message) {
+		switch (message.getType()) {
+		case CardGameMessage.PLAYER_LIST:
+			playerID = message.getPlayerID();
+			sendMessage(new CardGameMessage(CardGameMessage.JOIN, -1, playerName));
+			break;
+
+		case CardGameMessage.JOIN:
+			game.getPlayerList().get(message.getPlayerID()).setName((String) message.getData());
+			if (message.getPlayerID() == playerID) {
+				if (onJoined != null) {
+					onJoined.run();
+				} else {
+					ready();
+				}
+			}
+			break;
+
+		case CardGameMessage.FULL:
+			System.out.println(playerName + ": server is full.");
+			finish();
+			break;
+
+		case CardGameMessage.QUIT:
+			// The game in progress is aborted by the server.
+			if (!game.endOfGame()) {
+				for (CardGamePlayer player : game.getPlayerList()) player.removeAllCards();
+			}
+			if (gamesPlayed < numOfGames) {
+				ready();
+			}
+			break;
+
+		case CardGameMessage.START:
+			start((Deck) message.getData());
+			playIfMyTurn();
+			break;
+
+		case CardGameMessage.DEAL:
+			// Only our own cards are dealt; the other hands are hidden.
+			game.start(message.getPlayerID(), playerID, (int[]) message.getData());
+			playIfMyTurn();
+			break;
+
+		case CardGameMessage.MOVE:
+		case CardGameMessage.PLAYED:
+			if (message.getPlayerID() == playerID && moveSentAt != 0) {
+				recordLatency(System.nanoTime() - moveSentAt);
+				moveSentAt = 0;
+			}
+			if (message.getType() == CardGameMessage.PLAYED) {
+				if (!game.applyPlayed(message.getPlayerID(), (int[]) message.getData())) {
+					break;
+				}
+			} else {
+				int[] cardIdx = (int[]) message.getData();
+				if (!game.applyMove(message.getPlayerID(), cardIdx)) {
+					// Our own move was rejected: fall back to passing, or to the weakest card.
+					if (message.getPlayerID() == playerID) {
+						makeMove(playerID, cardIdx == null ? new int[] { 0 } : null);
+					}
+					break;
+				}
+			}
+
+			if (game.endOfGame()) {
+				gamesPlayed++;
+				if (gamesPlayed < numOfGames) {
+					ready();
+				} else {
+					finish();
+				}
+			} else {
+				playIfMyTurn();
+			}
+			break;
+
+		default:
+			break;
+		}
+	}
+
+	/**
+	 * Makes a move chosen by the strategy if it is the bot's turn.
+	 */
+	private void playIfMyTurn() {
+		if (game.getCurrentIdx() == playerID && !game.endOfGame()) {
+			movesMade++;
+			makeMove(playerID, strategy.chooseMove(game, playerID));
+		}
+	}
+
+	private void recordLatency(long latency) {
+		if (numOfLatencies == moveLatencies.length) {
+			moveLatencies = Arrays.copyOf(moveLatencies, 2 * numOfLatencies);
+		}
+		moveLatencies[numOfLatencies++] = latency;
+	}
+
+	/**
+	 * Leaves the server.
+	 */
+	private void finish() {
+		if (finished) {
+			return;
+		}
+		finished = true;
+		try {
+			if (sock != null) {
+				sock.close();
+			}
+		} catch (Exception e) {
+			// doing nothing
+		}
+		if (onFinished != null) {
+			onFinished.run();
+		}
+	}
+
+	/**
+	 * A method for sending the specified message to the server.
+	 * @param message (GameMessage) The message that needs to be sent to the server.
+	 */
+	public void sendMessage(GameMessage message) {
+		try {
+			MessageFrames.writeFrame(out, codec, message);
+		} catch (Exception e) {
+			System.out.println(playerName + ": unable to send message to the server.");
+			finish();
+		}
+	}
+
+	/**
+	 * Handles receiving messages from the game server.
+	 */
+	private class ServerHandler implements Runnable {
+
+		/**
+		 * Implementing the run() method from Runnable.
+		 */
+		public void run() {
+			try {
+				while (!finished) {
+					parseMessage(MessageFrames.readFrame(in, codec));
+				}
+			} catch (Exception e) {
+				if (!finished) {
+					System.out.println(playerName + ": connection to the server lost.");
+				}
+			}
+			finish();
+		}
+	}
+}
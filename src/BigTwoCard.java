@@ -8,6 +8,18 @@
  */
 public class BigTwoCard extends Card{
 	
+	// The serialVersionUID of the original class, so that cards are still exchanged with earlier versions.
+	private static final long serialVersionUID = -6882428045893598171L;
+	
+	// The shared BigTwo cards, indexed by suit * 13 + rank.
+	private static final BigTwoCard[] CARDS = new BigTwoCard[52];
+	
+	static {
+		for (int i = 0; i < CARDS.length; i++) {
+			CARDS[i] = new BigTwoCard(i / 13, i % 13);
+		}
+	}
+	
 	/**
 	 * Constructor to create a BigTwo Card object.
 	 * 
@@ -18,6 +30,27 @@ public class BigTwoCard extends Card{
 		super(suit, rank);
 	}
 	
+	/**
+	 * Method to get the shared BigTwo Card object of a suit and a rank, without allocating a new one.
+	 * 
+	 * @param suit int specifying the index that represents the suit of the BigTwo card.
+	 * @param rank int specifying the index that represents the rank of the BigTwo card.
+	 * 
+	 * @return BigTwoCard which is the shared instance of the card.
+	 */
+	public static BigTwoCard valueOf(int suit, int rank) {
+		return CARDS[index(suit, rank)];
+	}
+	
+	/**
+	 * Overridden method replaces a deserialized BigTwo card with its shared instance.
+	 * 
+	 * @return BigTwoCard which is the shared instance of the card.
+	 */
+	protected Object readResolve() {
+		return getClass() == BigTwoCard.class ? valueOf(suit, rank) : this;
+	}
+	
 	/**
 	 * Method to compare the calling Card with the Card being passed.
 	 * 
@@ -29,8 +62,9 @@ public class BigTwoCard extends Card{
 	 */
 	public int compareTo(Card card) {
 		// Correct the ranks according to Big Two rules and carry out same comparison as original method.
-		int thisRank = (this.rank - 2 < 0) ? 13 + this.rank - 2 : this.rank - 2;
-		int cardRank = (card.rank - 2 < 0) ? 13 + card.rank - 2 : card.rank - 2;
+		// A hidden card keeps its rank of -1, below all the other cards.
+		int thisRank = (this.rank == 0 || this.rank == 1) ? 13 + this.rank - 2 : this.rank - 2;
+		int cardRank = (card.rank == 0 || card.rank == 1) ? 13 + card.rank - 2 : card.rank - 2;
 		
 		if (thisRank > cardRank) {
 			return 1;
@@ -24,8 +24,9 @@ public class BigTwoClient implements CardGame, NetworkGame {
 	private String serverIP;
 	private int serverPort;
 	private Socket sock;
-	private ObjectOutputStream oos;
-	private ObjectInputStream ois;
+	private OutputStream out;
+	private DataInputStream in;
+	private MessageCodec codec;
 	private int currentIdx;
 	private BigTwoTable table;
 	private boolean gameEndedNicely;
@@ -61,7 +62,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		handsOnTable = new ArrayList<Hand>();
 		
 		makeConnection();
-		table.repaint();
 	}
 	
 	/**
@@ -139,7 +139,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		for(int player = 0; player < 4; player++) {
 			for(int card = 0; card < 13; card++) {
 				playerList.get(player).addCard(deck.getCard(13 * player + card));
-				if (deck.getCard(13 * player + card).compareTo(new Card(0,2)) == 0) {
+				if (deck.getCard(13 * player + card).compareTo(Card.valueOf(0,2)) == 0) {
 					currentIdx = player;
 					
 				}
@@ -154,6 +154,26 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		table.repaint();
 	}
 	
+	/**
+	 * Method for starting/restarting the game with the cards
+	 * dealt to the local player in a DEAL message. The cards
+	 * of the other players are hidden.
+	 * 
+	 * @param firstIdx (int) The index of the player making the first move.
+	 * @param deal (int[]) The data of the DEAL message.
+	 */
+	public void start(int firstIdx, int[] deal) {
+		gameEndedNicely = false;
+		gameStarted = true;
+		handsOnTable.removeAll(handsOnTable);
+		
+		BigTwoGame.dealHands(playerList, playerID, deal);
+		currentIdx = firstIdx;
+		
+		table.setActivePlayer(playerID);
+		table.repaint();
+	}
+	
 	/**
 	 * Method used by a player to make a move.
 	 * 
@@ -177,7 +197,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		boolean illegalMove = false;
 		if(this.playerID == currentIdx) table.enable();
 		else table.disable();
-		table.repaint();
 		
 		int[] selectedCardIndices = cardIdx;
 		
@@ -220,7 +239,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		}
 		
 		// Illegal Move: First Player not including 0,2 card
-		if (handsOnTable.isEmpty() && !bestHandPossible.contains(new Card(0,2))) {
+		if (handsOnTable.isEmpty() && !bestHandPossible.contains(Card.valueOf(0,2))) {
 			illegalMove = true;
 			
 			table.printMsg("Illegal Move! 3");
@@ -272,7 +291,9 @@ public class BigTwoClient implements CardGame, NetworkGame {
 			table.printMsg(playerList.get(currentIdx).getName() + "'s turn:");
 			if(currentIdx == this.playerID) table.enable();
 			else table.disable();
-			table.repaint();
+			// Only the row of the player and the hand on the table have changed
+			table.repaintPlayer(playerID);
+			table.repaintTable();
 			
 		} else {
 			gameEndedNicely = true;
@@ -304,7 +325,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 			
 			JOptionPane.showMessageDialog(new JFrame("GameOver"), gameOverMessage);
 			
-			table.repaint();
 			sendMessage(new CardGameMessage(CardGameMessage.READY, -1, null));
 		}		
 	}
@@ -398,14 +418,27 @@ public class BigTwoClient implements CardGame, NetworkGame {
 				return;
 			}
 			sock = new Socket(serverIP, serverPort);
-			oos = new ObjectOutputStream(sock.getOutputStream());
-			ois = new ObjectInputStream(sock.getInputStream());
+			sock.setTcpNoDelay(true);
+			out = new BufferedOutputStream(sock.getOutputStream());
+			in = new DataInputStream(new BufferedInputStream(sock.getInputStream()));
+			
+			// Ask for the binary codec. The server answers with the codec it will use.
+			MessageCodec binaryCodec = new BinaryMessageCodec() {
+				public Deck createDeck() {
+					return new BigTwoDeck();
+				}
+			};
+			MessageFrames.writeHandshake(out, binaryCodec.getCodecID());
+			if (MessageFrames.readHandshake(in) == binaryCodec.getCodecID()) {
+				codec = binaryCodec;
+			} else {
+				codec = SerializedMessageCodec.INSTANCE;
+			}
 			Thread thread = new Thread(new ServerHandler());
 			thread.start();
 		} catch(Exception e) {
 			table.printMsg("Cannot Join Server.");
 			sock = null;
-			table.repaint();
 			e.printStackTrace();
 		}
 		
@@ -444,13 +477,11 @@ public class BigTwoClient implements CardGame, NetworkGame {
 			} else {
 				playerList.get(message.getPlayerID()).setName((String)message.getData());
 				table.isPresent(message.getPlayerID(), true);
-				table.repaint();
 			}
 			break;
 			
 		case CardGameMessage.FULL:
 			table.printMsg("Cannot Join. Server /" + serverIP + ":" + serverPort + " is full.");
-			table.repaint();
 			try {
 				sock.close();
 				sock = null;
@@ -475,7 +506,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		
 		case CardGameMessage.READY:
 			table.printMsg(playerList.get(message.getPlayerID()).getName() + " is Ready.");
-			table.repaint();
 			break;
 		
 		case CardGameMessage.START:
@@ -484,17 +514,28 @@ public class BigTwoClient implements CardGame, NetworkGame {
 			table.printMsg(playerList.get(currentIdx).getName() + "'s turn:");
 			if(playerID == currentIdx) table.enable();
 			else table.disable();
-			table.repaint();
+			break;
+		
+		case CardGameMessage.DEAL:
+			start(message.getPlayerID(), (int[])message.getData());
+			table.printMsg("Game has started.\n\n");
+			table.printMsg(playerList.get(currentIdx).getName() + "'s turn:");
+			if(playerID == currentIdx) table.enable();
+			else table.disable();
 			break;
 		
 		case CardGameMessage.MOVE:
 			checkMove(message.getPlayerID(),(int[]) message.getData());
-			table.repaint();
+			break;
+		
+		case CardGameMessage.PLAYED:
+			// The cards played are located in (or revealed from) the hand of the player.
+			CardGamePlayer player = playerList.get(message.getPlayerID());
+			checkMove(message.getPlayerID(), BigTwoGame.revealPlayed(player, (int[]) message.getData()));
 			break;
 		
 		case CardGameMessage.MSG:
 			table.chatMsg((String)message.getData());
-			table.repaint();
 			break;
 		}
 	}
@@ -505,7 +546,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
 	 */
 	public void sendMessage(GameMessage message) {
 		try {
-			oos.writeObject(message);
+			MessageFrames.writeFrame(out, codec, message);
 		} catch(Exception e) {
 			table.printMsg("Unable to send message to the server. Connection will be terminated.");
 			table.printMsg("Try to Connect again.");
@@ -515,7 +556,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 				// doing nothing
 			}
 			sock = null;
-			table.repaint();
 			System.out.println("Unable to send message to the server.");
 			e.printStackTrace();
 		}
@@ -542,7 +582,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
 		public synchronized void run() {
 			GameMessage message;
 			try {
-				while((message = (GameMessage) ois.readObject()) != null) {
+				while((message = MessageFrames.readFrame(in, codec)) != null) {
 					parseMessage(message);
 				}
 			} catch(Exception e) {
@@ -557,7 +597,6 @@ public class BigTwoClient implements CardGame, NetworkGame {
 				System.out.println("Unable to receive message from server.");
 				e.printStackTrace();
 			}
-			table.repaint();
 		}
 	}
 	
@@ -569,23 +608,7 @@ public class BigTwoClient implements CardGame, NetworkGame {
 	 * @return Hand object specifying a hand that the player can play (best hand), or null if the cards form no valid combination.
 	 */
 	public static Hand composeHand(CardGamePlayer player, CardList cards) {
-		// Create an object of every hand type and return the strongest valid one.
-		ArrayList<Hand> allPossibleHands = new ArrayList<Hand>();
-		allPossibleHands.add(new StraightFlush(player,cards));
-		allPossibleHands.add(new Quad(player,cards));
-		allPossibleHands.add(new FullHouse(player,cards));
-		allPossibleHands.add(new Flush(player,cards));
-		allPossibleHands.add(new Straight(player,cards));
-		allPossibleHands.add(new Triple(player,cards));
-		allPossibleHands.add(new Pair(player,cards));
-		allPossibleHands.add(new Single(player,cards));
-		
-		for (Hand hand : allPossibleHands) {
-			if (hand.isValid()) {
-				return hand;
-			}
-		}
-		return null;
+		return BigTwoGame.composeHand(player, cards);
 	}
 	
 	/**
@@ -15,7 +15,7 @@ public class BigTwoDeck extends Deck {
 		removeAllCards();
 		for (int i = 0; i < 4; i++) {
 			for (int j = 0; j < 13; j++) {
-				addCard(new BigTwoCard(i,j));
+				addCard(BigTwoCard.valueOf(i,j));
 			}
 		}
 	}
@@ -0,0 +1,407 @@
+import java.util.ArrayList;
+
+/**
+ * Class that implements the CardGame interface and the GameEngine
+ * interface without any user interface.
+ * <p>
+ * Used to model the rules and the state of a Big Two card game
+ * for 4 players, e.g. as the authoritative engine of a room of
+ * the game server.
+ */
+public class BigTwoGame implements CardGame, GameEngine {
+
+	/**
+	 * The three of Diamonds, which has to be played in the first hand of a game.
+	 */
+	private static final Card THREE_OF_DIAMONDS = BigTwoCard.valueOf(0, 2);
+	private int numOfPlayers;
+	private Deck deck;
+	private ArrayList<CardGamePlayer> playerList;
+	private ArrayList<Hand> handsOnTable;
+	private int currentIdx;
+	private CardList lastPlayed;
+	private boolean gameStarted = false;
+
+	/**
+	 * Constructor for creating a Big Two game.
+	 */
+	public BigTwoGame() {
+		numOfPlayers = 4;
+		currentIdx = -1;
+
+		playerList = new ArrayList<CardGamePlayer>();
+		for (int i = 0; i < numOfPlayers; i++) {
+			playerList.add(new CardGamePlayer());
+		}
+		handsOnTable = new ArrayList<Hand>();
+	}
+
+	/**
+	 * A getter method for the number of players.
+	 *
+	 * @return int value specifying the number of players.
+	 */
+	public int getNumOfPlayers() {
+		return numOfPlayers;
+	}
+
+	/**
+	 * Getter method for instance variable Deck deck.
+	 *
+	 * @return Deck containing the deck of cards used in the current game.
+	 */
+	public Deck getDeck() {
+		return deck;
+	}
+
+	/**
+	 * Getter method for the instance variable 'playerList'.
+	 *
+	 * @return ArrayList of type CardGamePlayer, which represents the list of players.
+	 */
+	public ArrayList<CardGamePlayer> getPlayerList() {
+		return playerList;
+	}
+
+	/**
+	 * Getter method for instance variable 'handsOnTable'.
+	 *
+	 * @return ArrayList of type Hand which represents all the hands (Hand objects) that have been played so far.
+	 */
+	public ArrayList<Hand> getHandsOnTable() {
+		return handsOnTable;
+	}
+
+	/**
+	 * Getter method for instance variable 'currentIdx'.
+	 *
+	 * @return int value representing the index of the current player.
+	 */
+	public int getCurrentIdx() {
+		return currentIdx;
+	}
+
+	/**
+	 * Method for starting/restarting the game with
+	 * the provided shuffled deck of cards.
+	 *
+	 * @param deck (Deck) Deck of cards to be used
+	 * 				in the game.
+	 */
+	public void start(Deck deck) {
+		this.deck = deck;
+		gameStarted = true;
+
+		// Remove cards from Players, and Table
+		for (CardGamePlayer player : playerList) player.removeAllCards();
+		handsOnTable.clear();
+
+		// Distributing cards, sorting them, and finding who the first player is.
+		for (int player = 0; player < numOfPlayers; player++) {
+			for (int card = 0; card < 13; card++) {
+				Card dealt = deck.getCard(13 * player + card);
+				playerList.get(player).addCard(dealt);
+				if (dealt.equals(THREE_OF_DIAMONDS)) {
+					currentIdx = player;
+				}
+			}
+			playerList.get(player).sortCardsInHand();
+		}
+	}
+
+	/**
+	 * Method for starting/restarting the game from a DEAL message, which only
+	 * holds the cards of one player. The hands of the other players are hidden.
+	 *
+	 * @param firstIdx (int) The index of the player making the first move.
+	 * @param playerID (int) The index of the player the cards are dealt to.
+	 * @param deal (int[]) The data of the DEAL message.
+	 */
+	public void start(int firstIdx, int playerID, int[] deal) {
+		this.deck = null;
+		gameStarted = true;
+		handsOnTable.clear();
+		dealHands(playerList, playerID, deal);
+		currentIdx = firstIdx;
+	}
+
+	/**
+	 * Method used by a player to make a move. Same as checkMove()
+	 * as there is no network involved.
+	 *
+	 * @param playerID (int) Specifies ID of player making the move
+	 * @param cardIdx (int[]) Specifies the list of card indices (from the player's hand)
+	 * 					that the player wishes to use in their move.
+	 */
+	public void makeMove(int playerID, int[] cardIdx) {
+		checkMove(playerID, cardIdx);
+	}
+
+	/**
+	 * Method for checking a move made by a player. The move is
+	 * applied if it is legal, and ignored otherwise.
+	 *
+	 * @param playerID (int) The index of player making the move
+	 * @param cardIdx (int[]) The indices of cards that the player selected.
+	 */
+	public void checkMove(int playerID, int[] cardIdx) {
+		applyMove(playerID, cardIdx);
+	}
+
+	/**
+	 * Method for validating a move given by the cards played, as in a PLAYED
+	 * message, and applying it if it is legal. The cards may be in a hidden hand.
+	 *
+	 * @param playerID (int) The index of player making the move
+	 * @param played (int[]) The cards played (see toCard()), or null for a pass.
+	 * @return true (boolean) if the move is legal and has been applied.<p>false (boolean) otherwise.
+	 */
+	public boolean applyPlayed(int playerID, int[] played) {
+		if (playerID < 0 || playerID >= numOfPlayers) {
+			return false;
+		}
+		return applyMove(playerID, revealPlayed(playerList.get(playerID), played));
+	}
+
+	/**
+	 * Method for validating a move made by a player and
+	 * applying it if it is legal.
+	 *
+	 * @param playerID (int) The index of player making the move
+	 * @param cardIdx (int[]) The indices of cards that the player selected, or null for a pass.
+	 * @return true (boolean) if the move is legal and has been applied.<p>false (boolean) otherwise.
+	 */
+	public boolean applyMove(int playerID, int[] cardIdx) {
+		if (!gameStarted || endOfGame() || playerID != currentIdx) {
+			return false;
+		}
+
+		CardGamePlayer player = playerList.get(currentIdx);
+		Hand lastHand = handsOnTable.isEmpty() ? null : handsOnTable.get(handsOnTable.size() - 1);
+
+		// Pass
+		// The first player cannot pass, neither can the last player who played a hand (cycled back).
+		if (cardIdx == null) {
+			if (lastHand == null || lastHand.getPlayer() == player) {
+				return false;
+			}
+			currentIdx = (currentIdx + 1) % numOfPlayers;
+			lastPlayed = null;
+			return true;
+		}
+
+		Hand hand = composeHand(player, player.play(cardIdx));
+
+		// Illegal Move: Doesn't make a valid Hand
+		if (hand == null) {
+			return false;
+		}
+
+		// Illegal Move: First Player not including the three of Diamonds
+		if (lastHand == null && !hand.contains(THREE_OF_DIAMONDS)) {
+			return false;
+		}
+
+		// Illegal Move: Does not beat the last hand, unless everyone else passed
+		if (lastHand != null && lastHand.getPlayer() != player && !hand.beats(lastHand)) {
+			return false;
+		}
+
+		player.removeCards(hand);
+		handsOnTable.add(hand);
+		lastPlayed = hand;
+
+		if (!endOfGame()) {
+			currentIdx = (currentIdx + 1) % numOfPlayers;
+		}
+		return true;
+	}
+
+	/**
+	 * Getter method for the cards in the hand of a player.
+	 *
+	 * @param playerID (int) The index of the player.
+	 * @return CardList of the cards in the hand of the player.
+	 */
+	public CardList getCardsInHand(int playerID) {
+		return playerList.get(playerID).getCardsInHand();
+	}
+
+	/**
+	 * Getter method for the cards played in the last move applied.
+	 *
+	 * @return CardList of the cards played, or null if the last move was a pass.
+	 */
+	public CardList getLastPlayed() {
+		return lastPlayed;
+	}
+
+	/**
+	 * Method that checks whether the game has ended.
+	 *
+	 * @return boolean value specifying whether game is over.
+	 */
+	public boolean endOfGame() {
+		for (CardGamePlayer player : playerList) {
+			if (gameStarted && player.getNumOfCards() == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Method for copying the state of the game as seen by a player: its own cards,
+	 * hidden cards (Card.HIDDEN) in place of the cards of the other players, and the
+	 * hands on the table. The copy may be read, e.g. by a BotStrategy, while this
+	 * game goes on.
+	 *
+	 * @param playerID (int) The index of the player.
+	 * @return BigTwoGame holding the copy of the state of the game.
+	 */
+	public BigTwoGame getView(int playerID) {
+		BigTwoGame view = new BigTwoGame();
+		view.gameStarted = gameStarted;
+		view.currentIdx = currentIdx;
+		for (int i = 0; i < numOfPlayers; i++) {
+			CardGamePlayer player = playerList.get(i);
+			CardGamePlayer copy = view.playerList.get(i);
+			copy.setName(player.getName());
+			CardList cards = player.getCardsInHand();
+			for (int j = 0; j < cards.size(); j++) {
+				copy.addCard(i == playerID ? cards.getCard(j) : Card.HIDDEN);
+			}
+		}
+		for (Hand hand : handsOnTable) {
+			CardGamePlayer player = view.playerList.get(playerList.indexOf(hand.getPlayer()));
+			view.handsOnTable.add(composeHand(player, hand));
+		}
+		return view;
+	}
+
+	/**
+	 * A method for returning a valid hand from the list of cards passed.
+	 *
+	 * @param player CardGamePlayer trying to play the hand.
+	 * @param cards CardList selected by the player.
+	 * @return Hand object specifying a hand that the player can play (best hand), or null if the cards form no valid combination.
+	 */
+	public static Hand composeHand(CardGamePlayer player, CardList cards) {
+		if (cards == null) {
+			return null;
+		}
+
+		// Classify the cards once and only create the Hand of that type.
+		long mask = HandEvaluator.toMask(cards);
+		if (Long.bitCount(mask) != cards.size()) {
+			return null;
+		}
+
+		switch (HandEvaluator.classify(mask)) {
+		case HandEvaluator.STRAIGHT_FLUSH:
+			return new StraightFlush(player, cards);
+		case HandEvaluator.QUAD:
+			return new Quad(player, cards);
+		case HandEvaluator.FULL_HOUSE:
+			return new FullHouse(player, cards);
+		case HandEvaluator.FLUSH:
+			return new Flush(player, cards);
+		case HandEvaluator.STRAIGHT:
+			return new Straight(player, cards);
+		case HandEvaluator.TRIPLE:
+			return new Triple(player, cards);
+		case HandEvaluator.PAIR:
+			return new Pair(player, cards);
+		case HandEvaluator.SINGLE:
+			return new Single(player, cards);
+		default:
+			return null;
+		}
+	}
+
+	/**
+	 * A method for dealing the hands of a DEAL message. The player the cards are
+	 * dealt to gets its own (sorted) cards, and every other player gets hidden
+	 * cards (Card.HIDDEN), as many as the cards in its hand.
+	 *
+	 * @param playerList ArrayList of the players.
+	 * @param playerID (int) The index of the player the cards are dealt to.
+	 * @param deal (int[]) The numbers of cards of all the players, followed by the
+	 * 				cards of the player (see toCard()).
+	 */
+	public static void dealHands(ArrayList<CardGamePlayer> playerList, int playerID, int[] deal) {
+		int numOfPlayers = playerList.size();
+		for (CardGamePlayer player : playerList) player.removeAllCards();
+
+		CardGamePlayer self = playerList.get(playerID);
+		for (int i = numOfPlayers; i < deal.length; i++) {
+			self.addCard(toCard(deal[i]));
+		}
+		self.sortCardsInHand();
+
+		for (int i = 0; i < numOfPlayers; i++) {
+			if (i != playerID) {
+				for (int card = 0; card < deal[i]; card++) {
+					playerList.get(i).addCard(Card.HIDDEN);
+				}
+			}
+		}
+	}
+
+	/**
+	 * A method for locating the cards of a PLAYED message in the hand of the
+	 * player who played them. If the hand does not hold them, it is a hidden hand,
+	 * and its first hidden cards are revealed as the cards played.
+	 *
+	 * @param player CardGamePlayer who played the cards.
+	 * @param played (int[]) The cards played (see toCard()), or null for a pass.
+	 * @return int[] specifying the indices of the cards in the hand of the player, or null for a pass.
+	 */
+	public static int[] revealPlayed(CardGamePlayer player, int[] played) {
+		if (played == null) {
+			return null;
+		}
+		CardList hand = player.getCardsInHand();
+		int[] cardIdx = new int[played.length];
+		boolean held = true;
+		for (int i = 0; i < played.length && held; i++) {
+			cardIdx[i] = -1;
+			Card card = toCard(played[i]);
+			for (int j = 0; j < hand.size(); j++) {
+				if (hand.getCard(j).equals(card)) {
+					cardIdx[i] = j;
+					break;
+				}
+			}
+			held = cardIdx[i] >= 0;
+		}
+		if (!held) {
+			int j = 0;
+			for (int i = 0; i < played.length; i++) {
+				while (j < hand.size() && !hand.getCard(j).isHidden()) {
+					j++;
+				}
+				if (j == hand.size()) {
+					// not enough hidden cards: the move is rejected
+					return new int[] { -1 };
+				}
+				hand.setCard(j, toCard(played[i]));
+				cardIdx[i] = j++;
+			}
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * A method for converting the number of a card, suit * 13 + rank, to the card.
+	 *
+	 * @param number (int) The number of the card (0 - 51).
+	 * @return BigTwoCard specifying the card.
+	 */
+	public static Card toCard(int number) {
+		if (number < 0 || number >= 52) {
+			throw new IllegalArgumentException("Invalid card: " + number);
+		}
+		return BigTwoCard.valueOf(number / 13, number % 13);
+	}
+}
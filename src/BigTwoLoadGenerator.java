@@ -0,0 +1,303 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.HttpURLConnection;
+import java.net.Socket;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to generate load on a Big Two game server. It fills a
+ * number of rooms with headless bots (BigTwoBot), lets each room play a number
+ * of games, and reports the throughput of moves, the round-trip latencies of
+ * the moves and the CPU time spent per game by the server and by this process.
+ * The CPU time of the server is read from the metrics it serves over HTTP
+ * (see ServerMetrics) before and after the games, so the server must be
+ * started with "-metrics=&lt;port&gt;" and that port given to the generator.
+ * <p>
+ * Optionally, a number of idle connections are opened before the bots. They
+ * complete the handshake, take their seats, and then stay silent, so that the
+ * server serves the bots while holding many open connections.
+ */
+public class BigTwoLoadGenerator {
+	// the number of players in a room of a Big Two game server
+	private static final int NUM_OF_PLAYERS_PER_ROOM = 4;
+
+	private final String serverIP;
+	private final int serverPort;
+	private final int numOfRooms;
+	private final int numOfGames;
+	private final BotStrategy strategy;
+	private int numOfIdleConnections = 0;
+	private int metricsPort = -1;
+
+	/**
+	 * Creates and returns an instance of the BigTwoLoadGenerator class.
+	 *
+	 * @param serverIP
+	 *            the IP address of the game server
+	 * @param serverPort
+	 *            the TCP port of the game server
+	 * @param numOfRooms
+	 *            the number of rooms to be filled with bots
+	 * @param numOfGames
+	 *            the number of games to be played in each room
+	 * @param strategy
+	 *            the strategy of the bots
+	 */
+	public BigTwoLoadGenerator(String serverIP, int serverPort, int numOfRooms,
+			int numOfGames, BotStrategy strategy) {
+		this.serverIP = serverIP;
+		this.serverPort = serverPort;
+		this.numOfRooms = numOfRooms;
+		this.numOfGames = numOfGames;
+		this.strategy = strategy;
+	}
+
+	/**
+	 * Sets the number of idle connections opened before the bots. Should be a
+	 * multiple of 4, so that the idle connections fill whole rooms.
+	 *
+	 * @param numOfIdleConnections
+	 *            the number of idle connections
+	 */
+	public void setNumOfIdleConnections(int numOfIdleConnections) {
+		this.numOfIdleConnections = numOfIdleConnections;
+	}
+
+	/**
+	 * Sets the port at which the game server serves its metrics over HTTP,
+	 * from which the CPU time of the server is read.
+	 *
+	 * @param metricsPort
+	 *            the port of the metrics of the game server, or a negative
+	 *            value if the server does not serve its metrics
+	 */
+	public void setMetricsPort(int metricsPort) {
+		this.metricsPort = metricsPort;
+	}
+
+	/**
+	 * Connects the bots to the game server, waits until they have all played
+	 * their games (or the timeout has elapsed), and prints a report.
+	 *
+	 * @param timeout
+	 *            the maximum time to wait for the bots, in seconds
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the bots
+	 */
+	public void run(long timeout) throws InterruptedException {
+		Socket[] idleConnections = openIdleConnections();
+
+		int numOfBots = numOfRooms * NUM_OF_PLAYERS_PER_ROOM;
+		BigTwoBot[] bots = new BigTwoBot[numOfBots];
+		final CountDownLatch joined = new CountDownLatch(numOfBots);
+		final CountDownLatch done = new CountDownLatch(numOfBots);
+
+		// seats all the bots before any game starts, so that no bot is seated
+		// in a room left by the bots having played all their games
+		for (int i = 0; i < numOfBots; i++) {
+			bots[i] = new BigTwoBot("Bot" + i, strategy, numOfGames);
+			bots[i].setServerIP(serverIP);
+			bots[i].setServerPort(serverPort);
+			bots[i].setOnJoined(new Runnable() {
+				public void run() {
+					joined.countDown();
+				}
+			});
+			bots[i].setOnFinished(new Runnable() {
+				public void run() {
+					joined.countDown();
+					done.countDown();
+				}
+			});
+			bots[i].makeConnection();
+		}
+		joined.await(timeout, TimeUnit.SECONDS);
+
+		double startServerCpu = getServerCpuSeconds();
+		long startCpuTime = getProcessCpuTime();
+		long startTime = System.nanoTime();
+		for (BigTwoBot bot : bots) {
+			bot.ready();
+		}
+
+		boolean completed = done.await(timeout, TimeUnit.SECONDS);
+		long elapsedTime = System.nanoTime() - startTime;
+		long cpuTime = getProcessCpuTime() - startCpuTime;
+		double serverCpu = getServerCpuSeconds() - startServerCpu;
+		for (Socket sock : idleConnections) {
+			try {
+				sock.close();
+			} catch (IOException e) {
+				// doing nothing
+			}
+		}
+
+		// collects the statistics of all the bots
+		long numOfMoves = 0;
+		long numOfGamesPlayed = 0;
+		long[][] latencies = new long[numOfBots][];
+		int numOfLatencies = 0;
+		for (int i = 0; i < numOfBots; i++) {
+			numOfMoves += bots[i].getMovesMade();
+			numOfGamesPlayed += bots[i].getGamesPlayed();
+			latencies[i] = bots[i].getMoveLatencies();
+			numOfLatencies += latencies[i].length;
+		}
+		// each game is counted once by each of its players
+		numOfGamesPlayed /= NUM_OF_PLAYERS_PER_ROOM;
+		long[] allLatencies = new long[numOfLatencies];
+		int k = 0;
+		for (int i = 0; i < numOfBots; i++) {
+			System.arraycopy(latencies[i], 0, allLatencies, k, latencies[i].length);
+			k += latencies[i].length;
+		}
+		Arrays.sort(allLatencies);
+
+		double seconds = elapsedTime / 1e9;
+		System.out.println(completed ? "All bots have finished."
+				: "Timed out before all bots have finished.");
+		System.out.println("Rooms:            " + numOfRooms);
+		System.out.println("Bots:             " + numOfBots);
+		System.out.println("Idle connections: " + idleConnections.length);
+		System.out.println("Games played:     " + numOfGamesPlayed);
+		System.out.println("Moves made:       " + numOfMoves);
+		System.out.printf("Elapsed time:     %.3f s%n", seconds);
+		System.out.printf("Moves/sec:        %.1f%n", numOfMoves / seconds);
+		System.out.printf("Move RTT p50:     %.3f ms%n", percentile(allLatencies, 50) / 1e6);
+		System.out.printf("Move RTT p99:     %.3f ms%n", percentile(allLatencies, 99) / 1e6);
+		if (startServerCpu >= 0 && serverCpu >= 0 && numOfGamesPlayed > 0) {
+			System.out.printf("Server CPU/game:  %.3f ms%n", serverCpu * 1e3 / numOfGamesPlayed);
+		} else {
+			System.out.println("Server CPU/game:  unknown (no metrics port given)");
+		}
+		if (cpuTime >= 0 && numOfGamesPlayed > 0) {
+			System.out.printf("Client CPU/game:  %.3f ms (this load generator)%n",
+					cpuTime / 1e6 / numOfGamesPlayed);
+		}
+	}
+
+	/**
+	 * Opens the idle connections, and waits until each of them has been seated
+	 * by the server, so that the bots are seated in the rooms after them.
+	 */
+	private Socket[] openIdleConnections() {
+		Socket[] sockets = new Socket[numOfIdleConnections];
+		int numOfOpened = 0;
+		try {
+			for (; numOfOpened < numOfIdleConnections; numOfOpened++) {
+				Socket sock = new Socket(serverIP, serverPort);
+				sockets[numOfOpened] = sock;
+				OutputStream out = new BufferedOutputStream(sock.getOutputStream());
+				DataInputStream in = new DataInputStream(new BufferedInputStream(
+						sock.getInputStream()));
+				MessageFrames.writeHandshake(out, BinaryMessageCodec.CODEC_ID);
+				MessageCodec codec = MessageFrames.getCodec(MessageFrames.readHandshake(in));
+				// the PLAYER_LIST message, sent once seated
+				MessageFrames.readFrame(in, codec);
+			}
+		} catch (IOException e) {
+			System.out.println("Cannot open idle connection " + numOfOpened + ": " + e);
+		}
+		return Arrays.copyOf(sockets, numOfOpened);
+	}
+
+	/**
+	 * Returns the specified percentile of a sorted array of values.
+	 */
+	private static long percentile(long[] sorted, int percent) {
+		if (sorted.length == 0) {
+			return 0;
+		}
+		int i = (int) Math.ceil(percent / 100.0 * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+	}
+
+	/**
+	 * Returns the CPU time used by this process, in nanoseconds, or -1 if it is
+	 * not supported by the platform.
+	 */
+	private static long getProcessCpuTime() {
+		java.lang.management.OperatingSystemMXBean os = ManagementFactory
+				.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			return ((com.sun.management.OperatingSystemMXBean) os)
+					.getProcessCpuTime();
+		}
+		return -1;
+	}
+
+	/**
+	 * Returns the CPU time used by the game server, in seconds, as read from
+	 * the metrics it serves over HTTP, or -1 if the metrics port is not set or
+	 * the metrics cannot be read.
+	 */
+	private double getServerCpuSeconds() {
+		if (metricsPort < 0) {
+			return -1;
+		}
+		String prefix = "bigtwo_process_cpu_seconds ";
+		try {
+			URL url = new URL("http", serverIP, metricsPort, ServerMetrics.HTTP_PATH);
+			HttpURLConnection conn = (HttpURLConnection) url.openConnection();
+			BufferedReader reader = new BufferedReader(new InputStreamReader(
+					conn.getInputStream(), StandardCharsets.UTF_8));
+			try {
+				String line;
+				while ((line = reader.readLine()) != null) {
+					if (line.startsWith(prefix)) {
+						return Double.parseDouble(line.substring(prefix.length()));
+					}
+				}
+			} finally {
+				reader.close();
+			}
+		} catch (IOException e) {
+			System.out.println("Cannot read the metrics of the server: " + e);
+		}
+		return -1;
+	}
+
+	/**
+	 * Runs the load generator.
+	 *
+	 * @param args
+	 *            host, port, number of rooms, number of games per room, and
+	 *            optionally the number of idle connections; the option
+	 *            "-metrics=&lt;port&gt;" gives the port at which the server
+	 *            serves its metrics, from which its CPU time is read
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int metricsPort = -1;
+		String[] positional = new String[args.length];
+		int numOfPositional = 0;
+		for (String arg : args) {
+			if (arg.startsWith("-metrics=")) {
+				metricsPort = Integer.parseInt(arg.substring("-metrics=".length()));
+			} else {
+				positional[numOfPositional++] = arg;
+			}
+		}
+		if (numOfPositional < 4) {
+			System.out.println("Usage: java BigTwoLoadGenerator <host> <port> <rooms> <games per room> [idle connections] [-metrics=<port>]");
+			return;
+		}
+		BigTwoLoadGenerator generator = new BigTwoLoadGenerator(positional[0],
+				Integer.parseInt(positional[1]), Integer.parseInt(positional[2]),
+				Integer.parseInt(positional[3]), new GreedyStrategy());
+		if (numOfPositional > 4) {
+			generator.setNumOfIdleConnections(Integer.parseInt(positional[4]));
+		}
+		generator.setMetricsPort(metricsPort);
+		generator.run(600);
+	}
+}
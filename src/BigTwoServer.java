@@ -1,14 +1,34 @@
+import java.io.IOException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+
 /**
  * This class is used to model a Big Two card game server.
  * @author Kenneth Wong
  *
  */
 public class BigTwoServer extends CardGameServer {
+	/**
+	 * The default maximum number of rooms hosted by the server.
+	 */
+	public static final int DEFAULT_MAX_NUM_OF_ROOMS = 4096;
+
 	/**
 	 * Creates and returns an instance of the BigTwoServer class.
 	 */
 	public BigTwoServer() {
-		super("Big Two Server", 4);
+		this(DEFAULT_MAX_NUM_OF_ROOMS);
+	}
+
+	/**
+	 * Creates and returns an instance of the BigTwoServer class.
+	 * 
+	 * @param maxNumOfRooms
+	 *            the maximum number of rooms hosted by the server
+	 */
+	public BigTwoServer(int maxNumOfRooms) {
+		super("Big Two Server", 4, maxNumOfRooms, Runtime.getRuntime()
+				.availableProcessors());
 	}
 	
 	/**
@@ -19,17 +39,89 @@ public class BigTwoServer extends CardGameServer {
 		return new BigTwoDeck(); 
 	}
 	
+	/**
+	 * Creates and returns an instance of the BigTwoGame class, which validates
+	 * the moves of a room.
+	 * @return an instance of the BigTwoGame class
+	 */
+	public GameEngine createGameEngine() {
+		return new BigTwoGame();
+	}
+	
 	/**
 	 * main() method for starting the server.
 	 * 
 	 * @param args
-	 *            the port to be used by the server. The default port 5000 will
-	 *            be used if no arguments has been supplied
+	 *            the port to be used by the server, optionally followed by
+	 *            the maximum number of rooms and by the execution mode
+	 *            ("eventloops", "platform" or "virtual"). The default port
+	 *            2396 will be used if no arguments has been supplied. The
+	 *            options "-headless", "-log=&lt;file&gt;",
+	 *            "-level=&lt;DEBUG|INFO|WARN|ERROR&gt;", "-record=&lt;file&gt;"
+	 *            "-secure" (shuffling with a SecureRandom) and
+	 *            "-bots=&lt;greedy|rules|mcts[:ms]&gt;" (filling the empty
+	 *            seats with computer players) and "-metrics=&lt;port&gt;"
+	 *            (serving the metrics of the server over HTTP) may be given
+	 *            anywhere
 	 */
-	public static void main(String[] args) {
-		BigTwoServer server = new BigTwoServer();
-		if (args.length > 0) {
-			server.start(Integer.parseInt(args[0]));
+	public static void main(String[] args) throws IOException {
+		ArrayList<String> params = new ArrayList<String>();
+		String logFile = null;
+		String recordFile = null;
+		boolean secure = false;
+		BotStrategy botStrategy = null;
+		int level = ServerLog.INFO;
+		int metricsPort = -1;
+		for (String arg : args) {
+			if (arg.equals("-headless")) {
+				// runs without the console window
+				System.setProperty("java.awt.headless", "true");
+			} else if (arg.startsWith("-log=")) {
+				logFile = arg.substring("-log=".length());
+			} else if (arg.equals("-secure")) {
+				secure = true;
+			} else if (arg.startsWith("-bots=")) {
+				botStrategy = BigTwoBot.createStrategy(arg.substring("-bots=".length()));
+			} else if (arg.startsWith("-metrics=")) {
+				metricsPort = Integer.parseInt(arg.substring("-metrics=".length()));
+			} else if (arg.startsWith("-record=")) {
+				recordFile = arg.substring("-record=".length());
+			} else if (arg.startsWith("-level=")) {
+				level = Math.max(0, ServerLog.parseLevel(arg.substring("-level=".length())));
+			} else {
+				params.add(arg);
+			}
+		}
+
+		BigTwoServer server;
+		if (params.size() > 1) {
+			server = new BigTwoServer(Integer.parseInt(params.get(1)));
+		} else {
+			server = new BigTwoServer();
+		}
+		server.getLog().setLevel(level);
+		if (logFile != null) {
+			server.getLog().addSink(new StreamLogSink(logFile));
+		}
+		if (secure) {
+			server.setShuffleGenerator(new SecureRandom());
+		}
+		server.setBotStrategy(botStrategy);
+		if (recordFile != null) {
+			server.setRecorder(new GameRecorder(recordFile));
+		}
+		if (metricsPort >= 0) {
+			server.getMetrics().startHttpServer(metricsPort);
+		}
+		if (params.size() > 2) {
+			if (params.get(2).equals("platform")) {
+				server.setExecutionMode(PLATFORM_THREADS);
+			} else if (params.get(2).equals("virtual")) {
+				server.setExecutionMode(VIRTUAL_THREADS);
+			}
+		}
+		if (params.size() > 0) {
+			server.start(Integer.parseInt(params.get(0)));
 		} else {
 			server.start(2396);
 		}
@@ -0,0 +1,310 @@
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class for simulating Big Two games between computer players without any
+ * user interface or network, e.g. to tune the strategies of the bots or to
+ * validate a change of the rules.
+ * <p>
+ * The games are split into tasks run by a ForkJoinPool. Every task has its own
+ * random number generator, split from the one of its parent task, so that the
+ * deals only depend on the seed and not on the number of threads. A task reuses
+ * one game, deck and set of players for all its games, and shuffles the deck in
+ * place with its generator.
+ */
+public class BigTwoSimulator {
+
+	// the number of games a task plays without being split further
+	private static final long GAMES_PER_TASK = 2048;
+	// the number of moves after which a game is given up as stuck
+	private static final int MAX_MOVES_PER_GAME = 1000;
+	// the fallback move when a strategy chooses an illegal pass
+	private static final int[] WEAKEST_CARD = { 0 };
+
+	private final BotStrategy[] strategies;
+	private long seed = System.nanoTime();
+
+	/**
+	 * Constructor for creating a simulator.
+	 *
+	 * @param strategies (BotStrategy[]) The strategy of each of the 4 players.
+	 * 				The strategies are shared by all the threads, and must not
+	 * 				hold any state between moves.
+	 */
+	public BigTwoSimulator(BotStrategy[] strategies) {
+		if (strategies.length != 4) {
+			throw new IllegalArgumentException("A strategy is needed for each of the 4 players");
+		}
+		this.strategies = strategies.clone();
+	}
+
+	/**
+	 * Setter method for the seed of the random deals.
+	 *
+	 * @param seed (long) The seed.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	/**
+	 * Method for simulating a number of games on a number of threads.
+	 *
+	 * @param numOfGames (long) The number of games to be played.
+	 * @param parallelism (int) The number of threads.
+	 * @return Result of the games.
+	 */
+	public Result run(long numOfGames, int parallelism) {
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			long startTime = System.nanoTime();
+			Result result = pool.invoke(new SimulationTask(0, numOfGames, new SplittableRandom(seed)));
+			result.elapsedTime = System.nanoTime() - startTime;
+			return result;
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Method for playing a number of games on the calling thread, reusing
+	 * the same game and deck.
+	 */
+	private void simulate(long numOfGames, SplittableRandom random, Result result) {
+		BigTwoGame game = new BigTwoGame();
+		Deck deck = new BigTwoDeck();
+
+		for (long g = 0; g < numOfGames; g++) {
+			deck.shuffle(random);
+			game.start(deck);
+
+			int numOfMoves = 0;
+			while (!game.endOfGame() && numOfMoves < MAX_MOVES_PER_GAME) {
+				int playerID = game.getCurrentIdx();
+				int[] cardIdx = strategies[playerID].chooseMove(game, playerID);
+				if (!game.applyMove(playerID, cardIdx)) {
+					// an illegal move falls back to passing, or to the weakest card
+					if (!game.applyMove(playerID, cardIdx == null ? WEAKEST_CARD : null)) {
+						break;
+					}
+				}
+				numOfMoves++;
+			}
+
+			result.numOfGames++;
+			result.numOfMoves += numOfMoves;
+			if (game.endOfGame()) {
+				// the winner is not followed by another player
+				result.wins[game.getCurrentIdx()]++;
+			} else {
+				result.numOfUnfinished++;
+			}
+		}
+	}
+
+	/**
+	 * Task playing a range of games, split in halves until small enough.
+	 */
+	private class SimulationTask extends RecursiveTask<Result> {
+		private static final long serialVersionUID = 1L;
+
+		private final long from;
+		private final long to;
+		private final SplittableRandom random;
+
+		private SimulationTask(long from, long to, SplittableRandom random) {
+			this.from = from;
+			this.to = to;
+			this.random = random;
+		}
+
+		/**
+		 * Implementing the compute() method from RecursiveTask.
+		 */
+		protected Result compute() {
+			if (to - from <= GAMES_PER_TASK) {
+				Result result = new Result();
+				simulate(to - from, random, result);
+				return result;
+			}
+			long middle = (from + to) >>> 1;
+			SimulationTask left = new SimulationTask(from, middle, random.split());
+			SimulationTask right = new SimulationTask(middle, to, random);
+			left.fork();
+			Result result = right.compute();
+			result.add(left.join());
+			return result;
+		}
+	}
+
+	/**
+	 * Class for the result of a simulation.
+	 */
+	public class Result {
+		private long numOfGames = 0;
+		private long numOfMoves = 0;
+		private long numOfUnfinished = 0;
+		private final long[] wins = new long[4];
+		private long elapsedTime = 0;
+
+		private Result() {
+		}
+
+		private void add(Result other) {
+			numOfGames += other.numOfGames;
+			numOfMoves += other.numOfMoves;
+			numOfUnfinished += other.numOfUnfinished;
+			for (int i = 0; i < wins.length; i++) {
+				wins[i] += other.wins[i];
+			}
+		}
+
+		/**
+		 * Getter method for the number of games played.
+		 *
+		 * @return (long) The number of games played.
+		 */
+		public long getNumOfGames() {
+			return numOfGames;
+		}
+
+		/**
+		 * Getter method for the number of moves made.
+		 *
+		 * @return (long) The number of moves made.
+		 */
+		public long getNumOfMoves() {
+			return numOfMoves;
+		}
+
+		/**
+		 * Getter method for the number of games given up as stuck.
+		 *
+		 * @return (long) The number of unfinished games.
+		 */
+		public long getNumOfUnfinished() {
+			return numOfUnfinished;
+		}
+
+		/**
+		 * Getter method for the number of games won by a player.
+		 *
+		 * @param playerID (int) The index of the player.
+		 * @return (long) The number of games won.
+		 */
+		public long getWins(int playerID) {
+			return wins[playerID];
+		}
+
+		/**
+		 * Getter method for the rate of games played.
+		 *
+		 * @return (double) The number of games played per second.
+		 */
+		public double getGamesPerSecond() {
+			return numOfGames / (elapsedTime / 1e9);
+		}
+
+		/**
+		 * Method for computing the win rate of each strategy, by the simple
+		 * name of its class. A strategy used by several players gets the
+		 * games won by all of them over the games they played.
+		 *
+		 * @return Map of the win rate of each strategy.
+		 */
+		public Map<String, Double> getWinRates() {
+			Map<String, Long> strategyWins = new LinkedHashMap<String, Long>();
+			Map<String, Integer> strategySeats = new LinkedHashMap<String, Integer>();
+			for (int i = 0; i < strategies.length; i++) {
+				String name = strategies[i].getClass().getSimpleName();
+				Long won = strategyWins.get(name);
+				strategyWins.put(name, (won == null ? 0 : won) + wins[i]);
+				Integer seats = strategySeats.get(name);
+				strategySeats.put(name, (seats == null ? 0 : seats) + 1);
+			}
+			Map<String, Double> winRates = new LinkedHashMap<String, Double>();
+			for (String name : strategyWins.keySet()) {
+				winRates.put(name, numOfGames == 0 ? 0.0
+						: (double) strategyWins.get(name) / (numOfGames * strategySeats.get(name)));
+			}
+			return winRates;
+		}
+	}
+
+	/**
+	 * Method for printing a result.
+	 */
+	private void print(Result result, int parallelism) {
+		System.out.println("Threads:      " + parallelism);
+		System.out.println("Games:        " + result.getNumOfGames() + " (" + result.getNumOfUnfinished() + " unfinished)");
+		System.out.println("Moves:        " + result.getNumOfMoves());
+		System.out.printf("Games/sec:    %.0f%n", result.getGamesPerSecond());
+		for (int i = 0; i < strategies.length; i++) {
+			System.out.printf("Player %d:     %s, %.2f%% won%n", i, strategies[i].getClass().getSimpleName(),
+					100.0 * result.getWins(i) / result.getNumOfGames());
+		}
+		for (Map.Entry<String, Double> entry : result.getWinRates().entrySet()) {
+			System.out.printf("%-13s %.2f%% won%n", entry.getKey() + ":", 100.0 * entry.getValue());
+		}
+	}
+
+	/**
+	 * main() method for running a simulation between bots, greedy ones by default.
+	 *
+	 * @param args (String[]) The number of games, optionally followed by the
+	 * 				number of threads (all the cores by default), or by "-scaling"
+	 * 				to run the games with 1, 2, 4, ... threads up to all the cores.
+	 * 				The option "-players=&lt;strategy&gt;,..." (see
+	 * 				BigTwoBot.createStrategy()) may be given anywhere to set the
+	 * 				strategies of the 4 players.
+	 */
+	public static void main(String[] args) {
+		BotStrategy greedy = new GreedyStrategy();
+		BotStrategy[] strategies = { greedy, greedy, greedy, greedy };
+		ArrayList<String> params = new ArrayList<String>();
+		for (String arg : args) {
+			if (arg.startsWith("-players=")) {
+				String[] names = arg.substring("-players=".length()).split(",");
+				for (int i = 0; i < strategies.length; i++) {
+					strategies[i] = BigTwoBot.createStrategy(names[i % names.length]);
+				}
+			} else {
+				params.add(arg);
+			}
+		}
+		args = params.toArray(new String[0]);
+		if (args.length < 1) {
+			System.out.println("Usage: java BigTwoSimulator <games> [threads | -scaling] [-players=<strategy>,...]");
+			return;
+		}
+		long numOfGames = Long.parseLong(args[0]);
+		int numOfCores = Runtime.getRuntime().availableProcessors();
+
+		BigTwoSimulator simulator = new BigTwoSimulator(strategies);
+		simulator.setSeed(2396);
+		// warms up the JIT compiler
+		simulator.run(Math.min(numOfGames, 100000), numOfCores);
+
+		if (args.length > 1 && args[1].equals("-scaling")) {
+			double baseline = 0;
+			for (int parallelism = 1; ; parallelism = Math.min(2 * parallelism, numOfCores)) {
+				Result result = simulator.run(numOfGames, parallelism);
+				if (parallelism == 1) {
+					baseline = result.getGamesPerSecond();
+				}
+				System.out.printf("%3d threads: %10.0f games/sec, speedup %.2f%n", parallelism,
+						result.getGamesPerSecond(), result.getGamesPerSecond() / baseline);
+				if (parallelism == numOfCores) {
+					break;
+				}
+			}
+		} else {
+			int parallelism = args.length > 1 ? Integer.parseInt(args[1]) : numOfCores;
+			simulator.print(simulator.run(numOfGames, parallelism), parallelism);
+		}
+	}
+}
@@ -0,0 +1,178 @@
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.MemoryUsage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * This class is used to check that long sessions do not leak memory through
+ * the serialized codec (see SerializedMessageCodec). It starts a headless Big
+ * Two server in this process and seats four bots (BigTwoBot) using the
+ * serialized codec, which play a number of consecutive games over one
+ * connection each. The live heap is sampled after a garbage collection once a
+ * tenth of the games have been played (so that classes are loaded and code
+ * is compiled) and again at the end; the check fails if the heap has grown by
+ * more than a tolerance, besides the round-trip samples kept by the bots.
+ */
+public class BigTwoSoakCheck {
+	// the number of players in a room of a Big Two game server
+	private static final int NUM_OF_PLAYERS_PER_ROOM = 4;
+	// the growth of the live heap tolerated, in bytes
+	private static final long TOLERANCE = 2L * 1024 * 1024;
+	// the bytes kept per round-trip sample by a bot, allowing for the
+	// doubling of its array of samples
+	private static final long BYTES_PER_SAMPLE = 16;
+
+	private final int serverPort;
+	private final int numOfGames;
+
+	/**
+	 * Creates and returns an instance of the BigTwoSoakCheck class.
+	 *
+	 * @param serverPort
+	 *            the TCP port of the server started by the check
+	 * @param numOfGames
+	 *            the number of consecutive games to be played
+	 */
+	public BigTwoSoakCheck(int serverPort, int numOfGames) {
+		this.serverPort = serverPort;
+		this.numOfGames = numOfGames;
+	}
+
+	/**
+	 * Runs the check and prints a report.
+	 *
+	 * @param timeout
+	 *            the maximum time to wait for the games, in seconds
+	 * @return true if all the games have been played without the heap
+	 *         growing; false otherwise
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for the bots
+	 */
+	public boolean run(long timeout) throws InterruptedException {
+		final BigTwoServer server = new BigTwoServer(1);
+		server.getLog().setLevel(ServerLog.WARN);
+		Thread serverThread = new Thread(new Runnable() {
+			public void run() {
+				server.start(serverPort);
+			}
+		}, "BigTwoServer");
+		serverThread.setDaemon(true);
+		serverThread.start();
+		Thread.sleep(500);
+
+		BigTwoBot[] bots = new BigTwoBot[NUM_OF_PLAYERS_PER_ROOM];
+		final CountDownLatch joined = new CountDownLatch(bots.length);
+		final CountDownLatch done = new CountDownLatch(bots.length);
+		for (int i = 0; i < bots.length; i++) {
+			bots[i] = new BigTwoBot("Bot" + i, new GreedyStrategy(), numOfGames);
+			bots[i].setServerPort(serverPort);
+			bots[i].setCodecID(SerializedMessageCodec.CODEC_ID);
+			bots[i].setOnJoined(new Runnable() {
+				public void run() {
+					joined.countDown();
+				}
+			});
+			bots[i].setOnFinished(new Runnable() {
+				public void run() {
+					joined.countDown();
+					done.countDown();
+				}
+			});
+			bots[i].makeConnection();
+		}
+		joined.await(timeout, TimeUnit.SECONDS);
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+		for (BigTwoBot bot : bots) {
+			bot.ready();
+		}
+
+		// samples the heap once the warm-up games have been played
+		int numOfWarmUpGames = Math.max(1, numOfGames / 10);
+		while (bots[0].getGamesPlayed() < numOfWarmUpGames
+				&& !bots[0].isFinished() && System.nanoTime() < deadline) {
+			Thread.sleep(10);
+		}
+		long startSamples = numOfSamples(bots);
+		long startHeap = liveHeap();
+		int startGames = bots[0].getGamesPlayed();
+
+		boolean completed = done.await(
+				Math.max(0, deadline - System.nanoTime()),
+				TimeUnit.NANOSECONDS);
+		long endHeap = liveHeap();
+		long samplesBytes = (numOfSamples(bots) - startSamples)
+				* BYTES_PER_SAMPLE;
+		long growth = endHeap - startHeap - samplesBytes;
+
+		int gamesPlayed = Integer.MAX_VALUE;
+		for (BigTwoBot bot : bots) {
+			gamesPlayed = Math.min(gamesPlayed, bot.getGamesPlayed());
+		}
+		System.out.println("Games played:       " + gamesPlayed + " of "
+				+ numOfGames);
+		System.out.println("Live heap at game " + startGames + ": "
+				+ kib(startHeap));
+		System.out.println("Live heap at end:   " + kib(endHeap));
+		System.out.println("RTT samples:        " + kib(samplesBytes));
+		System.out.println("Growth:             " + kib(growth)
+				+ " (tolerance " + kib(TOLERANCE) + ")");
+		if (!completed || gamesPlayed < numOfGames) {
+			System.out.println("FAILED: not all games have been played.");
+			return false;
+		}
+		if (growth > TOLERANCE) {
+			System.out.println("FAILED: the live heap has grown.");
+			return false;
+		}
+		System.out.println("PASSED");
+		return true;
+	}
+
+	/**
+	 * Returns the number of round-trip samples kept by the bots.
+	 */
+	private static long numOfSamples(BigTwoBot[] bots) {
+		long numOfSamples = 0;
+		for (BigTwoBot bot : bots) {
+			numOfSamples += bot.getMoveLatencies().length;
+		}
+		return numOfSamples;
+	}
+
+	/**
+	 * Returns the heap used right after a full garbage collection, in bytes,
+	 * which is not affected by the allocations of the games still running.
+	 */
+	private static long liveHeap() {
+		ManagementFactory.getMemoryMXBean().gc();
+		long used = 0;
+		for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans()) {
+			MemoryUsage usage = pool.getCollectionUsage();
+			if (pool.getType() == MemoryType.HEAP && usage != null) {
+				used += usage.getUsed();
+			}
+		}
+		return used;
+	}
+
+	private static String kib(long bytes) {
+		return (bytes / 1024) + " KiB";
+	}
+
+	/**
+	 * Runs the check, and exits with status 1 if it fails.
+	 *
+	 * @param args
+	 *            optionally the number of games (10000 by default) and the
+	 *            port of the server (2398 by default)
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+		int numOfGames = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int serverPort = args.length > 1 ? Integer.parseInt(args[1]) : 2398;
+		boolean passed = new BigTwoSoakCheck(serverPort, numOfGames).run(3600);
+		System.exit(passed ? 0 : 1);
+	}
+}
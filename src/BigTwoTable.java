@@ -29,7 +29,7 @@ public class BigTwoTable implements CardGameTable {
 	private int activePlayer;
 	
 	/**
-	 * The main window of the application.
+	 * The main window of the application, or null in a headless runtime.
 	 */
 	private JFrame frame;
 	
@@ -37,7 +37,7 @@ public class BigTwoTable implements CardGameTable {
 	 * A panel for showing the cards of each player and the
 	 * cards played on the table.
 	 */
-	private JPanel bigTwoPanel;
+	private BigTwoPanel bigTwoPanel;
 	
 	/**
 	 * Button for the active player to play the selected cards.
@@ -66,24 +66,20 @@ public class BigTwoTable implements CardGameTable {
 	private JTextField chatBox;
 	
 	/**
-	 * 2D array storing images for faces of cards.
+	 * Atlas of the images for faces and backs of cards, and of the Avatars.
 	 */
-	private Image[][] cardImages;
+	private CardSpriteAtlas sprites;
 	
 	/**
-	 * Image for the backs of cards.
-	 */
-	private Image cardBackImage;
-	
-	/**
-	 * Array storing images of Avatars.
+	 * Array storing boolean values specifying whether a player is present or not.
 	 */
-	private Image[] avatars;
+	private boolean[] present;
 	
 	/**
-	 * Array storing boolean values specifying whether a player is present or not.
+	 * Number of frames rendered by the panel showing the cards. Stays constant
+	 * while nothing changes on the table. Only written by the event dispatch thread.
 	 */
-	private boolean[] present;
+	private volatile long framesRendered;
 	
 	/**
 	 * Constructor for creating a BigTwoTable.
@@ -92,8 +88,6 @@ public class BigTwoTable implements CardGameTable {
 	 */
 	public BigTwoTable(CardGame game) {
 		this.game = game;
-		avatars = new Image[4];
-		cardImages = new Image[4][13];
 		selected = new boolean[13];
 		present = new boolean[4];
 		
@@ -103,36 +97,18 @@ public class BigTwoTable implements CardGameTable {
 	}
 	
 	/**
-	 * Loads the Avatar and card images into the arrays/image variables.
+	 * Loads the Avatar and card images, packed in one atlas (see CardSpriteAtlas).
 	 */
 	private void loadImages() {
-		// Fill avatars
-		for(int i = 0; i < 4; i++) {
-			avatars[i] = new ImageIcon("src/avatars/Avatar_" + i + ".png").getImage();
-		}
-		
-		// Back of card Image
-		cardBackImage = new ImageIcon("src/cards/b.gif").getImage();
-		
-		// Front of card Images
-		String[] suits = {"d","c","h","s"};
-		char[] ranks = {'a','2','3','4','5','6','7','8','9','t','j','q','k'};
-		
-		for(int i = 0; i < 4; i++) {
-			for(int j = 0; j < 13; j++) {
-				cardImages[i][j] = new ImageIcon("src/cards/" + ranks[j] + suits[i] + ".gif").getImage();
-			}
-		}
+		sprites = CardSpriteAtlas.load();
 	}
 	
 	/**
 	 * Method to set the basic layout of the GUI.
 	 */
 	private void makeGUI() {
-		// Make JFrame. Use GridLayout for equal width between cards, and message area
-		frame = new JFrame("Big Two");
-		frame.setDefaultCloseOperation(frame.EXIT_ON_CLOSE);
-		frame.setLayout(new GridLayout(1,2));
+		// Make the content of the JFrame. Use GridLayout for equal width between cards, and message area
+		JPanel content = new JPanel(new GridLayout(1,2));
 		
 		// Adding a Menu Bar to frame
 		JMenuBar menuBar = new JMenuBar();
@@ -149,12 +125,11 @@ public class BigTwoTable implements CardGameTable {
 		gameMenu.add(quitMenuItem);
 		gameMenu.add(connectMenuItem);
 		menuBar.add(gameMenu);
-		frame.setJMenuBar(menuBar);
 		
 		// Add cards panel to frame
 		JPanel cardsAndButtons = new JPanel();
 		cardsAndButtons.setLayout(new BorderLayout());
-		frame.add(cardsAndButtons);
+		content.add(cardsAndButtons);
 		
 		// bigTwoPanel is for cards.
 		bigTwoPanel = new BigTwoPanel(); // Change to BigTwoPanel
@@ -232,7 +207,16 @@ public class BigTwoTable implements CardGameTable {
 		messageAndChat.add(inputPanel, BorderLayout.SOUTH);
 		
 		// Add messageAndChat panel to frame
-		frame.add(messageAndChat);
+		content.add(messageAndChat);
+		
+		// A headless runtime has no window, but the table can still be painted offscreen.
+		if (GraphicsEnvironment.isHeadless()) {
+			return;
+		}
+		frame = new JFrame("Big Two");
+		frame.setDefaultCloseOperation(frame.EXIT_ON_CLOSE);
+		frame.setJMenuBar(menuBar);
+		frame.setContentPane(content);
 		frame.pack();
 		
 		frame.setExtendedState(frame.MAXIMIZED_BOTH);
@@ -282,14 +266,66 @@ public class BigTwoTable implements CardGameTable {
 	 * Resets the list of selected cards. Makes all elements false.
 	 */
 	public void resetSelected() {
-		Arrays.fill(this.selected, false);
+		for(boolean cardSelected : selected) {
+			if(cardSelected) {
+				Arrays.fill(this.selected, false);
+				repaintPlayer(activePlayer);
+				return;
+			}
+		}
 	}
 	
 	/**
-	 * Method to repaint the GUI.
+	 * Method to repaint the cards of all the players and the table.
+	 * <p>
+	 * The message and chat areas, and the buttons repaint themselves when they change.
 	 */
 	public void repaint() {
-		frame.repaint();
+		bigTwoPanel.repaint();
+	}
+	
+	/**
+	 * Method to repaint only the row of a player, e.g. after the player
+	 * joins, quits, selects a card or plays a hand.
+	 * 
+	 * @param i (int) Index of the player whose row is repainted.
+	 */
+	public void repaintPlayer(int i) {
+		if (i >= 0 && i < 4) {
+			bigTwoPanel.repaint(bigTwoPanel.playerBounds(i));
+		}
+	}
+	
+	/**
+	 * Method to repaint only the area below the players, showing the
+	 * last hand played or the result of the game.
+	 */
+	public void repaintTable() {
+		bigTwoPanel.repaint(bigTwoPanel.tableBounds());
+	}
+	
+	/**
+	 * Method to paint the panel showing the cards into an offscreen image,
+	 * as it would be shown in a window of the specified size. Used to
+	 * measure the cost of a frame, also in a headless runtime.
+	 * 
+	 * @param g (Graphics) Graphics of the offscreen image.
+	 * @param width (int) Width of the panel.
+	 * @param height (int) Height of the panel.
+	 */
+	public void paintOffscreen(Graphics g, int width, int height) {
+		bigTwoPanel.setSize(width, height);
+		bigTwoPanel.paint(g);
+	}
+	
+	/**
+	 * Getter method for the number of frames rendered so far. Used to check
+	 * that the table is not redrawn while nothing changes.
+	 * 
+	 * @return (long) Number of frames rendered.
+	 */
+	public long getFramesRendered() {
+		return framesRendered;
 	}
 	
 	/**
@@ -317,6 +353,7 @@ public class BigTwoTable implements CardGameTable {
 	 */
 	public void isPresent(int i, boolean p) {
 		present[i] = p;
+		repaintPlayer(i);
 	}
 	
 	/**
@@ -380,39 +417,63 @@ public class BigTwoTable implements CardGameTable {
 		 */
 		public BigTwoPanel() {
 			this.addMouseListener(this);
+			// Green Background color
+			this.setBackground(new Color(0,150,0));
+		}
+		
+		/**
+		 * Method to get the area of the row of a player, including the line below it.
+		 * 
+		 * @param i (int) Index of the player.
+		 * @return Rectangle specifying the row of the player.
+		 */
+		private Rectangle playerBounds(int i) {
+			return new Rectangle(0, playerHeight * i, getWidth(), playerHeight + 1);
+		}
+		
+		/**
+		 * Method to get the area below the rows of the players.
+		 * 
+		 * @return Rectangle specifying the area of the table.
+		 */
+		private Rectangle tableBounds() {
+			return new Rectangle(0, playerHeight * 4, getWidth(), Math.max(0, getHeight() - playerHeight * 4));
 		}
 		
 		/**
 		 * Overriding paintComponent method inherited from JPanel to
 		 * draw the card game table.
 		 * <p>
-		 * Draws the Player names, Avatars, and cards.
+		 * Draws the Player names, Avatars, and cards. Only the rows and the
+		 * table area inside the clip (the dirty region) are drawn; nothing is
+		 * drawn again until something changes.
 		 * 
 		 * @param g Graphics object that the system provides.
 		 */
 		public void paintComponent(Graphics g) {
 			super.paintComponent(g);
-			this.setBackground(new Color(0,100,0));
+			framesRendered++;
 			
 			Graphics2D g2d = (Graphics2D) g;
-			// Green Background color
-			this.setBackground(new Color(0,150,0));
+			Rectangle clip = g2d.getClipBounds();
 			
 			// Print name of Players and show avatar
 			for (int i = 0; i < 4; i++) {
 				if(!present[i]) continue;
+				if(clip != null && !clip.intersects(playerBounds(i))) continue;
 				if (i == activePlayer) {
 					g2d.setColor(Color.BLUE);
 				} else {
 					g2d.setColor(Color.WHITE);
 				}
 				g2d.drawString(game.getPlayerList().get(i).getName(), nameX, nameY + playerHeight * i);
-				g2d.drawImage(avatars[i], nameX, (nameY + fontHeight) + playerHeight * i, this);
+				sprites.drawAvatar(g2d, i, nameX, (nameY + fontHeight) + playerHeight * i);
 				
 			}
 			
 			// Draw cards
 			for(int i = 0; i < 4; i++) {
+				if(clip != null && !clip.intersects(playerBounds(i))) continue;
 				// Draw the Line
 				g2d.setColor(Color.WHITE);
 				g2d.drawLine(0, playerHeight * (i+1), this.getWidth(), playerHeight * (i+1));
@@ -422,15 +483,16 @@ public class BigTwoTable implements CardGameTable {
 					int numOfCards = currentPlayer.getNumOfCards();
 					for(int j = 0; j < numOfCards; j++) {
 						
-						int suit = currentPlayer.getCardsInHand().getCard(j).getSuit();
-						int rank = currentPlayer.getCardsInHand().getCard(j).getRank();
+						Card card = currentPlayer.getCardsInHand().getCard(j);
+						int suit = card.getSuit();
+						int rank = card.getRank();
 						
-						if(i == activePlayer) {
+						if(i == activePlayer && !card.isHidden()) {
 							int cardY = nameY + fontHeight + playerHeight * i;
 							if(selected[j]) cardY -= raiseValue;
-							g2d.drawImage(cardImages[suit][rank], nameX + gapBetweenCardsAndAvatar + cardWidth + cardCoveredWidth * j, cardY, this);
+							sprites.drawCard(g2d, suit, rank, nameX + gapBetweenCardsAndAvatar + cardWidth + cardCoveredWidth * j, cardY);
 						} else {
-							g2d.drawImage(cardBackImage, nameX + gapBetweenCardsAndAvatar + cardWidth + cardCoveredWidth * j, nameY + fontHeight + playerHeight * i, this);
+							sprites.drawBack(g2d, nameX + gapBetweenCardsAndAvatar + cardWidth + cardCoveredWidth * j, nameY + fontHeight + playerHeight * i);
 						}
 					}
 				} catch (Exception e) {
@@ -439,6 +501,10 @@ public class BigTwoTable implements CardGameTable {
 				
 			}
 			
+			if (clip != null && !clip.intersects(tableBounds())) {
+				return;
+			}
+			
 			if (game.endOfGame()) {
 				boolean didGameEndNicely = ((BigTwoClient)game).getGameEndedNicely();
 				if(didGameEndNicely) {
@@ -450,7 +516,7 @@ public class BigTwoTable implements CardGameTable {
 					g2d.setColor(Color.WHITE);
 					g2d.drawString(playerListEOG.get(winner).getName() + " has won the Game!", nameX, nameY + playerHeight * 4);
 					
-					g2d.drawImage(avatars[winner], nameX, nameY + fontHeight + playerHeight * 4 + 5, this);
+					sprites.drawAvatar(g2d, winner, nameX, nameY + fontHeight + playerHeight * 4 + 5);
 					int count = 1;
 					for(int i = 0; i < playerListEOG.size(); i++) {
 						if(i != winner) {
@@ -475,11 +541,10 @@ public class BigTwoTable implements CardGameTable {
 						Card currentCard = lastHand.getCard(i);
 						int suit = currentCard.getSuit();
 						int rank = currentCard.getRank();
-						g2d.drawImage(cardImages[suit][rank], nameX + cardCoveredWidth * i, nameY + fontHeight + playerHeight * 4 + 5, this);
+						sprites.drawCard(g2d, suit, rank, nameX + cardCoveredWidth * i, nameY + fontHeight + playerHeight * 4 + 5);
 					}
 				}
 			}
-			repaint();
 		}
 		
 		/**
@@ -519,8 +584,8 @@ public class BigTwoTable implements CardGameTable {
 			if(indexCardClicked != -1) {
 				if(selected[indexCardClicked]) selected[indexCardClicked] = false;
 				else selected[indexCardClicked] = true;
+				repaintPlayer(activePlayer);
 			}
-			repaint();
 		}
 		
 		/**
@@ -575,7 +640,6 @@ public class BigTwoTable implements CardGameTable {
 			} else {
 				game.makeMove(activePlayer, getSelected());
 			}
-			repaint();
 		}
 	}
 	
@@ -0,0 +1,247 @@
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class implements the MessageCodec interface with a compact binary
+ * layout. A payload starts with the type and the playerID of the message (one
+ * byte each), followed by data specialized for the type:
+ * <p>
+ * PLAYER_LIST: the number of names followed by the names; JOIN, QUIT and MSG:
+ * a single string; FULL and READY: nothing; START: the number of cards followed
+ * by one byte per card (suit * 13 + rank); MOVE: a 16-bit mask of the indices
+ * of the cards being played (0 for a pass); DEAL and PLAYED: the number of
+ * values followed by one byte per value (none for a pass).
+ * <p>
+ * Strings are written as a 16-bit length (-1 for null) followed by UTF-8
+ * bytes.
+ */
+public class BinaryMessageCodec implements MessageCodec {
+	/**
+	 * The id of this codec.
+	 */
+	public static final int CODEC_ID = 1;
+
+	/**
+	 * The shared instance of this codec, decoding START messages into
+	 * instances of the Deck class.
+	 */
+	public static final BinaryMessageCodec INSTANCE = new BinaryMessageCodec();
+
+	// size of the type and playerID of a message
+	private static final int HEADER_LENGTH = 2;
+	// number of card indices a MOVE mask can hold
+	private static final int MAX_MOVE_INDEX = 16;
+
+	// implementation of method from the MessageCodec interface
+	public int getCodecID() {
+		return CODEC_ID;
+	}
+
+	/**
+	 * Creates and returns an instance of the Deck class for decoding START
+	 * messages. Overrides this method if a different type of deck is needed.
+	 * 
+	 * @return an instance of the Deck class
+	 */
+	public Deck createDeck() {
+		return new Deck();
+	}
+
+	// implementation of method from the MessageCodec interface
+	public byte[] encode(GameMessage message) throws IOException {
+		Object data = message.getData();
+		ByteBuffer buffer;
+		try {
+			switch (message.getType()) {
+			case CardGameMessage.PLAYER_LIST:
+				String[] names = (String[]) data;
+				byte[][] encodedNames = new byte[names.length][];
+				int size = HEADER_LENGTH + 1;
+				for (int i = 0; i < names.length; i++) {
+					encodedNames[i] = encodeString(names[i]);
+					size += 2 + (encodedNames[i] == null ? 0 : encodedNames[i].length);
+				}
+				buffer = header(message, size);
+				buffer.put((byte) names.length);
+				for (byte[] name : encodedNames) {
+					putString(buffer, name);
+				}
+				break;
+			case CardGameMessage.JOIN:
+			case CardGameMessage.QUIT:
+			case CardGameMessage.MSG:
+				byte[] string = encodeString((String) data);
+				buffer = header(message, HEADER_LENGTH + 2
+						+ (string == null ? 0 : string.length));
+				putString(buffer, string);
+				break;
+			case CardGameMessage.START:
+				CardList deck = (CardList) data;
+				buffer = header(message, HEADER_LENGTH + 1 + deck.size());
+				buffer.put((byte) deck.size());
+				for (int i = 0; i < deck.size(); i++) {
+					Card card = deck.getCard(i);
+					buffer.put((byte) (card.getSuit() * 13 + card.getRank()));
+				}
+				break;
+			case CardGameMessage.DEAL:
+			case CardGameMessage.PLAYED:
+				int[] values = (int[]) data;
+				int numOfValues = values == null ? 0 : values.length;
+				buffer = header(message, HEADER_LENGTH + 1 + numOfValues);
+				buffer.put((byte) numOfValues);
+				for (int i = 0; i < numOfValues; i++) {
+					if (values[i] < 0 || values[i] > Byte.MAX_VALUE) {
+						throw new IOException("Value out of range: " + values[i]);
+					}
+					buffer.put((byte) values[i]);
+				}
+				break;
+			case CardGameMessage.MOVE:
+				int mask = 0;
+				if (data != null) {
+					for (int idx : (int[]) data) {
+						if (idx < 0 || idx >= MAX_MOVE_INDEX) {
+							throw new IOException("Card index out of range: " + idx);
+						}
+						mask |= 1 << idx;
+					}
+				}
+				buffer = header(message, HEADER_LENGTH + 2);
+				buffer.putShort((short) mask);
+				break;
+			default:
+				buffer = header(message, HEADER_LENGTH);
+				break;
+			}
+		} catch (ClassCastException ex) {
+			throw new IOException("Invalid data for message type "
+					+ message.getType(), ex);
+		}
+		return buffer.array();
+	}
+
+	// implementation of method from the MessageCodec interface
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException {
+		ByteBuffer buffer = ByteBuffer.wrap(payload, offset, length);
+		try {
+			int type = buffer.get();
+			int playerID = buffer.get();
+			Object data = null;
+
+			switch (type) {
+			case CardGameMessage.PLAYER_LIST:
+				String[] names = new String[buffer.get() & 0xFF];
+				for (int i = 0; i < names.length; i++) {
+					names[i] = getString(buffer);
+				}
+				data = names;
+				break;
+			case CardGameMessage.JOIN:
+			case CardGameMessage.QUIT:
+			case CardGameMessage.MSG:
+				data = getString(buffer);
+				break;
+			case CardGameMessage.START:
+				data = getDeck(buffer);
+				break;
+			case CardGameMessage.DEAL:
+			case CardGameMessage.PLAYED:
+				int numOfValues = buffer.get() & 0xFF;
+				if (numOfValues > 0) {
+					int[] values = new int[numOfValues];
+					for (int i = 0; i < numOfValues; i++) {
+						values[i] = buffer.get();
+					}
+					data = values;
+				}
+				break;
+			case CardGameMessage.MOVE:
+				int mask = buffer.getShort() & 0xFFFF;
+				if (mask != 0) {
+					int[] cardIdx = new int[Integer.bitCount(mask)];
+					for (int i = 0; i < cardIdx.length; i++) {
+						cardIdx[i] = Integer.numberOfTrailingZeros(mask);
+						mask &= mask - 1;
+					}
+					data = cardIdx;
+				}
+				break;
+			default:
+				break;
+			}
+			return new CardGameMessage(type, playerID, data);
+		} catch (BufferUnderflowException | IllegalArgumentException
+				| IndexOutOfBoundsException ex) {
+			throw new IOException("Truncated or invalid message in frame", ex);
+		}
+	}
+
+	/**
+	 * Decodes a deck of cards, creating it with createDeck().
+	 */
+	private Deck getDeck(ByteBuffer buffer) throws IOException {
+		Deck deck = createDeck();
+		Card[] cards = new Card[52];
+		for (int i = 0; i < deck.size(); i++) {
+			Card card = deck.getCard(i);
+			cards[card.getSuit() * 13 + card.getRank()] = card;
+		}
+
+		int size = buffer.get() & 0xFF;
+		deck.removeAllCards();
+		for (int i = 0; i < size; i++) {
+			int card = buffer.get();
+			if (card < 0 || card >= 52 || cards[card] == null) {
+				throw new IOException("Invalid card in deck: " + card);
+			}
+			deck.addCard(cards[card]);
+		}
+		return deck;
+	}
+
+	/**
+	 * Allocates a buffer of the specified size holding the type and playerID
+	 * of the message.
+	 */
+	private static ByteBuffer header(GameMessage message, int size) {
+		ByteBuffer buffer = ByteBuffer.allocate(size);
+		buffer.put((byte) message.getType());
+		buffer.put((byte) message.getPlayerID());
+		return buffer;
+	}
+
+	private static byte[] encodeString(String string) throws IOException {
+		if (string == null) {
+			return null;
+		}
+		byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+		if (bytes.length > Short.MAX_VALUE) {
+			throw new IOException("String too long: " + bytes.length + " bytes");
+		}
+		return bytes;
+	}
+
+	private static void putString(ByteBuffer buffer, byte[] string) {
+		if (string == null) {
+			buffer.putShort((short) -1);
+		} else {
+			buffer.putShort((short) string.length);
+			buffer.put(string);
+		}
+	}
+
+	private static String getString(ByteBuffer buffer) {
+		int length = buffer.getShort();
+		if (length < 0) {
+			return null;
+		}
+		String string = new String(buffer.array(), buffer.arrayOffset()
+				+ buffer.position(), length, StandardCharsets.UTF_8);
+		buffer.position(buffer.position() + length);
+		return string;
+	}
+}
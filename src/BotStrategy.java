@@ -0,0 +1,19 @@
+/**
+ * An interface for the strategy of a computer player of a Big Two card game.
+ * A strategy only reads the state of the game; it must not modify it.
+ */
+public interface BotStrategy {
+	/**
+	 * Chooses the move of the specified player, who is the current player of
+	 * the specified game.
+	 * 
+	 * @param game
+	 *            the card game, holding the cards of the player and the hands
+	 *            played on the table
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @return the list of the indices of the cards to be played, or null for
+	 *         a pass
+	 */
+	public int[] chooseMove(CardGame game, int playerID);
+}
@@ -0,0 +1,201 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.Socket;
+import java.util.Locale;
+
+/**
+ * This class is used to measure the cost of broadcasting a message to the
+ * clients of a room (see GameRoom) as the number of recipients grows. For
+ * each number of recipients, a card game server with a single room of that
+ * many seats and no engine is started in this process, and as many clients
+ * connect to it with the binary codec. One of them then sends MOVE messages,
+ * which the room broadcasts to every client, one at a time: the next message
+ * is sent once the previous one has come back. The other clients only drain
+ * their connections.
+ * <p>
+ * The time taken by the room to broadcast a message is read from the metrics
+ * of the server (see ServerMetrics), and reported per message and per
+ * recipient, together with the round-trip time seen by the sender.
+ */
+public class BroadcastBenchmark {
+	/**
+	 * The default numbers of recipients measured.
+	 */
+	public static final int[] DEFAULT_RECIPIENTS = { 1, 2, 4, 8, 16, 32, 64,
+			128, 256 };
+
+	// the cards of the MOVE messages broadcast
+	private static final int[] CARD_IDX = { 0, 1, 2, 3, 4 };
+
+	private final int basePort;
+	private final int numOfMessages;
+
+	/**
+	 * Creates and returns an instance of the BroadcastBenchmark class.
+	 *
+	 * @param basePort
+	 *            the TCP port of the server for the first number of
+	 *            recipients; the following ones use the following ports
+	 * @param numOfMessages
+	 *            the number of messages measured for each number of
+	 *            recipients, after as many for warming up
+	 */
+	public BroadcastBenchmark(int basePort, int numOfMessages) {
+		this.basePort = basePort;
+		this.numOfMessages = numOfMessages;
+	}
+
+	/**
+	 * Measures the broadcasts for each of the specified numbers of recipients,
+	 * and prints a line for each.
+	 *
+	 * @param recipients
+	 *            the numbers of recipients
+	 * @throws IOException
+	 *             if a client cannot connect or loses its connection
+	 * @throws InterruptedException
+	 *             if interrupted while waiting for a server to start
+	 */
+	public void run(int[] recipients) throws IOException,
+			InterruptedException {
+		System.out.println("Recipients  ns/broadcast  ns/recipient  "
+				+ "round trip (us)");
+		for (int k = 0; k < recipients.length; k++) {
+			measure(recipients[k], basePort + k);
+		}
+	}
+
+	/**
+	 * Measures the broadcasts in a room of the specified number of clients.
+	 */
+	private void measure(int numOfRecipients, final int port)
+			throws IOException, InterruptedException {
+		final CardGameServer server = new CardGameServer(
+				"Broadcast Benchmark", numOfRecipients, 1, 1);
+		server.getLog().setLevel(ServerLog.WARN);
+		Thread serverThread = new Thread(new Runnable() {
+			public void run() {
+				server.start(port);
+			}
+		}, "CardGameServer-" + port);
+		serverThread.setDaemon(true);
+		serverThread.start();
+		Thread.sleep(500);
+
+		Socket[] sockets = new Socket[numOfRecipients];
+		OutputStream out = null;
+		DataInputStream in = null;
+		MessageCodec codec = null;
+		try {
+			for (int i = 0; i < numOfRecipients; i++) {
+				sockets[i] = new Socket("localhost", port);
+				sockets[i].setTcpNoDelay(true);
+				OutputStream sockOut = new BufferedOutputStream(
+						sockets[i].getOutputStream());
+				final DataInputStream sockIn = new DataInputStream(
+						new BufferedInputStream(sockets[i].getInputStream()));
+				MessageFrames.writeHandshake(sockOut,
+						BinaryMessageCodec.CODEC_ID);
+				final MessageCodec sockCodec = MessageFrames
+						.getCodec(MessageFrames.readHandshake(sockIn));
+				if (i == 0) {
+					out = sockOut;
+					in = sockIn;
+					codec = sockCodec;
+				} else {
+					startDrain(sockIn, sockCodec);
+				}
+			}
+
+			ServerMetrics.Histogram broadcastTime = server.getMetrics()
+					.getBroadcastTime();
+			sendAndReceive(out, in, codec, numOfMessages);
+			long startCount = broadcastTime.getCount();
+			long startSum = broadcastTime.getSum();
+			long startTime = System.nanoTime();
+			sendAndReceive(out, in, codec, numOfMessages);
+			long elapsedTime = System.nanoTime() - startTime;
+			long count = broadcastTime.getCount() - startCount;
+			long sum = broadcastTime.getSum() - startSum;
+
+			double perBroadcast = count == 0 ? Double.NaN : (double) sum
+					/ count;
+			System.out.printf(Locale.ROOT, "%10d  %12.0f  %12.1f  %15.1f%n",
+					numOfRecipients, perBroadcast, perBroadcast
+							/ numOfRecipients, elapsedTime / 1e3
+							/ numOfMessages);
+		} finally {
+			// the server may still be writing to the clients closed
+			server.getLog().setLevel(ServerLog.ERROR);
+			for (Socket sock : sockets) {
+				if (sock != null) {
+					sock.close();
+				}
+			}
+		}
+	} // measure
+
+	/**
+	 * Sends MOVE messages one at a time, each once the previous one has come
+	 * back.
+	 */
+	private static void sendAndReceive(OutputStream out, DataInputStream in,
+			MessageCodec codec, int numOfMessages) throws IOException {
+		CardGameMessage move = new CardGameMessage(CardGameMessage.MOVE, -1,
+				CARD_IDX);
+		for (int n = 0; n < numOfMessages; n++) {
+			MessageFrames.writeFrame(out, codec, move);
+			while (MessageFrames.readFrame(in, codec).getType() != CardGameMessage.MOVE) {
+				// skips the other messages, e.g. PLAYER_LIST
+			}
+		}
+	}
+
+	/**
+	 * Starts a thread reading and discarding the messages of a client until
+	 * its connection is closed.
+	 */
+	private static void startDrain(final DataInputStream in,
+			final MessageCodec codec) {
+		Thread drain = new Thread(new Runnable() {
+			public void run() {
+				try {
+					while (true) {
+						MessageFrames.readFrame(in, codec);
+					}
+				} catch (IOException ex) {
+					// the connection is closed
+				}
+			}
+		}, "Drain");
+		drain.setDaemon(true);
+		drain.start();
+	}
+
+	/**
+	 * Runs the benchmark.
+	 *
+	 * @param args
+	 *            optionally the number of messages per number of recipients
+	 *            (10000 by default), the port of the first server (2420 by
+	 *            default), and the numbers of recipients
+	 */
+	public static void main(String[] args) throws IOException,
+			InterruptedException {
+		System.setProperty("java.awt.headless", "true");
+		int numOfMessages = args.length > 0 ? Integer.parseInt(args[0])
+				: 10000;
+		int basePort = args.length > 1 ? Integer.parseInt(args[1]) : 2420;
+		int[] recipients = DEFAULT_RECIPIENTS;
+		if (args.length > 2) {
+			recipients = new int[args.length - 2];
+			for (int i = 2; i < args.length; i++) {
+				recipients[i - 2] = Integer.parseInt(args[i]);
+			}
+		}
+		new BroadcastBenchmark(basePort, numOfMessages).run(recipients);
+	}
+}
@@ -13,6 +13,23 @@ public class Card implements Comparable<Card>, Serializable {
 	private static final char[] RANKS = { 'A', '2', '3', '4', '5', '6', '7',
 			'8', '9', '0', 'J', 'Q', 'K' };
 
+	// the shared instances of the 52 cards, indexed by suit * 13 + rank
+	private static final Card[] CARDS = new Card[52];
+
+	/**
+	 * The card standing for a card whose suit and rank are hidden, e.g., a
+	 * card in the hand of another player. It is not one of the 52 cards: it
+	 * has suit and rank -1, is equal only to itself, and has no bit in the
+	 * mask of a card list.
+	 */
+	public static final Card HIDDEN = new Card(-1, -1);
+
+	static {
+		for (int i = 0; i < CARDS.length; i++) {
+			CARDS[i] = new Card(i / 13, i % 13);
+		}
+	}
+
 	protected final int suit; // 0 - 3
 	protected final int rank; // 0 - 12
 
@@ -34,6 +51,65 @@ public class Card implements Comparable<Card>, Serializable {
 		this.rank = rank;
 	}
 
+	/**
+	 * Returns the shared instance of the Card class with the specified suit
+	 * and rank. Unlike the constructor, this method never allocates a card.
+	 * 
+	 * @param suit
+	 *            an int value between 0 and 3 representing the suit of a card
+	 * @param rank
+	 *            an int value between 0 and 12 representing the rank of a card
+	 * @return the shared instance of the card
+	 * @throws IllegalArgumentException
+	 *             if the suit or the rank is out of range
+	 */
+	public static Card valueOf(int suit, int rank) {
+		return CARDS[index(suit, rank)];
+	}
+
+	/**
+	 * Returns the index of the card with the specified suit and rank,
+	 * suit * 13 + rank, checking the range of the suit and the rank.
+	 * 
+	 * @param suit
+	 *            the suit of a card
+	 * @param rank
+	 *            the rank of a card
+	 * @return the index of the card
+	 * @throws IllegalArgumentException
+	 *             if the suit or the rank is out of range
+	 */
+	protected static int index(int suit, int rank) {
+		if (suit < 0 || suit > 3 || rank < 0 || rank > 12) {
+			throw new IllegalArgumentException("Invalid card: suit " + suit
+					+ ", rank " + rank);
+		}
+		return suit * 13 + rank;
+	}
+
+	/**
+	 * Replaces a deserialized card with the shared instance of the card, so
+	 * that a deck received from the network does not keep copies of the
+	 * cards. Subclasses with their own shared instances override this method.
+	 * 
+	 * @return the shared instance of the card
+	 */
+	protected Object readResolve() {
+		if (isHidden()) {
+			return HIDDEN;
+		}
+		return getClass() == Card.class ? valueOf(suit, rank) : this;
+	}
+
+	/**
+	 * Returns true if this card is hidden (see HIDDEN).
+	 * 
+	 * @return true if this card is hidden; otherwise false
+	 */
+	public final boolean isHidden() {
+		return suit < 0;
+	}
+
 	/**
 	 * Returns the suit of a card.
 	 * 
@@ -63,7 +139,9 @@ public class Card implements Comparable<Card>, Serializable {
 	 * @return a string representation of the card
 	 */
 	public String toString() {
-		if (SUPPORT_COLOR && (this.suit % 2 == 0)) {
+		if (isHidden()) {
+			return "??";
+		} else if (SUPPORT_COLOR && (this.suit % 2 == 0)) {
 			return "\u001B[31m" + SUITS[this.suit] + RANKS[this.rank] + "\u001B[0m";
 		} else {
 			return "" + SUITS[this.suit] + RANKS[this.rank];
@@ -101,16 +179,20 @@ public class Card implements Comparable<Card>, Serializable {
 	 *         card; false otherwise
 	 */
 	public boolean equals(Object card) {
+		if (this == card) {
+			return true;
+		}
 		return (this.rank == ((Card) card).getRank() && suit == ((Card) card)
 				.getSuit());
 	}
 
 	/**
-	 * Returns a hash code value for the card.
+	 * Returns a hash code value for the card. Cards not equal to each other
+	 * have different hash codes.
 	 * 
-	 * @return a hash code value for the card
+	 * @return a hash code value for the card, suit * 13 + rank
 	 */
 	public int hashCode() {
-		return rank;
+		return suit * 13 + rank;
 	}
 }
@@ -57,6 +57,20 @@ public class CardGameMessage extends GameMessage {
 	 * sent this chat message, and data is a reference to a string containing a formated chat message.
 	 */
 	public static final int MSG = 7;
+	/**
+	 * Sent by the server to each client, instead of START, when all clients are ready for a new game
+	 * and the server holds the state of the game. In this message, playerID specifies the player who
+	 * makes the first move, and data is a reference to an array of int specifying the numbers of cards
+	 * of all the players, followed by the cards of the receiving player (suit * 13 + rank).
+	 */
+	public static final int DEAL = 8;
+	/**
+	 * Broadcast by the server, instead of MOVE, when a legal move has been made and the server holds
+	 * the state of the game. In this message, playerID specifies the player who makes the move, and
+	 * data is a reference to an array of int specifying the cards being played (suit * 13 + rank), or
+	 * null for a pass.
+	 */
+	public static final int PLAYED = 9;
 
 	/**
 	 * Creates and returns an instance of CardGameMessage.
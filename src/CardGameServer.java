@@ -1,9 +1,16 @@
+import java.awt.GraphicsEnvironment;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
-import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
-import java.net.ServerSocket;
-import java.net.Socket;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.random.RandomGenerator;
 
 import javax.swing.JFrame;
 import javax.swing.JMenu;
@@ -12,37 +19,95 @@ import javax.swing.JMenuItem;
 import javax.swing.JScrollPane;
 import javax.swing.JTextArea;
 import javax.swing.ScrollPaneConstants;
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
 
 /**
- * This class is used to model a card game server.
+ * This class is used to model a card game server. The server hosts many rooms
+ * (see GameRoom), each seating up to maxNumOfPlayers players. Connections are
+ * accepted on the thread calling start() and are served by a small fixed pool
+ * of event loops (see EventLoop) using non-blocking channels. Alternatively,
+ * each connection may be served by blocking threads of its own, either
+ * platform threads or virtual threads (see setExecutionMode()).
+ * <p>
+ * Messages are logged asynchronously (see ServerLog). Unless the Java runtime
+ * is headless, the log is shown in a console window refreshed at a throttled
+ * rate; a headless server writes its log to the standard output instead.
+ * The counters and histograms of the server (see ServerMetrics) are
+ * registered with JMX when the server starts, and may also be served over
+ * HTTP in the Prometheus text format.
  * 
  * @author Kenneth Wong
  *
  */
 public class CardGameServer {
+	/**
+	 * Execution mode serving the connections with a fixed pool of event loops.
+	 */
+	public static final int EVENT_LOOPS = 0;
+	/**
+	 * Execution mode serving each connection with blocking platform threads.
+	 */
+	public static final int PLATFORM_THREADS = 1;
+	/**
+	 * Execution mode serving each connection with blocking virtual threads.
+	 * Falls back to platform threads if virtual threads are not supported by
+	 * the Java runtime (before Java 21).
+	 */
+	public static final int VIRTUAL_THREADS = 2;
+
+	// the interval between two refreshes of the console, in ms
+	private static final int CONSOLE_REFRESH_INTERVAL = 250;
+	// the maximum number of characters kept in the console
+	private static final int MAX_CONSOLE_LENGTH = 100000;
+
 	// The name of this card game server
 	private String serverName;
 	// The maximum number of players in a card game
 	private final int maxNumOfPlayers;
-	// Array for holding sockets of the clients
-	private Socket[] clientSockets;
-	// Array for holding ObjectOutputStreams of the clients
-	private ObjectOutputStream[] clientOutputStreams;
-	// Array for holding player names of the clients
-	private String[] clientNames;
-	// Array for holding ready states of the clients
-	private boolean[] clientReadyStates;
-	// number of current players
-	private int numOfPlayers = 0;
+	// The maximum number of rooms hosted by this server
+	private final int maxNumOfRooms;
+	// The number of event loops serving the connections
+	private final int numOfEventLoops;
+	// Array for holding the rooms hosted by this server, created on demand
+	private final AtomicReferenceArray<GameRoom> rooms;
+	// the execution mode serving the connections
+	private int executionMode = EVENT_LOOPS;
+	// Array for holding the event loops, in the EVENT_LOOPS mode
+	private EventLoop[] eventLoops;
+	// factory of the threads serving the connections, in the other modes
+	private ThreadFactory connectionThreadFactory;
+	// index of the event loop for the next connection
+	private int nextEventLoop = 0;
 	// the main frame of the server
 	private JFrame frame = null;
 	// text area for displaying server states
 	private JTextArea textArea = null;
+	// the log of this server
+	private final ServerLog log = new ServerLog();
+	// the metrics of this server
+	private final ServerMetrics metrics = new ServerMetrics(this);
+	// the recorder of the games played, or null if games are not recorded
+	private volatile GameRecorder recorder = null;
+	// the generator shuffling the decks, or null for seeded shuffles
+	private volatile RandomGenerator shuffleGenerator = null;
+	// the strategy of the computer players, or null if seats are not filled
+	private volatile BotStrategy botStrategy = null;
+	// the delay before the empty seats of a room are filled, in milliseconds
+	private volatile long botFillDelay = 3000;
+	// the threads choosing the moves of the computer players, started on
+	// demand by the executor
+	private final ScheduledExecutorService botExecutor = newBotExecutor();
 	// a boolean indicating if the server is up
-	private boolean serverUp = false;
+	private volatile boolean serverUp = false;
+	// the high-water mark of the outbound queue of a connection, in bytes
+	private int highWaterMark = 64 * 1024;
+	// the backpressure policy of the connections
+	private int backpressurePolicy = ClientConnection.DROP_CHAT;
 
 	/**
-	 * Creates and returns an instance of the BigTwoServer class.
+	 * Creates and returns an instance of the CardGameServer class hosting a
+	 * single room.
 	 * 
 	 * @param serverName
 	 *            the name of this card game server
@@ -50,17 +115,255 @@ public class CardGameServer {
 	 *            the maximum number of players in a card game
 	 */
 	public CardGameServer(String serverName, int maxNumOfPlayers) {
+		this(serverName, maxNumOfPlayers, 1, Runtime.getRuntime()
+				.availableProcessors());
+	}
+
+	/**
+	 * Creates and returns an instance of the CardGameServer class.
+	 * 
+	 * @param serverName
+	 *            the name of this card game server
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players in a card game
+	 * @param maxNumOfRooms
+	 *            the maximum number of rooms hosted by this server
+	 * @param numOfEventLoops
+	 *            the number of event loops serving the connections
+	 */
+	public CardGameServer(String serverName, int maxNumOfPlayers,
+			int maxNumOfRooms, int numOfEventLoops) {
 		this.serverName = serverName;
 		this.maxNumOfPlayers = maxNumOfPlayers;
+		this.maxNumOfRooms = maxNumOfRooms;
+		this.numOfEventLoops = Math.max(1, numOfEventLoops);
+		this.rooms = new AtomicReferenceArray<GameRoom>(maxNumOfRooms);
 
-		// creates arrays for holding client sockets, output streams, player
-		// names, and ready states
-		clientSockets = new Socket[maxNumOfPlayers];
-		clientOutputStreams = new ObjectOutputStream[maxNumOfPlayers];
-		clientNames = new String[maxNumOfPlayers];
-		clientReadyStates = new boolean[maxNumOfPlayers];
+		if (GraphicsEnvironment.isHeadless()) {
+			log.addSink(new StreamLogSink(System.out));
+		} else {
+			buildGUI();
+			log.addSink(new ConsoleLogSink());
+		}
+	}
 
-		buildGUI();
+	/**
+	 * Returns the log of this server.
+	 * 
+	 * @return the log of this server
+	 */
+	public ServerLog getLog() {
+		return log;
+	}
+
+	/**
+	 * Returns the metrics of this server.
+	 * 
+	 * @return the metrics of this server
+	 */
+	public ServerMetrics getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Returns the rooms created so far on this server.
+	 * 
+	 * @return the rooms created so far
+	 */
+	ArrayList<GameRoom> getRooms() {
+		ArrayList<GameRoom> created = new ArrayList<GameRoom>();
+		for (int i = 0; i < maxNumOfRooms; i++) {
+			GameRoom room = rooms.get(i);
+			if (room != null) {
+				created.add(room);
+			}
+		}
+		return created;
+	}
+
+	/**
+	 * Returns the recorder of the games played on this server.
+	 * 
+	 * @return the recorder of the games played, or null if games are not
+	 *         recorded
+	 */
+	public GameRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Sets the recorder of the games played on this server. Only the games of
+	 * the rooms with an engine (see createGameEngine()) are recorded, as their
+	 * moves are known to be legal.
+	 * 
+	 * @param recorder
+	 *            the recorder of the games played, or null if games are not
+	 *            to be recorded
+	 */
+	public void setRecorder(GameRecorder recorder) {
+		this.recorder = recorder;
+	}
+
+	/**
+	 * Returns the random number generator shuffling the decks.
+	 * 
+	 * @return the random number generator shuffling the decks, or null if
+	 *         each deck is shuffled with a seed drawn at random
+	 */
+	public RandomGenerator getShuffleGenerator() {
+		return shuffleGenerator;
+	}
+
+	/**
+	 * Sets the random number generator shuffling the decks, e.g., a
+	 * SecureRandom for ranked play. The generator is shared by all the rooms,
+	 * and must be thread-safe. By default, each deck is shuffled with a seed
+	 * drawn at random, which is logged so that the deal can be replayed.
+	 * 
+	 * @param shuffleGenerator
+	 *            the random number generator shuffling the decks, or null
+	 */
+	public void setShuffleGenerator(RandomGenerator shuffleGenerator) {
+		this.shuffleGenerator = shuffleGenerator;
+	}
+
+	/**
+	 * Returns the strategy of the computer players.
+	 * 
+	 * @return the strategy of the computer players, or null if no computer
+	 *         players are seated
+	 */
+	public BotStrategy getBotStrategy() {
+		return botStrategy;
+	}
+
+	/**
+	 * Sets the strategy of the computer players. If set, the empty seats of a
+	 * room are filled with computer players once a player is ready and no
+	 * other player has joined within the fill delay, and a player leaving a
+	 * game in progress is replaced with a computer player instead of ending
+	 * the game. The strategy is shared by all the rooms, and must not hold any
+	 * state between moves. Only the rooms whose engine is a CardGame seat
+	 * computer players.
+	 * 
+	 * @param botStrategy
+	 *            the strategy of the computer players, or null
+	 */
+	public void setBotStrategy(BotStrategy botStrategy) {
+		this.botStrategy = botStrategy;
+	}
+
+	/**
+	 * Returns the delay before the empty seats of a room are filled with
+	 * computer players.
+	 * 
+	 * @return the delay in milliseconds
+	 */
+	public long getBotFillDelay() {
+		return botFillDelay;
+	}
+
+	/**
+	 * Sets the delay before the empty seats of a room are filled with
+	 * computer players, counted from the first player being ready.
+	 * 
+	 * @param botFillDelay
+	 *            the delay in milliseconds
+	 */
+	public void setBotFillDelay(long botFillDelay) {
+		this.botFillDelay = botFillDelay;
+	}
+
+	/**
+	 * Returns the executor choosing the moves of the computer players. It is
+	 * created with the server, without locking on the path of the moves, and
+	 * starts its daemon threads, one per processor, as tasks are submitted.
+	 * 
+	 * @return the executor choosing the moves of the computer players
+	 */
+	ScheduledExecutorService getBotExecutor() {
+		return botExecutor;
+	}
+
+	/**
+	 * Creates and returns the executor choosing the moves of the computer
+	 * players, whose threads are not started until tasks are submitted.
+	 */
+	private static ScheduledExecutorService newBotExecutor() {
+		final AtomicInteger count = new AtomicInteger();
+		ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(
+				Runtime.getRuntime().availableProcessors(),
+				new ThreadFactory() {
+					public Thread newThread(Runnable r) {
+						Thread t = new Thread(r, "Bot-" + count.getAndIncrement());
+						t.setDaemon(true);
+						return t;
+					}
+				});
+		executor.setRemoveOnCancelPolicy(true);
+		return executor;
+	} // newBotExecutor
+
+	/**
+	 * Returns the high-water mark of the outbound queue of a connection.
+	 * 
+	 * @return the high-water mark in bytes
+	 */
+	public int getHighWaterMark() {
+		return highWaterMark;
+	}
+
+	/**
+	 * Sets the high-water mark of the outbound queue of a connection. Applies
+	 * to the connections accepted afterwards.
+	 * 
+	 * @param highWaterMark
+	 *            the high-water mark in bytes
+	 */
+	public void setHighWaterMark(int highWaterMark) {
+		this.highWaterMark = highWaterMark;
+	}
+
+	/**
+	 * Returns the backpressure policy of the connections.
+	 * 
+	 * @return ClientConnection.DROP_CHAT, ClientConnection.COALESCE or
+	 *         ClientConnection.DISCONNECT
+	 */
+	public int getBackpressurePolicy() {
+		return backpressurePolicy;
+	}
+
+	/**
+	 * Sets the backpressure policy of the connections. Applies to the
+	 * connections accepted afterwards.
+	 * 
+	 * @param backpressurePolicy
+	 *            ClientConnection.DROP_CHAT, ClientConnection.COALESCE or
+	 *            ClientConnection.DISCONNECT
+	 */
+	public void setBackpressurePolicy(int backpressurePolicy) {
+		this.backpressurePolicy = backpressurePolicy;
+	}
+
+	/**
+	 * Returns the execution mode serving the connections.
+	 * 
+	 * @return EVENT_LOOPS, PLATFORM_THREADS or VIRTUAL_THREADS
+	 */
+	public int getExecutionMode() {
+		return executionMode;
+	}
+
+	/**
+	 * Sets the execution mode serving the connections. Must be called before
+	 * the server is started.
+	 * 
+	 * @param executionMode
+	 *            EVENT_LOOPS, PLATFORM_THREADS or VIRTUAL_THREADS
+	 */
+	public void setExecutionMode(int executionMode) {
+		this.executionMode = executionMode;
 	}
 
 	/**
@@ -104,253 +407,193 @@ public class CardGameServer {
 	public void start(int port) {
 		// start the server
 		try {
-			// creates a ServerScoket
-			ServerSocket serverSocket = new ServerSocket(port);
+			String servedBy;
+			if (executionMode == EVENT_LOOPS) {
+				// starts the event loops
+				eventLoops = new EventLoop[numOfEventLoops];
+				for (int i = 0; i < numOfEventLoops; i++) {
+					eventLoops[i] = new EventLoop(this);
+					Thread t = new Thread(eventLoops[i], "EventLoop-" + i);
+					t.start();
+				}
+				servedBy = numOfEventLoops + " event loops";
+			} else {
+				connectionThreadFactory = createVirtualThreadFactory();
+				if (connectionThreadFactory != null) {
+					servedBy = "virtual threads";
+				} else {
+					connectionThreadFactory = createPlatformThreadFactory();
+					servedBy = "platform threads";
+				}
+			}
+
+			// creates a ServerSocketChannel
+			ServerSocketChannel serverChannel = ServerSocketChannel.open();
+			serverChannel.bind(new InetSocketAddress(port));
 			println("Starts up the server at localhost:"
-					+ serverSocket.getLocalPort());
+					+ serverChannel.socket().getLocalPort() + " with "
+					+ servedBy);
+			try {
+				metrics.registerMBean(serverName, serverChannel.socket()
+						.getLocalPort());
+			} catch (Exception ex) {
+				log(ServerLog.WARN, "Error in registering the metrics with JMX",
+						ex);
+			}
 			serverUp = true;
 			while (serverUp) {
 				// waits for clients to connect
-				Socket clientSocket = serverSocket.accept();
-				addConnection(clientSocket);
+				SocketChannel clientChannel = serverChannel.accept();
+				addConnection(clientChannel);
 			} // while
-			serverSocket.close();
+			serverChannel.close();
 		} catch (Exception ex) {
-			println("Error in starting up the server at localhost:" + port);
-			ex.printStackTrace();
+			log(ServerLog.ERROR, "Error in starting up the server at localhost:"
+					+ port, ex);
+		} finally {
+			if (eventLoops != null) {
+				for (EventLoop eventLoop : eventLoops) {
+					if (eventLoop != null) {
+						eventLoop.shutdown();
+					}
+				}
+			}
 		}
 	} // start
 
 	/**
-	 * Parses the incoming message from the specified client.
+	 * Adds a new connection to the server. The connection is assigned to an
+	 * event loop, or to a reader thread and a writer thread of its own, which
+	 * seat it once the handshake has been received.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the specified client
-	 * @param message
-	 *            the message received from the specified client
+	 * @param clientChannel
+	 *            the channel of the connection to be added to the server
 	 */
-	private synchronized void parseMessage(Socket clientSocket,
-			CardGameMessage message) {
-		// updates the playerID
-		for (int i = 0; i < maxNumOfPlayers; i++) {
-			if (clientSockets[i] == clientSocket) {
-				message.setPlayerID(i);
-				break;
+	private void addConnection(SocketChannel clientChannel) {
+		try {
+			clientChannel.socket().setTcpNoDelay(true);
+			if (eventLoops != null) {
+				clientChannel.configureBlocking(false);
+				ClientConnection connection = new ClientConnection(this,
+						clientChannel, eventLoops[nextEventLoop]);
+				eventLoops[nextEventLoop].register(connection);
+				nextEventLoop = (nextEventLoop + 1) % numOfEventLoops;
+			} else {
+				final ClientConnection connection = new ClientConnection(this,
+						clientChannel, null);
+				connectionThreadFactory.newThread(new Runnable() {
+					public void run() {
+						connection.writeLoop();
+					}
+				}).start();
+				connectionThreadFactory.newThread(new Runnable() {
+					public void run() {
+						connection.readLoop();
+					}
+				}).start();
 			}
+		} catch (Exception ex) {
+			log(ServerLog.ERROR,
+					"Error in establishing a connection with a client at "
+							+ clientChannel.socket().getRemoteSocketAddress(), ex);
 		}
-
-		// parses the message based on it type
-		switch (message.getType()) {
-		case CardGameMessage.JOIN:
-			// adds a player to the game
-			addPlayer(clientSocket, (String) message.getData());
-			break;
-		case CardGameMessage.READY:
-			// marks the specified player as ready for a new game
-			setReadyState(clientSocket);
-			break;
-		case CardGameMessage.MOVE:
-			println("Broadcasts a \"MOVE\" message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the MOVE message to all clients
-			broadcastMessage(message);
-			break;
-		case CardGameMessage.MSG:
-			println("Broadcasts a user message from "
-					+ clientSocket.getRemoteSocketAddress());
-			// broadcast the user message to all clients
-			broadcastUserMessage(clientSocket, (String) message.getData());
-			break;
-		default:
-			println("Wrong message type: " + message.getType());
-			// invalid message
-			break;
-		}
-	} // parseMessage
+	} // addConnection
 
 	/**
-	 * Broadcasts the specified message to all clients.
+	 * Creates and returns a factory of virtual threads, through reflection so
+	 * that the server still runs on Java runtimes without virtual threads.
 	 * 
-	 * @param message
-	 *            the specified message to be broadcast to all clients
+	 * @return a factory of virtual threads, or null if not supported
 	 */
-	private synchronized void broadcastMessage(CardGameMessage message) {
-		if (numOfPlayers > 0) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] != null && clientOutputStreams[i] != null) {
-					try {
-						clientOutputStreams[i].writeObject(message);
-					} catch (Exception ex) {
-						println("Error in broadcasting a message to the client at "
-								+ clientSockets[i].getRemoteSocketAddress());
-						ex.printStackTrace();
-					}
-				}
-			}
+	private ThreadFactory createVirtualThreadFactory() {
+		if (executionMode != VIRTUAL_THREADS) {
+			return null;
 		}
-	} // broadcastMessage
-
-	/**
-	 * Adds a new socket connection to the server
-	 * 
-	 * @param clientSocket
-	 *            the socket connection to be added to the server
-	 */
-	private synchronized void addConnection(Socket clientSocket) {
-		// adds this connection to the server if the server is not full
-		if (numOfPlayers < maxNumOfPlayers) {
-			// locates the first empty slot for the new connection
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == null) {
-					try {
-						// creates an ObjectOutputStream for this client socket
-						ObjectOutputStream oostream = new ObjectOutputStream(
-								clientSocket.getOutputStream());
-
-						clientSockets[i] = clientSocket;
-						clientOutputStreams[i] = oostream;
-						clientNames[i] = null;
-						clientReadyStates[i] = false;
-						numOfPlayers++;
-						println("Establishes a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-
-						// creates a thread for receiving messages from this
-						// client
-						Thread t = new Thread(new ClientHandler(clientSocket));
-						t.start();
-
-						// sends the player list to the new player
-						oostream.writeObject(new CardGameMessage(
-								CardGameMessage.PLAYER_LIST, i, clientNames));
-					} catch (Exception ex) {
-						println("Error in establishing a connection with a client at "
-								+ clientSocket.getRemoteSocketAddress());
-						ex.printStackTrace();
-					}
-					break;
-				}
-			} // for
-		} else {
-			// Max. no. of players reached
-			println("Server is full: cannot establish a connection with a client at "
-					+ clientSocket.getRemoteSocketAddress());
-
-			// creates a thread for sending a FULL message to this client, waits
-			// for 1000 milliseconds and closes the socket
-			Thread t = new Thread(new ClientHandler2(clientSocket));
-			t.start();
+		try {
+			// Thread.ofVirtual().name("Connection-", 0).factory()
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			builder = builderClass.getMethod("name", String.class, long.class)
+					.invoke(builder, "Connection-", 0L);
+			return (ThreadFactory) builderClass.getMethod("factory").invoke(
+					builder);
+		} catch (Exception ex) {
+			log(ServerLog.WARN,
+					"Virtual threads are not supported; uses platform threads");
+			return null;
 		}
-
-	} // addConnection
+	} // createVirtualThreadFactory
 
 	/**
-	 * Removes a connection from the server (possibly due to connection loss).
+	 * Creates and returns a factory of platform threads.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection being removed from the server
+	 * @return a factory of platform threads
 	 */
-	private synchronized void removeConnection(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String name = clientNames[i];
-
-					clientSockets[i] = null;
-					clientOutputStreams[i] = null;
-					clientNames[i] = null;
-					clientReadyStates[i] = false;
-					numOfPlayers--;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") leaves the game.");
-
-					String remoteAddress = clientSocket
-							.getRemoteSocketAddress().toString();
-
-					// broadcasts a message about the leaving of this player
-					broadcastMessage(new CardGameMessage(CardGameMessage.QUIT,
-							i, remoteAddress));
-					break;
-				}
+	private ThreadFactory createPlatformThreadFactory() {
+		final AtomicInteger count = new AtomicInteger();
+		return new ThreadFactory() {
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "Connection-" + count.getAndIncrement());
 			}
-		}
-	} // removeConnection
+		};
+	} // createPlatformThreadFactory
 
 	/**
-	 * adds a player to the game.
+	 * Seats the specified connection in the first room having an empty slot,
+	 * or sends a FULL message and closes the connection if all rooms are full.
 	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who is joining the game
-	 * @param name
-	 *            the name of the player who is joining the game
+	 * @param connection
+	 *            the connection having completed its handshake
 	 */
-	private synchronized void addPlayer(Socket clientSocket, String name) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					// updates the name of the new player
-					clientNames[i] = name;
-
-					println(name + " (" + clientSocket.getRemoteSocketAddress()
-							+ ") joins the game.");
-
-					// broadcasts a message about this player joining the game
-					broadcastMessage(new CardGameMessage(CardGameMessage.JOIN,
-							i, name));
-					break;
-				}
-			}
-		}
-	} // addPlayer
-
-	/**
-	 * Marks the specified player as ready for a new game.
-	 * 
-	 * @param clientSocket
-	 *            the socket connection to the player who becomes ready for a
-	 *            new game
-	 */
-	private synchronized void setReadyState(Socket clientSocket) {
-		if (numOfPlayers > 0) {
-			// locates the client socket in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					clientReadyStates[i] = true;
-					println(clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress()
-							+ " ) is ready for the next game.");
-					broadcastMessage(new CardGameMessage(CardGameMessage.READY,
-							i, null));
-					break;
-				}
+	void seat(ClientConnection connection) {
+		if (findRoom(connection) == null) {
+			// Max. no. of rooms reached
+			log(ServerLog.WARN,
+					"Server is full: cannot establish a connection with a client at "
+							+ connection.getRemoteSocketAddress());
+
+			// sends a FULL message to this client and closes the connection
+			// once it has been written
+			try {
+				connection.sendAndClose(MessageFrames.encode(
+						connection.getCodec(), new CardGameMessage(
+								CardGameMessage.FULL, -1, null)));
+			} catch (Exception ex) {
+				log(ServerLog.ERROR,
+						"Error in sending a FULL message to the client at "
+								+ connection.getRemoteSocketAddress(), ex);
+				connection.close();
 			}
 		}
+	} // seat
 
-		// checks if all players are ready
-		if (numOfPlayers == maxNumOfPlayers) {
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientReadyStates[i] == false) {
-					// returns if any of the players is not ready
-					return;
+	/**
+	 * Seats the specified connection in the first room having an empty slot,
+	 * creating a new room if needed. No lock is held while looking for a room:
+	 * rooms are created with compare-and-set, and full rooms are passed over
+	 * without taking their locks.
+	 * 
+	 * @param connection
+	 *            the connection to be seated
+	 * @return the room of the connection, or null if all rooms are full
+	 */
+	private GameRoom findRoom(ClientConnection connection) {
+		for (int i = 0; i < maxNumOfRooms; i++) {
+			GameRoom room = rooms.get(i);
+			if (room == null) {
+				// another thread may create the same room at the same time
+				if (rooms.compareAndSet(i, null, new GameRoom(this, i,
+						maxNumOfPlayers))) {
+					metrics.roomCreated();
 				}
+				room = rooms.get(i);
 			}
-
-			// resets the ready states of all the players for the next game
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				clientReadyStates[i] = false;
+			if (room.addConnection(connection)) {
+				return room;
 			}
-
-			// creates a new deck, shuffles the deck, and starts a new game
-			Deck deck = createDeck();
-			deck.shuffle();
-			println("All players are ready. Game starts.");
-			broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
-					deck));
 		}
-	}
+		return null;
+	} // findRoom
 
 	/**
 	 * Creates and returns an instance of the Deck class. Overrides this method
@@ -362,132 +605,100 @@ public class CardGameServer {
 		return new Deck();
 	}
 
-	private synchronized void broadcastUserMessage(Socket clientSocket,
-			String msg) {
-		if (numOfPlayers > 0) {
-			// locates the client in the array
-			for (int i = 0; i < maxNumOfPlayers; i++) {
-				if (clientSockets[i] == clientSocket) {
-					String longMsg = clientNames[i] + " ("
-							+ clientSocket.getRemoteSocketAddress() + "): "
-							+ msg;
-					broadcastMessage(new CardGameMessage(CardGameMessage.MSG,
-							i, longMsg));
-					break;
-				}
-			}
-		}
+	/**
+	 * Creates and returns the engine validating the moves of a room. Overrides
+	 * this method to make the server authoritative; by default there is no
+	 * engine and every MOVE message is broadcast as is.
+	 * 
+	 * @return an instance of the GameEngine interface, or null
+	 */
+	public GameEngine createGameEngine() {
+		return null;
 	}
 
 	/**
-	 * Prints the specified message to the text area.
+	 * Logs the specified message at the INFO level.
 	 * 
 	 * @param msg
 	 */
-	private void println(String msg) {
-		textArea.append(msg + "\n");
-		textArea.setCaretPosition(textArea.getDocument().getLength());
+	void println(String msg) {
+		log.log(ServerLog.INFO, msg);
 	}
 
 	/**
-	 * This inner class is used for receiving incoming messages from a client
+	 * Logs the specified message at the specified level.
 	 * 
-	 * @author Kenneth Wong
-	 *
+	 * @param level
+	 *            ServerLog.DEBUG, ServerLog.INFO, ServerLog.WARN or
+	 *            ServerLog.ERROR
+	 * @param msg
 	 */
-	private class ClientHandler implements Runnable {
-		private Socket clientSocket; // socket connection to the client
-		private ObjectInputStream oistream; // ObjectInputStream of the client
-
-		/**
-		 * Creates and returns an instance of the ClientHandler class.
-		 * 
-		 * @param clientSocket
-		 *            the socket connection to the client
-		 */
-		public ClientHandler(Socket clientSocket) {
-			this.clientSocket = clientSocket;
-			try {
-				// creates an ObjectInputStream and chains it to the InputStream
-				// of the client socket
-				oistream = new ObjectInputStream(clientSocket.getInputStream());
-			} catch (Exception ex) {
-				println("Error in creating an ObjectInputStream for the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
-		} // constructor
+	void log(int level, String msg) {
+		log.log(level, msg);
+	}
 
-		// implementation of method from the Runnable interface
-		public void run() {
-			CardGameMessage message;
-			try {
-				// waits for messages from the client
-				while ((message = (CardGameMessage) oistream.readObject()) != null) {
-					println("Message received from "
-							+ clientSocket.getRemoteSocketAddress());
-					parseMessage(clientSocket, message);
-				} // close while
-			} catch (Exception ex) {
-				println("Error in receiving messages from the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-				// possible connection loss, removes the connection
-				removeConnection(clientSocket);
-			}
-		} // run
-	} // ClientHandler
-
-	private class ClientHandler2 implements Runnable {
-		private Socket clientSocket; // socket connection to the client
-
-		/**
-		 * Creates and returns an instance of the ClientHandler2 class.
-		 * 
-		 * @param clientSocket
-		 *            the socket connection to the client
-		 */
-		public ClientHandler2(Socket clientSocket) {
-			this.clientSocket = clientSocket;
-		} // constructor
-
-		// implementation of method from the Runnable interface
-		public void run() {
-			try {
-				// creates an ObjectOutputStream and chains it to the
-				// OutputStream
-				// of the client socket
-				ObjectOutputStream oostream = new ObjectOutputStream(
-						clientSocket.getOutputStream());
-				// sends a FULL message to the client
-				oostream.writeObject(new CardGameMessage(CardGameMessage.FULL,
-						-1, null));
-				oostream.flush();
-			} catch (Exception ex) {
-				println("Error in sending a FULL message to the client at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
-			}
+	/**
+	 * Logs the specified message and exception at the specified level.
+	 * 
+	 * @param level
+	 *            ServerLog.DEBUG, ServerLog.INFO, ServerLog.WARN or
+	 *            ServerLog.ERROR
+	 * @param msg
+	 * @param ex
+	 */
+	void log(int level, String msg, Throwable ex) {
+		log.log(level, msg, ex);
+	}
 
-			// sleeps for 1000 milliseconds before closing the socket
-			try {
-				Thread.sleep(1000);
-			} catch (Exception ex) {
-				println("Error in sleeping before closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
+	/**
+	 * This inner class is used for showing the log in the text area. Batches
+	 * are collected on the writer thread of the log, and appended to the text
+	 * area on the event dispatch thread at most once per refresh interval,
+	 * keeping only the last MAX_CONSOLE_LENGTH characters.
+	 */
+	private class ConsoleLogSink implements LogSink {
+		// text received since the last refresh
+		private final StringBuilder pending = new StringBuilder();
+
+		private ConsoleLogSink() {
+			SwingUtilities.invokeLater(new Runnable() {
+				public void run() {
+					new Timer(CONSOLE_REFRESH_INTERVAL, new ActionListener() {
+						public void actionPerformed(ActionEvent e) {
+							refresh();
+						}
+					}).start();
+				}
+			});
+		}
+
+		public void write(String text) {
+			synchronized (pending) {
+				pending.append(text);
+				// no more than a full console is ever needed
+				if (pending.length() > MAX_CONSOLE_LENGTH) {
+					pending.delete(0, pending.length() - MAX_CONSOLE_LENGTH);
+				}
 			}
+		}
 
-			// closes the socket
-			try {
-				clientSocket.close();
-			} catch (Exception ex) {
-				println("Error in closing the client socket at "
-						+ clientSocket.getRemoteSocketAddress());
-				ex.printStackTrace();
+		private void refresh() {
+			String text;
+			synchronized (pending) {
+				if (pending.length() == 0) {
+					return;
+				}
+				text = pending.toString();
+				pending.setLength(0);
+			}
+			textArea.append(text);
+			int excess = textArea.getDocument().getLength() - MAX_CONSOLE_LENGTH;
+			if (excess > 0) {
+				textArea.replaceRange("", 0, excess);
 			}
-		} // run
-	} // ClientHandler2
+			textArea.setCaretPosition(textArea.getDocument().getLength());
+		}
+	} // ConsoleLogSink
 
 	/**
 	 * This inner class is used for handling the Clear menu
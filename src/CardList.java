@@ -1,14 +1,43 @@
+import java.io.IOException;
+import java.io.InvalidObjectException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamField;
 import java.io.Serializable;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * This class is used to represent a list of cards.
+ * <p>
+ * The cards are held in an array, together with a mask of the cards present
+ * (bit suit * 13 + rank), so that testing whether a card is in the list takes
+ * constant time and removing an absent card takes no search. Removing a
+ * present card still takes linear time: the list keeps its order and the
+ * indices of its cards, so the card is searched for and the cards after it
+ * are shifted to the left, which a map of the positions of the cards would
+ * not spare. Cards equal to each other may be added more than once.
+ * <p>
+ * A list is serialized in its original form, an ArrayList of the cards, so
+ * that it is exchanged with peers of earlier versions; the array and the mask
+ * are rebuilt from the cards when a list is deserialized.
  * 
  * @author Kenneth Wong
  */
 public class CardList implements Serializable {
 	private static final long serialVersionUID = -3711761437629470849L;
-	private ArrayList<Card> cards = new ArrayList<Card>();
+	// the serialized form: the cards of this list, in order
+	private static final ObjectStreamField[] serialPersistentFields = { new ObjectStreamField(
+			"cards", ArrayList.class) };
+	// the initial capacity of the array of cards
+	private static final int INITIAL_CAPACITY = 16;
+
+	// the cards of this list, in the first size entries of the array
+	private Card[] cards = new Card[INITIAL_CAPACITY];
+	// the number of cards in this list
+	private int size = 0;
+	// the mask of the cards present in this list, bit suit * 13 + rank
+	private long mask = 0L;
 
 	/**
 	 * Appends the specified card to the end of this list.
@@ -18,7 +47,11 @@ public class CardList implements Serializable {
 	 */
 	public void addCard(Card card) {
 		if (card != null) {
-			cards.add(card);
+			if (size == cards.length) {
+				cards = Arrays.copyOf(cards, 2 * size);
+			}
+			cards[size++] = card;
+			mask |= bit(card);
 		}
 	}
 
@@ -31,8 +64,8 @@ public class CardList implements Serializable {
 	 *         index is invalid
 	 */
 	public Card getCard(int i) {
-		if (i >= 0 && i < cards.size()) {
-			return cards.get(i);
+		if (i >= 0 && i < size) {
+			return cards[i];
 		} else {
 			return null;
 		}
@@ -48,8 +81,12 @@ public class CardList implements Serializable {
 	 *         invalid
 	 */
 	public Card removeCard(int i) {
-		if (i >= 0 && i < cards.size()) {
-			return cards.remove(i);
+		if (i >= 0 && i < size) {
+			Card card = cards[i];
+			System.arraycopy(cards, i + 1, cards, i, size - i - 1);
+			cards[--size] = null;
+			unmark(card);
+			return card;
 		} else {
 			return null;
 		}
@@ -59,21 +96,34 @@ public class CardList implements Serializable {
 	 * Removes the first occurrence of the specified card from this list, if it
 	 * is present. If the list does not contain the card, it remains unchanged.
 	 * Returns true if this list contained the specified card (or equivalently,
-	 * if this list changed as a result of the call).
+	 * if this list changed as a result of the call). An absent card is found
+	 * in constant time, but a present one is searched for and the subsequent
+	 * cards are shifted, in linear time.
 	 * 
 	 * @param card
 	 *            the card to be removed from this list, if presents
 	 * @return true if this list contained the specified card; otherwise false
 	 */
 	public boolean removeCard(Card card) {
-		return cards.remove(card);
+		if (!contains(card)) {
+			return false;
+		}
+		for (int i = 0; i < size; i++) {
+			if (cards[i] != null && card.equals(cards[i])) {
+				removeCard(i);
+				return true;
+			}
+		}
+		return false;
 	}
 
 	/**
 	 * Removes all cards from this list.
 	 */
 	public void removeAllCards() {
-		cards = new ArrayList<Card>();
+		Arrays.fill(cards, 0, size, null);
+		size = 0;
+		mask = 0L;
 	}
 
 	/**
@@ -88,13 +138,33 @@ public class CardList implements Serializable {
 	 *         the index is invalid
 	 */
 	public Card setCard(int i, Card card) {
-		if (i >= 0 && i < cards.size()) {
-			return cards.set(i, card);
+		if (i >= 0 && i < size) {
+			Card previous = cards[i];
+			cards[i] = card;
+			if (card != null) {
+				mask |= bit(card);
+			}
+			unmark(previous);
+			return previous;
 		} else {
 			return null;
 		}
 	}
 
+	/**
+	 * Swaps the cards at the specified positions in this list.
+	 * 
+	 * @param i
+	 *            the index of a card
+	 * @param j
+	 *            the index of another card
+	 */
+	protected void swapCards(int i, int j) {
+		Card card = cards[i];
+		cards[i] = cards[j];
+		cards[j] = card;
+	}
+
 	/**
 	 * Returns true if this list contains the specified card.
 	 * 
@@ -103,7 +173,7 @@ public class CardList implements Serializable {
 	 * @return true if this list contains the specified card; otherwise false
 	 */
 	public boolean contains(Card card) {
-		return cards.contains(card);
+		return card != null && (mask & bit(card)) != 0;
 	}
 
 	/**
@@ -112,14 +182,24 @@ public class CardList implements Serializable {
 	 * @return true if this list contains no cards; otherwise false
 	 */
 	public boolean isEmpty() {
-		return cards.isEmpty();
+		return size == 0;
 	}
 
 	/**
-	 * Sorts this list according to the order of the cards.
+	 * Sorts this list according to the order of the cards, e.g., the Big Two
+	 * order of a list of BigTwoCard. The sort is stable and in place.
 	 */
 	public void sort() {
-		cards.sort(null);
+		// insertion sort, as a list holds 52 cards at most in practice
+		for (int i = 1; i < size; i++) {
+			Card card = cards[i];
+			int j = i - 1;
+			while (j >= 0 && cards[j].compareTo(card) > 0) {
+				cards[j + 1] = cards[j];
+				j--;
+			}
+			cards[j + 1] = card;
+		}
 	}
 
 	/**
@@ -128,7 +208,7 @@ public class CardList implements Serializable {
 	 * @return the number of cards in this list
 	 */
 	public int size() {
-		return cards.size();
+		return size;
 	}
 
 	/**
@@ -150,14 +230,14 @@ public class CardList implements Serializable {
 	 *            of each card
 	 */
 	public void print(boolean printFront, boolean printIndex) {
-		if (cards.size() > 0) {
-			for (int i = 0; i < cards.size(); i++) {
+		if (size > 0) {
+			for (int i = 0; i < size; i++) {
 				String string = "";
 				if (printIndex) {
 					string = i + " ";
 				}
 				if (printFront) {
-					string = string + "[" + cards.get(i) + "]";
+					string = string + "[" + cards[i] + "]";
 				} else {
 					string = string + "[  ]";
 				}
@@ -165,7 +245,7 @@ public class CardList implements Serializable {
 					string = " " + string;
 				}
 				System.out.print(string);
-				if (i % 13 == 12 || i == cards.size() - 1) {
+				if (i % 13 == 12 || i == size - 1) {
 					System.out.println("");
 				}
 			}
@@ -181,10 +261,10 @@ public class CardList implements Serializable {
 	 */
 	public String toString() {
 		String string = "";
-		if (cards.size() > 0) {
-			for (int i = 0; i < cards.size(); i++) {
-				string = string + "[" + cards.get(i) + "]";
-				if (i != cards.size() - 1) {
+		if (size > 0) {
+			for (int i = 0; i < size; i++) {
+				string = string + "[" + cards[i] + "]";
+				if (i != size - 1) {
 					string = string + " ";
 				}
 			}
@@ -194,4 +274,68 @@ public class CardList implements Serializable {
 
 		return string;
 	}
+
+	/**
+	 * Writes this list in its serialized form, an ArrayList of the cards.
+	 */
+	private void writeObject(ObjectOutputStream out) throws IOException {
+		ArrayList<Card> list = new ArrayList<Card>(size);
+		for (int i = 0; i < size; i++) {
+			list.add(cards[i]);
+		}
+		ObjectOutputStream.PutField fields = out.putFields();
+		fields.put("cards", list);
+		out.writeFields();
+	}
+
+	/**
+	 * Reads this list from its serialized form, and rebuilds the array and the
+	 * mask of the cards.
+	 */
+	private void readObject(ObjectInputStream in) throws IOException,
+			ClassNotFoundException {
+		ObjectInputStream.GetField fields = in.readFields();
+		Object list = fields.get("cards", null);
+		if (!(list instanceof ArrayList)) {
+			throw new InvalidObjectException("Invalid list of cards");
+		}
+		ArrayList<?> read = (ArrayList<?>) list;
+		cards = new Card[Math.max(INITIAL_CAPACITY, read.size())];
+		size = 0;
+		mask = 0L;
+		for (Object card : read) {
+			if (!(card instanceof Card)) {
+				throw new InvalidObjectException("Invalid card: " + card);
+			}
+			cards[size++] = (Card) card;
+			mask |= bit((Card) card);
+		}
+	}
+
+	/**
+	 * Returns the bit of the specified card in the mask of the cards present,
+	 * or 0 for a hidden card.
+	 */
+	private static long bit(Card card) {
+		return card.isHidden() ? 0L : 1L << (card.getSuit() * 13 + card.getRank());
+	}
+
+	/**
+	 * Clears the bit of a card no longer in this list, unless an equal card is
+	 * still in this list.
+	 */
+	private void unmark(Card card) {
+		if (card == null) {
+			return;
+		}
+		if (size > Long.bitCount(mask) - 1) {
+			// there may be another copy of the card
+			for (int i = 0; i < size; i++) {
+				if (cards[i] != null && card.equals(cards[i])) {
+					return;
+				}
+			}
+		}
+		mask &= ~bit(card);
+	}
 }
@@ -0,0 +1,435 @@
+import java.awt.AlphaComposite;
+import java.awt.Graphics2D;
+import java.awt.GraphicsConfiguration;
+import java.awt.GraphicsEnvironment;
+import java.awt.RenderingHints;
+import java.awt.Transparency;
+import java.awt.geom.AffineTransform;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import javax.imageio.ImageIO;
+
+/**
+ * Models the images of the cards and the avatars drawn by a BigTwoTable,
+ * packed into one atlas of equally sized tiles.
+ * <p>
+ * The atlas is packed from the separate images of the cards and the avatars
+ * by main(), which the build runs to put the atlas and its tile size on the
+ * classpath, so that the client reads one image at startup. Without them
+ * (e.g. when run from src/ without the build), the atlas is packed at
+ * startup from the separate images, looked up on the classpath first, then
+ * under src/. The tiles are as large as the largest image, and every image is
+ * drawn into the top left corner of its tile at its own size. For
+ * every scale of the screen (e.g. 1.0, or 1.5 on a HiDPI display), the tiles
+ * are scaled once into a VolatileImage, so that drawing a card is an
+ * unscaled, accelerated copy. Tiles with only opaque and fully
+ * transparent pixels (the cards) are copied from a BITMASK image, which is
+ * cheaper to draw than a TRANSLUCENT one, needed for the avatars.
+ * <p>
+ * The tiles are laid out in 13 columns: one row per suit (Diamond, Club,
+ * Heart, Spade) with the cards from 'A' to 'K', then a row with the back of
+ * the cards followed by the 4 avatars.
+ */
+public class CardSpriteAtlas {
+	/**
+	 * The name of the packed atlas on the classpath.
+	 */
+	public static final String ATLAS_NAME = "cards/atlas.png";
+	/**
+	 * The name of the tile size of the packed atlas on the classpath.
+	 */
+	public static final String TILE_SIZE_NAME = "cards/atlas.properties";
+
+	private static final int COLUMNS = 13;
+	private static final int ROWS = 5;
+	// the tile of the back of the cards; the avatars follow it
+	private static final int BACK_TILE = 4 * 13;
+	private static final String[] SUITS = {"d","c","h","s"};
+	private static final char[] RANKS = {'a','2','3','4','5','6','7','8','9','t','j','q','k'};
+	// the transform drawing in device pixels, never modified
+	private static final AffineTransform IDENTITY = new AffineTransform();
+
+	private final BufferedImage atlas;
+	// the size of a tile, in pixels at scale 1
+	private final int tileWidth;
+	private final int tileHeight;
+	// whether each tile has partly transparent pixels
+	private final boolean[] translucent = new boolean[COLUMNS * ROWS];
+	// the scaled tiles for each scale, BITMASK and TRANSLUCENT, only used by
+	// the event dispatch thread
+	private final Map<Double, VolatileImage[]> scaledTiles = new HashMap<Double, VolatileImage[]>();
+	// the scale last drawn at and its tiles, looked up without boxing the scale
+	private double lastScale = 0;
+	private VolatileImage[] lastTiles;
+
+	/**
+	 * Constructor for creating an atlas from packed tiles.
+	 *
+	 * @param atlas (BufferedImage) Image of 13 x 5 tiles.
+	 * @param tileWidth (int) Width of a tile, in pixels.
+	 * @param tileHeight (int) Height of a tile, in pixels.
+	 */
+	public CardSpriteAtlas(BufferedImage atlas, int tileWidth, int tileHeight) {
+		if (tileWidth <= 0 || tileHeight <= 0 || atlas.getWidth() != COLUMNS * tileWidth
+				|| atlas.getHeight() != ROWS * tileHeight) {
+			throw new IllegalArgumentException("Invalid atlas size: " + atlas.getWidth() + "x" + atlas.getHeight());
+		}
+		this.atlas = toCompatibleImage(atlas);
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		for (int tile = 0; tile < translucent.length; tile++) {
+			translucent[tile] = isTranslucent(atlas, tile);
+		}
+	}
+
+	/**
+	 * Method for loading the atlas, from the packed atlas and its tile size
+	 * on the classpath if they are there, or else by packing the separate
+	 * images of the cards and the avatars.
+	 *
+	 * @return CardSpriteAtlas holding the images. Missing images are left blank.
+	 */
+	public static CardSpriteAtlas load() {
+		try {
+			BufferedImage packed = readResource(ATLAS_NAME);
+			Properties tileSize = readTileSize();
+			if (packed != null && tileSize != null) {
+				return new CardSpriteAtlas(packed, Integer.parseInt(tileSize.getProperty("tileWidth")),
+						Integer.parseInt(tileSize.getProperty("tileHeight")));
+			}
+		} catch (IOException | IllegalArgumentException ex) {
+			// packing the separate images instead
+		}
+		BufferedImage packed = pack(null, false);
+		return new CardSpriteAtlas(packed, packed.getWidth() / COLUMNS, packed.getHeight() / ROWS);
+	}
+
+	/**
+	 * Method for packing the separate images of the cards and the avatars
+	 * into tiles as large as the largest image.
+	 *
+	 * @param dir (File) Directory of the images, or null to look them up on
+	 *            the classpath first, then under src/.
+	 * @param required (boolean) Whether a missing or unreadable image is an
+	 *            error, rather than a blank tile.
+	 * @return BufferedImage of 13 x 5 tiles.
+	 */
+	private static BufferedImage pack(File dir, boolean required) {
+		String[] names = new String[BACK_TILE + 5];
+		for (int suit = 0; suit < 4; suit++) {
+			for (int rank = 0; rank < 13; rank++) {
+				names[suit * 13 + rank] = "cards/" + RANKS[rank] + SUITS[suit] + ".gif";
+			}
+		}
+		names[BACK_TILE] = "cards/b.gif";
+		for (int i = 0; i < 4; i++) {
+			names[BACK_TILE + 1 + i] = "avatars/Avatar_" + i + ".png";
+		}
+
+		BufferedImage[] images = new BufferedImage[names.length];
+		int tileWidth = 1;
+		int tileHeight = 1;
+		for (int tile = 0; tile < names.length; tile++) {
+			try {
+				images[tile] = read(dir, names[tile]);
+			} catch (IOException ex) {
+				if (required) {
+					throw new IllegalStateException("Cannot read " + names[tile], ex);
+				}
+			}
+			if (images[tile] != null) {
+				tileWidth = Math.max(tileWidth, images[tile].getWidth());
+				tileHeight = Math.max(tileHeight, images[tile].getHeight());
+			} else if (required) {
+				throw new IllegalStateException("Missing image: " + names[tile]);
+			}
+		}
+
+		BufferedImage packed = new BufferedImage(COLUMNS * tileWidth, ROWS * tileHeight, BufferedImage.TYPE_INT_ARGB);
+		Graphics2D g = packed.createGraphics();
+		for (int tile = 0; tile < images.length; tile++) {
+			if (images[tile] != null) {
+				g.drawImage(images[tile], (tile % COLUMNS) * tileWidth, (tile / COLUMNS) * tileHeight, null);
+			}
+		}
+		g.dispose();
+		return packed;
+	}
+
+	/**
+	 * Getter method for the width of a tile, as large as the widest image.
+	 *
+	 * @return int value of the width of a tile, in pixels at scale 1.
+	 */
+	public int getTileWidth() {
+		return tileWidth;
+	}
+
+	/**
+	 * Getter method for the height of a tile, as large as the tallest image.
+	 *
+	 * @return int value of the height of a tile, in pixels at scale 1.
+	 */
+	public int getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * Method for drawing the face of a card.
+	 *
+	 * @param g (Graphics2D) Graphics to draw on.
+	 * @param suit (int) Suit of the card (0 - 3).
+	 * @param rank (int) Rank of the card (0 - 12).
+	 * @param x (int) X-Coordinate of the card.
+	 * @param y (int) Y-Coordinate of the card.
+	 */
+	public void drawCard(Graphics2D g, int suit, int rank, int x, int y) {
+		drawTile(g, suit * 13 + rank, x, y);
+	}
+
+	/**
+	 * Method for drawing the back of a card.
+	 *
+	 * @param g (Graphics2D) Graphics to draw on.
+	 * @param x (int) X-Coordinate of the card.
+	 * @param y (int) Y-Coordinate of the card.
+	 */
+	public void drawBack(Graphics2D g, int x, int y) {
+		drawTile(g, BACK_TILE, x, y);
+	}
+
+	/**
+	 * Method for drawing the avatar of a player.
+	 *
+	 * @param g (Graphics2D) Graphics to draw on.
+	 * @param playerID (int) Index of the player (0 - 3).
+	 * @param x (int) X-Coordinate of the avatar.
+	 * @param y (int) Y-Coordinate of the avatar.
+	 */
+	public void drawAvatar(Graphics2D g, int playerID, int x, int y) {
+		drawTile(g, BACK_TILE + 1 + playerID, x, y);
+	}
+
+	/**
+	 * Method for drawing a tile. With a plain scaling transform (the scale of
+	 * the screen), the tile is copied from the VolatileImage of that scale in
+	 * device pixels. Otherwise it is drawn from the atlas through the transform.
+	 */
+	private void drawTile(Graphics2D g, int tile, int x, int y) {
+		int column = tile % COLUMNS;
+		int row = tile / COLUMNS;
+		AffineTransform transform = g.getTransform();
+		double scale = transform.getScaleX();
+		if (transform.getShearX() != 0 || transform.getShearY() != 0 || scale != transform.getScaleY() || scale <= 0) {
+			g.drawImage(atlas, x, y, x + tileWidth, y + tileHeight, column * tileWidth, row * tileHeight,
+					(column + 1) * tileWidth, (row + 1) * tileHeight, null);
+			return;
+		}
+
+		int width = scaledSize(tileWidth, scale);
+		int height = scaledSize(tileHeight, scale);
+		int deviceX = (int) Math.round(x * scale + transform.getTranslateX());
+		int deviceY = (int) Math.round(y * scale + transform.getTranslateY());
+		GraphicsConfiguration config = g.getDeviceConfiguration();
+		int transparency = translucent[tile] ? Transparency.TRANSLUCENT : Transparency.BITMASK;
+		g.setTransform(IDENTITY);
+		try {
+			VolatileImage tiles;
+			do {
+				tiles = getScaledTiles(scale, transparency, config);
+				g.drawImage(tiles, deviceX, deviceY, deviceX + width, deviceY + height, column * width, row * height,
+						(column + 1) * width, (row + 1) * height, null);
+			} while (tiles.contentsLost());
+		} finally {
+			g.setTransform(transform);
+		}
+	}
+
+	/**
+	 * Method for getting the tiles scaled for a scale with a transparency,
+	 * rendering them again if their contents were lost (e.g. after a change
+	 * of display mode).
+	 */
+	private VolatileImage getScaledTiles(double scale, int transparency, GraphicsConfiguration config) {
+		VolatileImage[] images = lastTiles;
+		if (scale != lastScale) {
+			images = scaledTiles.get(scale);
+			if (images == null) {
+				images = new VolatileImage[2];
+				scaledTiles.put(scale, images);
+			}
+			lastScale = scale;
+			lastTiles = images;
+		}
+		int kind = transparency == Transparency.BITMASK ? 0 : 1;
+		VolatileImage tiles = images[kind];
+		int status = tiles == null ? VolatileImage.IMAGE_INCOMPATIBLE : tiles.validate(config);
+		if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+			if (tiles != null) {
+				tiles.flush();
+			}
+			tiles = config.createCompatibleVolatileImage(COLUMNS * scaledSize(tileWidth, scale),
+					ROWS * scaledSize(tileHeight, scale), transparency);
+			images[kind] = tiles;
+			status = VolatileImage.IMAGE_RESTORED;
+		}
+		if (status == VolatileImage.IMAGE_RESTORED) {
+			renderTiles(tiles, scale);
+		}
+		return tiles;
+	}
+
+	/**
+	 * Method for scaling every tile of the atlas separately into an image, so
+	 * that the tiles do not bleed into each other.
+	 */
+	private void renderTiles(VolatileImage tiles, double scale) {
+		int width = scaledSize(tileWidth, scale);
+		int height = scaledSize(tileHeight, scale);
+		Graphics2D g = tiles.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+		for (int row = 0; row < ROWS; row++) {
+			for (int column = 0; column < COLUMNS; column++) {
+				g.drawImage(atlas, column * width, row * height, (column + 1) * width, (row + 1) * height,
+						column * tileWidth, row * tileHeight, (column + 1) * tileWidth, (row + 1) * tileHeight, null);
+			}
+		}
+		g.dispose();
+	}
+
+	/**
+	 * Method for checking whether a tile has partly transparent pixels.
+	 */
+	private boolean isTranslucent(BufferedImage image, int tile) {
+		int x = (tile % COLUMNS) * tileWidth;
+		int y = (tile / COLUMNS) * tileHeight;
+		for (int j = y; j < y + tileHeight; j++) {
+			for (int i = x; i < x + tileWidth; i++) {
+				int alpha = image.getRGB(i, j) >>> 24;
+				if (alpha != 0 && alpha != 0xFF) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	private static int scaledSize(int size, double scale) {
+		return (int) Math.ceil(size * scale);
+	}
+
+	/**
+	 * Method for reading an image from a directory, or else from the
+	 * classpath or src/.
+	 *
+	 * @return BufferedImage read, or null if there is no such image.
+	 */
+	private static BufferedImage read(File dir, String name) throws IOException {
+		if (dir != null) {
+			File file = new File(dir, name);
+			return file.isFile() ? ImageIO.read(file) : null;
+		}
+		BufferedImage image = readResource(name);
+		if (image != null) {
+			return image;
+		}
+		File file = new File("src/" + name);
+		return file.isFile() ? ImageIO.read(file) : null;
+	}
+
+	/**
+	 * Method for reading an image from the classpath.
+	 *
+	 * @return BufferedImage read, or null if there is no such image.
+	 */
+	private static BufferedImage readResource(String name) throws IOException {
+		InputStream in = CardSpriteAtlas.class.getResourceAsStream("/" + name);
+		if (in == null) {
+			return null;
+		}
+		try {
+			return ImageIO.read(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Method for reading the tile size of the packed atlas from the classpath.
+	 *
+	 * @return Properties holding "tileWidth" and "tileHeight", or null if
+	 *         there are none.
+	 */
+	private static Properties readTileSize() throws IOException {
+		InputStream in = CardSpriteAtlas.class.getResourceAsStream("/" + TILE_SIZE_NAME);
+		if (in == null) {
+			return null;
+		}
+		try {
+			Properties tileSize = new Properties();
+			tileSize.load(in);
+			return tileSize;
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Method for copying an image into the format of the screen, if any, so
+	 * that drawing it needs no conversion.
+	 */
+	private static BufferedImage toCompatibleImage(BufferedImage image) {
+		BufferedImage compatible;
+		if (GraphicsEnvironment.isHeadless()) {
+			compatible = new BufferedImage(image.getWidth(), image.getHeight(), BufferedImage.TYPE_INT_ARGB_PRE);
+		} else {
+			compatible = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+					.getDefaultConfiguration().createCompatibleImage(image.getWidth(), image.getHeight(), Transparency.TRANSLUCENT);
+		}
+		Graphics2D g = compatible.createGraphics();
+		g.setComposite(AlphaComposite.Src);
+		g.drawImage(image, 0, 0, null);
+		g.dispose();
+		return compatible;
+	}
+
+	/**
+	 * main() method for packing the images of the cards and the avatars into
+	 * the atlas and writing it with its tile size, to be put on the classpath
+	 * (the Gradle build runs it as the task "packAtlas").
+	 *
+	 * @param args (String[]) The directory of the images, src by default, and
+	 *            the directory the atlas is written to, build/generated/atlas
+	 *            by default.
+	 */
+	public static void main(String[] args) throws IOException {
+		File dir = new File(args.length > 0 ? args[0] : "src");
+		File outputDir = new File(args.length > 1 ? args[1] : "build/generated/atlas");
+		BufferedImage packed = pack(dir, true);
+		File atlasFile = new File(outputDir, ATLAS_NAME);
+		File tileSizeFile = new File(outputDir, TILE_SIZE_NAME);
+		atlasFile.getParentFile().mkdirs();
+		ImageIO.write(packed, "png", atlasFile);
+		// written without the date of Properties.store(), so that it only
+		// changes with the images
+		Writer out = new OutputStreamWriter(new FileOutputStream(tileSizeFile), StandardCharsets.ISO_8859_1);
+		try {
+			out.write("tileWidth=" + packed.getWidth() / COLUMNS + "\n");
+			out.write("tileHeight=" + packed.getHeight() / ROWS + "\n");
+		} finally {
+			out.close();
+		}
+		System.out.println("Packed " + (BACK_TILE + 5) + " images into " + atlasFile + " (" + atlasFile.length() + " bytes)");
+	}
+}
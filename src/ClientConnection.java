@@ -0,0 +1,626 @@
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to model a connection between a card game server and one
+ * of its clients. A non-blocking connection is owned by a single event loop,
+ * which performs all reads on it. Frames may be sent from any thread; they are
+ * queued and written out by the owning event loop. A blocking connection
+ * (without an event loop) is instead served by two threads of its own, one
+ * running readLoop() and the other running writeLoop().
+ * <p>
+ * The outbound queue is bounded. Once the bytes waiting to be written exceed
+ * the high-water mark, new frames are handled according to the backpressure
+ * policy of the connection, so that a slow client cannot make the server
+ * buffer without limit. Regardless of the policy, a connection whose queue
+ * exceeds HARD_LIMIT_FACTOR times the high-water mark is disconnected.
+ */
+public class ClientConnection {
+	/**
+	 * Backpressure policy dropping new chat messages (MSG) above the
+	 * high-water mark. Other messages are still queued.
+	 */
+	public static final int DROP_CHAT = 0;
+	/**
+	 * Backpressure policy discarding the oldest queued chat messages (MSG) to
+	 * make room above the high-water mark, so that the client catches up with
+	 * the most recent chat. Other messages are still queued.
+	 */
+	public static final int COALESCE = 1;
+	/**
+	 * Backpressure policy disconnecting the client as soon as the high-water
+	 * mark is exceeded.
+	 */
+	public static final int DISCONNECT = 2;
+	/**
+	 * The ratio between the hard limit and the high-water mark of the queue.
+	 */
+	public static final int HARD_LIMIT_FACTOR = 4;
+
+	// initial size of the buffer for incoming frames
+	private static final int INITIAL_BUFFER_SIZE = 1024;
+	// message type of the frames that are not messages (e.g., handshakes)
+	private static final int NO_TYPE = -1;
+
+	// the server this connection belongs to
+	private final CardGameServer server;
+	// the metrics of the server
+	private final ServerMetrics metrics;
+	// the channel of this connection
+	private final SocketChannel channel;
+	// the event loop owning this connection, or null for a blocking connection
+	private final EventLoop eventLoop;
+	// the remote address of the client, kept for logging after closing
+	private final SocketAddress remoteAddress;
+	// the selection key of the channel, set by the event loop
+	private SelectionKey key;
+	// buffer for accumulating incoming frames
+	private ByteBuffer readBuffer = ByteBuffer.allocate(INITIAL_BUFFER_SIZE);
+	// lock guarding the queue; not a monitor, so that a virtual thread
+	// waiting on it does not pin its carrier thread
+	private final ReentrantLock lock = new ReentrantLock();
+	// signalled when the writer of a blocking connection has work to do
+	private final Condition writable = lock.newCondition();
+	// queue of frames waiting to be written
+	private final ArrayDeque<OutboundFrame> writeQueue = new ArrayDeque<OutboundFrame>();
+	// the high-water mark of the queue, in bytes
+	private final int highWaterMark;
+	// the backpressure policy of this connection
+	private final int backpressurePolicy;
+	// number of bytes waiting to be written
+	private int queuedBytes = 0;
+	// largest number of bytes ever waiting to be written
+	private int maxQueuedBytes = 0;
+	// number of frames dropped by the backpressure policy
+	private long droppedFrames = 0;
+	// a boolean indicating if the connection closes once the queue is empty
+	private boolean closeAfterFlush = false;
+	// a boolean indicating if the connection is closed
+	private volatile boolean closed = false;
+	// the room of this connection, or null if not seated yet
+	private volatile GameRoom room = null;
+	// the slot (playerID) of this connection in its room
+	private volatile int slot = -1;
+	// the codec negotiated in the handshake, or null before the handshake
+	private volatile MessageCodec codec = null;
+
+	/**
+	 * Creates and returns an instance of the ClientConnection class.
+	 *
+	 * @param server
+	 *            the server this connection belongs to
+	 * @param channel
+	 *            the channel of this connection, non-blocking if it is owned by
+	 *            an event loop
+	 * @param eventLoop
+	 *            the event loop owning this connection, or null if the
+	 *            connection is served by readLoop() and writeLoop()
+	 */
+	public ClientConnection(CardGameServer server, SocketChannel channel,
+			EventLoop eventLoop) {
+		this.server = server;
+		this.metrics = server.getMetrics();
+		this.channel = channel;
+		this.eventLoop = eventLoop;
+		this.remoteAddress = channel.socket().getRemoteSocketAddress();
+		this.highWaterMark = server.getHighWaterMark();
+		this.backpressurePolicy = server.getBackpressurePolicy();
+		metrics.connectionOpened();
+	}
+
+	/**
+	 * Returns the channel of this connection.
+	 *
+	 * @return the channel of this connection
+	 */
+	public SocketChannel getChannel() {
+		return channel;
+	}
+
+	/**
+	 * Returns the remote address of the client.
+	 *
+	 * @return the remote address of the client
+	 */
+	public SocketAddress getRemoteSocketAddress() {
+		return remoteAddress;
+	}
+
+	/**
+	 * Returns the room of this connection.
+	 *
+	 * @return the room of this connection, or null if not seated yet
+	 */
+	public GameRoom getRoom() {
+		return room;
+	}
+
+	/**
+	 * Returns the slot (playerID) of this connection in its room.
+	 *
+	 * @return the slot of this connection, or -1 if not seated yet
+	 */
+	public int getSlot() {
+		return slot;
+	}
+
+	/**
+	 * Returns the codec negotiated for this connection.
+	 *
+	 * @return the codec of this connection, or null before the handshake
+	 */
+	public MessageCodec getCodec() {
+		return codec;
+	}
+
+	/**
+	 * Returns the number of bytes waiting to be written to the client.
+	 *
+	 * @return the number of bytes waiting to be written
+	 */
+	public int getQueuedBytes() {
+		lock.lock();
+		try {
+			return queuedBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of frames waiting to be written to the client.
+	 *
+	 * @return the number of frames waiting to be written
+	 */
+	public int getQueuedFrames() {
+		lock.lock();
+		try {
+			return writeQueue.size();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the largest number of bytes ever waiting to be written to the
+	 * client.
+	 *
+	 * @return the largest number of bytes ever waiting to be written
+	 */
+	public int getMaxQueuedBytes() {
+		lock.lock();
+		try {
+			return maxQueuedBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of frames dropped by the backpressure policy.
+	 *
+	 * @return the number of frames dropped
+	 */
+	public long getDroppedFrames() {
+		lock.lock();
+		try {
+			return droppedFrames;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Seats this connection at the specified slot of the specified room.
+	 *
+	 * @param room
+	 *            the room of this connection
+	 * @param slot
+	 *            the slot (playerID) of this connection in the room
+	 */
+	void setSeat(GameRoom room, int slot) {
+		this.room = room;
+		this.slot = slot;
+	}
+
+	/**
+	 * Sets the selection key of this connection. Called by the owning event
+	 * loop when the channel is registered.
+	 *
+	 * @param key
+	 *            the selection key of the channel
+	 */
+	void setKey(SelectionKey key) {
+		this.key = key;
+	}
+
+	/**
+	 * Sends the specified message to the client.
+	 *
+	 * @param message
+	 *            the message to be sent
+	 */
+	public void sendMessage(CardGameMessage message) {
+		try {
+			send(MessageFrames.encode(codec, message), message.getType());
+		} catch (IOException ex) {
+			server.log(ServerLog.ERROR,
+					"Error in encoding a message for the client at "
+							+ remoteAddress, ex);
+		}
+	}
+
+	/**
+	 * Queues the specified frame for writing, subject to the backpressure
+	 * policy of this connection. This method may be called from any thread.
+	 *
+	 * @param frame
+	 *            the frame to be sent
+	 * @param type
+	 *            the type of the message held by the frame
+	 */
+	public void send(ByteBuffer frame, int type) {
+		lock.lock();
+		try {
+			if (closed || closeAfterFlush) {
+				return;
+			}
+			if (!admit(frame.remaining(), type)) {
+				return;
+			}
+			enqueue(frame, type);
+			metrics.messageSent(type);
+			requestFlush();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Queues the specified frame for writing and closes the connection once
+	 * it has been written.
+	 *
+	 * @param frame
+	 *            the last frame to be sent
+	 */
+	public void sendAndClose(ByteBuffer frame) {
+		lock.lock();
+		try {
+			if (closed || closeAfterFlush) {
+				return;
+			}
+			enqueue(frame, NO_TYPE);
+			metrics.messageSent(NO_TYPE);
+			closeAfterFlush = true;
+			requestFlush();
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Wakes up the writer of this connection: the owning event loop, or the
+	 * thread running writeLoop(). Must be called with the queue locked.
+	 */
+	private void requestFlush() {
+		if (eventLoop != null) {
+			eventLoop.requestFlush(this);
+		} else {
+			writable.signal();
+		}
+	}
+
+	/**
+	 * Applies the backpressure policy to a new frame. Must be called with the
+	 * queue locked.
+	 *
+	 * @return true if the frame is to be queued; false if it is dropped
+	 */
+	private boolean admit(int length, int type) {
+		if (queuedBytes + length <= highWaterMark) {
+			return true;
+		}
+
+		boolean chat = (type == CardGameMessage.MSG);
+		if (backpressurePolicy == COALESCE && chat) {
+			// discards the oldest chat frames not being written yet
+			Iterator<OutboundFrame> it = writeQueue.iterator();
+			if (it.hasNext()) {
+				it.next(); // the head may be partially written
+			}
+			while (it.hasNext() && queuedBytes + length > highWaterMark) {
+				OutboundFrame queued = it.next();
+				if (queued.type == CardGameMessage.MSG) {
+					it.remove();
+					queuedBytes -= queued.frame.remaining();
+					dropFrames(1);
+				}
+			}
+			if (queuedBytes + length <= highWaterMark) {
+				return true;
+			}
+		}
+		if ((backpressurePolicy == DROP_CHAT || backpressurePolicy == COALESCE)
+				&& chat) {
+			dropFrames(1);
+			return false;
+		}
+		if (backpressurePolicy == DISCONNECT
+				|| queuedBytes + length > HARD_LIMIT_FACTOR * highWaterMark) {
+			server.log(ServerLog.WARN, "Disconnects the slow client at "
+					+ remoteAddress + " with " + queuedBytes + " bytes queued");
+			// the event loop closes the connection, so that the caller (who
+			// may hold the lock of the room) does not reenter the room
+			dropFrames(writeQueue.size() + 1);
+			writeQueue.clear();
+			queuedBytes = 0;
+			closeAfterFlush = true;
+			requestFlush();
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Adds a frame to the queue. Must be called with the queue locked.
+	 */
+	private void enqueue(ByteBuffer frame, int type) {
+		writeQueue.add(new OutboundFrame(frame, type));
+		queuedBytes += frame.remaining();
+		if (queuedBytes > maxQueuedBytes) {
+			maxQueuedBytes = queuedBytes;
+		}
+		metrics.recordQueueDepth(queuedBytes);
+	}
+
+	/**
+	 * Counts frames dropped by the backpressure policy. Must be called with
+	 * the queue locked.
+	 */
+	private void dropFrames(int n) {
+		droppedFrames += n;
+		metrics.framesDropped(n);
+	}
+
+	/**
+	 * Reads the available bytes from the channel and dispatches every complete
+	 * frame to the room. Called by the owning event loop only, or by readLoop()
+	 * for a blocking connection.
+	 */
+	void handleRead() {
+		try {
+			int n = channel.read(readBuffer);
+			if (n < 0) {
+				close();
+				return;
+			}
+			metrics.bytesReceived(n);
+
+			readBuffer.flip();
+			if (codec == null) {
+				if (readBuffer.remaining() < MessageFrames.HANDSHAKE_LENGTH) {
+					readBuffer.compact();
+					return;
+				}
+				if (readBuffer.getInt() != MessageFrames.HANDSHAKE_MAGIC) {
+					throw new IOException("Invalid handshake");
+				}
+				// replies with the codec to be used and seats the connection
+				codec = MessageFrames.getCodec(readBuffer.get() & 0xFF);
+				send(MessageFrames.handshake(codec.getCodecID()), NO_TYPE);
+				server.seat(this);
+			}
+			while (readBuffer.remaining() >= MessageFrames.HEADER_LENGTH) {
+				int length = readBuffer.getInt(readBuffer.position());
+				if (length < 0 || length > MessageFrames.MAX_FRAME_LENGTH) {
+					throw new IOException("Invalid frame length: " + length);
+				}
+				if (readBuffer.remaining() < MessageFrames.HEADER_LENGTH + length) {
+					break;
+				}
+				int offset = readBuffer.position() + MessageFrames.HEADER_LENGTH;
+				GameMessage message = codec.decode(readBuffer.array(), offset,
+						length);
+				readBuffer.position(offset + length);
+				metrics.messageReceived(message.getType());
+
+				GameRoom currentRoom = room;
+				if (currentRoom != null) {
+					if (server.getLog().isEnabled(ServerLog.DEBUG)) {
+						server.log(ServerLog.DEBUG, "Message received from "
+								+ remoteAddress);
+					}
+					long start = System.nanoTime();
+					currentRoom.parseMessage(this, (CardGameMessage) message);
+					metrics.recordParseTime(System.nanoTime() - start);
+				}
+			}
+			readBuffer.compact();
+
+			// grows the buffer if the next frame does not fit in it
+			if (readBuffer.position() >= MessageFrames.HEADER_LENGTH) {
+				int needed = MessageFrames.HEADER_LENGTH + readBuffer.getInt(0);
+				if (needed > readBuffer.capacity()) {
+					ByteBuffer larger = ByteBuffer.allocate(needed);
+					readBuffer.flip();
+					larger.put(readBuffer);
+					readBuffer = larger;
+				}
+			}
+		} catch (Exception ex) {
+			if (!closed) {
+				server.log(ServerLog.ERROR,
+						"Error in receiving messages from the client at "
+								+ remoteAddress, ex);
+			}
+			// possible connection loss, removes the connection
+			close();
+		}
+	}
+
+	/**
+	 * Writes as many queued frames as the channel accepts. Called by the
+	 * owning event loop only.
+	 */
+	void handleWrite() {
+		boolean done = false;
+		lock.lock();
+		try {
+			if (closed || key == null) {
+				return;
+			}
+			try {
+				OutboundFrame queued;
+				while ((queued = writeQueue.peek()) != null) {
+					int written = channel.write(queued.frame);
+					queuedBytes -= written;
+					metrics.bytesSent(written);
+					if (queued.frame.hasRemaining()) {
+						break;
+					}
+					writeQueue.poll();
+				}
+			} catch (IOException ex) {
+				server.log(ServerLog.WARN,
+						"Error in sending a message to the client at "
+								+ remoteAddress);
+				writeQueue.clear();
+				queuedBytes = 0;
+				closeAfterFlush = true;
+			}
+
+			if (writeQueue.isEmpty()) {
+				key.interestOps(SelectionKey.OP_READ);
+				done = closeAfterFlush;
+			} else {
+				// waits until the channel becomes writable again
+				key.interestOps(SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+			}
+		} finally {
+			lock.unlock();
+		}
+		if (done) {
+			close();
+		}
+	}
+
+	/**
+	 * Reads and dispatches frames until the connection is closed. Run by the
+	 * reader thread of a blocking connection.
+	 */
+	void readLoop() {
+		while (!closed) {
+			handleRead();
+		}
+	}
+
+	/**
+	 * Writes the queued frames until the connection is closed. Run by the
+	 * writer thread of a blocking connection. The frame at the head of the
+	 * queue is written without holding the lock, so that a slow client never
+	 * blocks the threads sending to it.
+	 */
+	void writeLoop() {
+		while (true) {
+			OutboundFrame queued;
+			lock.lock();
+			try {
+				while (!closed && !closeAfterFlush && writeQueue.isEmpty()) {
+					writable.awaitUninterruptibly();
+				}
+				if (closed) {
+					return;
+				}
+				queued = writeQueue.peek();
+			} finally {
+				lock.unlock();
+			}
+			if (queued == null) {
+				// the queue is empty and the connection closes after flushing
+				break;
+			}
+
+			int length = queued.frame.remaining();
+			try {
+				while (queued.frame.hasRemaining()) {
+					channel.write(queued.frame);
+				}
+			} catch (IOException ex) {
+				if (!closed) {
+					server.log(ServerLog.WARN,
+							"Error in sending a message to the client at "
+									+ remoteAddress);
+				}
+				break;
+			}
+
+			lock.lock();
+			try {
+				// the queue may have been cleared by the backpressure policy
+				if (writeQueue.peek() == queued) {
+					writeQueue.poll();
+					queuedBytes -= length;
+				}
+				metrics.bytesSent(length);
+			} finally {
+				lock.unlock();
+			}
+		}
+		close();
+	}
+
+	/**
+	 * Closes this connection and removes it from its room.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			if (closed) {
+				return;
+			}
+			closed = true;
+			metrics.connectionClosed();
+			writeQueue.clear();
+			queuedBytes = 0;
+			writable.signalAll();
+		} finally {
+			lock.unlock();
+		}
+
+		try {
+			if (key != null) {
+				key.cancel();
+			}
+			channel.close();
+		} catch (IOException ex) {
+			server.log(ServerLog.ERROR, "Error in closing the client socket at "
+					+ remoteAddress, ex);
+		}
+
+		GameRoom currentRoom = room;
+		if (currentRoom != null) {
+			currentRoom.removeConnection(this);
+		}
+	}
+
+	/**
+	 * A frame waiting to be written, together with the type of the message it
+	 * holds.
+	 */
+	private static class OutboundFrame {
+		private final ByteBuffer frame;
+		private final int type;
+
+		private OutboundFrame(ByteBuffer frame, int type) {
+			this.frame = frame;
+			this.type = type;
+		}
+	} // OutboundFrame
+}
@@ -1,3 +1,7 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
 /**
  * This class is used to represent a deck of cards in general card games.
  * 
@@ -5,6 +9,10 @@
  */
 public class Deck extends CardList {
 	private static final long serialVersionUID = -3886066435694112173L;
+	// the seed of the last shuffle, if it was shuffled with a seed
+	private transient long seed = 0;
+	// a boolean indicating if the last shuffle was done with a seed
+	private transient boolean seeded = false;
 	
 	/**
 	 * Creates and returns an instance of the Deck class.
@@ -20,22 +28,62 @@ public class Deck extends CardList {
 		removeAllCards();
 		for (int i = 0; i < 4; i++) {
 			for (int j = 0; j < 13; j++) {
-				Card card = new Card(i, j);
-				addCard(card);
+				addCard(Card.valueOf(i, j));
 			}
 		}
 	}
 
 	/**
-	 * Shuffles the deck of cards.
+	 * Shuffles the deck of cards with a seed drawn at random. The seed is
+	 * recorded (see getSeed()), so that the deal can be replayed.
 	 */
 	public void shuffle() {
-		for (int i = 0; i < this.size(); i++) {
-			int j = (int) (Math.random() * this.size());
-			if (i != j) {
-				Card card = setCard(i, getCard(j));
-				setCard(j, card);
-			}
+		shuffle(ThreadLocalRandom.current().nextLong());
+	}
+
+	/**
+	 * Shuffles the deck of cards with the specified seed. A deck in the same
+	 * order is always shuffled into the same order with the same seed.
+	 * 
+	 * @param seed
+	 *            the seed of the shuffle
+	 */
+	public void shuffle(long seed) {
+		shuffle(new SplittableRandom(seed));
+		this.seed = seed;
+		seeded = true;
+	}
+
+	/**
+	 * Shuffles the deck of cards with the specified random number generator,
+	 * e.g., a SecureRandom. Every order of the cards is equally likely
+	 * (Fisher-Yates shuffle). No seed is recorded.
+	 * 
+	 * @param random
+	 *            the random number generator
+	 */
+	public void shuffle(RandomGenerator random) {
+		for (int i = size() - 1; i > 0; i--) {
+			swapCards(i, random.nextInt(i + 1));
 		}
+		seeded = false;
+	}
+
+	/**
+	 * Checks whether the last shuffle of the deck was done with a seed.
+	 * 
+	 * @return true if the deck was shuffled with a seed; false otherwise
+	 */
+	public boolean hasSeed() {
+		return seeded;
+	}
+
+	/**
+	 * Returns the seed of the last shuffle of the deck.
+	 * 
+	 * @return the seed of the last shuffle, if hasSeed() returns true
+	 */
+	public long getSeed() {
+		return seed;
 	}
 }
@@ -0,0 +1,166 @@
+import java.security.SecureRandom;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * This class is used to check that the shuffles of a deck (see Deck) are
+ * fair. A deck is shuffled many times from its initial order with each
+ * random number generator, and the number of times each card lands at each
+ * position is counted. For a fair shuffle, every card lands at every position
+ * with probability 1/52, and the chi-square statistic of the 52 x 52 counts
+ * follows the chi-square distribution with 51 x 51 degrees of freedom. The
+ * check of a generator fails if the statistic exceeds the critical value at
+ * p = 0.001.
+ * <p>
+ * The seeded shuffles are drawn from a fixed seed, so that their results are
+ * reproducible; ThreadLocalRandom and SecureRandom cannot be seeded, and fail
+ * the check by chance once in a thousand runs.
+ */
+public class DeckFairnessCheck {
+	/**
+	 * The default number of shuffles per generator.
+	 */
+	public static final int DEFAULT_NUM_OF_SHUFFLES = 1000000;
+	/**
+	 * The significance level of the check.
+	 */
+	public static final double P_VALUE = 0.001;
+
+	// the number of cards in a deck
+	private static final int NUM_OF_CARDS = 52;
+	// the quantile of the standard normal distribution at 1 - P_VALUE
+	private static final double Z_999 = 3.090232;
+	// the seed from which the seeded shuffles are drawn
+	private static final long SEED = 2396L;
+
+	private final int numOfShuffles;
+
+	/**
+	 * Creates and returns an instance of the DeckFairnessCheck class.
+	 *
+	 * @param numOfShuffles
+	 *            the number of shuffles per generator
+	 */
+	public DeckFairnessCheck(int numOfShuffles) {
+		this.numOfShuffles = numOfShuffles;
+	}
+
+	/**
+	 * Returns the critical value of the chi-square distribution at p = 0.001,
+	 * by the Wilson-Hilferty approximation.
+	 *
+	 * @param degreesOfFreedom
+	 *            the degrees of freedom
+	 * @return the critical value
+	 */
+	public static double criticalValue(int degreesOfFreedom) {
+		double a = 2.0 / (9.0 * degreesOfFreedom);
+		double b = 1 - a + Z_999 * Math.sqrt(a);
+		return degreesOfFreedom * b * b * b;
+	}
+
+	/**
+	 * Returns the chi-square statistic of the counts of the cards at the
+	 * positions of a deck shuffled a number of times.
+	 *
+	 * @param counts
+	 *            the number of times each card (suit * 13 + rank) has landed
+	 *            at each position, indexed by position and then by card
+	 * @param numOfShuffles
+	 *            the number of shuffles counted
+	 * @return the chi-square statistic
+	 */
+	public static double chiSquare(long[][] counts, int numOfShuffles) {
+		double expected = (double) numOfShuffles / NUM_OF_CARDS;
+		double chiSquare = 0;
+		for (long[] position : counts) {
+			for (long count : position) {
+				double d = count - expected;
+				chiSquare += d * d / expected;
+			}
+		}
+		return chiSquare;
+	}
+
+	/**
+	 * Shuffles a deck with a random number generator and checks the counts.
+	 *
+	 * @param name
+	 *            the name of the generator
+	 * @param random
+	 *            the generator
+	 * @return true if the shuffles are fair; otherwise false
+	 */
+	public boolean check(String name, RandomGenerator random) {
+		Deck deck = new Deck();
+		long[][] counts = new long[NUM_OF_CARDS][NUM_OF_CARDS];
+		for (int n = 0; n < numOfShuffles; n++) {
+			deck.initialize();
+			deck.shuffle(random);
+			count(deck, counts);
+		}
+		return report(name, counts);
+	}
+
+	/**
+	 * Shuffles a deck with seeds drawn from a fixed seed, as Deck.shuffle()
+	 * does with seeds drawn at random, and checks the counts.
+	 *
+	 * @return true if the shuffles are fair; otherwise false
+	 */
+	public boolean checkSeeded() {
+		SplittableRandom seeds = new SplittableRandom(SEED);
+		Deck deck = new Deck();
+		long[][] counts = new long[NUM_OF_CARDS][NUM_OF_CARDS];
+		for (int n = 0; n < numOfShuffles; n++) {
+			deck.initialize();
+			deck.shuffle(seeds.nextLong());
+			count(deck, counts);
+		}
+		return report("shuffle(seed)", counts);
+	}
+
+	/**
+	 * Counts the cards of a deck at their positions.
+	 */
+	private static void count(Deck deck, long[][] counts) {
+		for (int i = 0; i < NUM_OF_CARDS; i++) {
+			Card card = deck.getCard(i);
+			counts[i][card.getSuit() * 13 + card.getRank()]++;
+		}
+	}
+
+	/**
+	 * Prints the statistic of the counts of a generator against the critical
+	 * value.
+	 */
+	private boolean report(String name, long[][] counts) {
+		int degreesOfFreedom = (NUM_OF_CARDS - 1) * (NUM_OF_CARDS - 1);
+		double chiSquare = chiSquare(counts, numOfShuffles);
+		double criticalValue = criticalValue(degreesOfFreedom);
+		boolean fair = chiSquare <= criticalValue;
+		System.out.printf("%-30s chi-square %10.1f (df %d, critical %.1f at p=%s) %s%n",
+				name, chiSquare, degreesOfFreedom, criticalValue, P_VALUE,
+				fair ? "PASSED" : "FAILED");
+		return fair;
+	}
+
+	/**
+	 * Runs the check with each generator, and exits with status 1 if any of
+	 * them fails.
+	 *
+	 * @param args
+	 *            optionally the number of shuffles per generator
+	 */
+	public static void main(String[] args) {
+		int numOfShuffles = args.length > 0 ? Integer.parseInt(args[0])
+				: DEFAULT_NUM_OF_SHUFFLES;
+		DeckFairnessCheck check = new DeckFairnessCheck(numOfShuffles);
+		boolean fair = check.checkSeeded();
+		fair &= check.check("shuffle(SplittableRandom)", new SplittableRandom(SEED));
+		fair &= check.check("shuffle(ThreadLocalRandom)", ThreadLocalRandom.current());
+		fair &= check.check("shuffle(SecureRandom)", new SecureRandom());
+		System.exit(fair ? 0 : 1);
+	}
+}
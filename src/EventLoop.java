@@ -0,0 +1,119 @@
+import java.io.IOException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+/**
+ * This class is used to model an event loop of a card game server. Each event
+ * loop runs on its own thread and multiplexes the connections assigned to it
+ * with a single selector.
+ */
+public class EventLoop implements Runnable {
+	// the server this event loop belongs to
+	private final CardGameServer server;
+	// the selector of this event loop
+	private final Selector selector;
+	// connections waiting to be registered with the selector
+	private final ConcurrentLinkedQueue<ClientConnection> pendingRegistrations = new ConcurrentLinkedQueue<ClientConnection>();
+	// connections having frames waiting to be written
+	private final ConcurrentLinkedQueue<ClientConnection> pendingFlushes = new ConcurrentLinkedQueue<ClientConnection>();
+	// a boolean indicating if the event loop is running
+	private volatile boolean running = true;
+
+	/**
+	 * Creates and returns an instance of the EventLoop class.
+	 *
+	 * @param server
+	 *            the server this event loop belongs to
+	 * @throws IOException
+	 *             if the selector cannot be opened
+	 */
+	public EventLoop(CardGameServer server) throws IOException {
+		this.server = server;
+		this.selector = Selector.open();
+	}
+
+	/**
+	 * Hands the specified connection over to this event loop. This method may
+	 * be called from any thread.
+	 *
+	 * @param connection
+	 *            the connection to be registered
+	 */
+	public void register(ClientConnection connection) {
+		pendingRegistrations.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Requests the queued frames of the specified connection to be written.
+	 * This method may be called from any thread.
+	 *
+	 * @param connection
+	 *            the connection having frames to be written
+	 */
+	public void requestFlush(ClientConnection connection) {
+		pendingFlushes.add(connection);
+		selector.wakeup();
+	}
+
+	/**
+	 * Stops this event loop.
+	 */
+	public void shutdown() {
+		running = false;
+		selector.wakeup();
+	}
+
+	// implementation of method from the Runnable interface
+	public void run() {
+		while (running) {
+			try {
+				selector.select();
+			} catch (IOException ex) {
+				server.log(ServerLog.ERROR,
+						"Error in selecting ready connections", ex);
+				continue;
+			}
+
+			// registers new connections before flushing, so that frames sent
+			// on a new connection always find it registered
+			ClientConnection connection;
+			while ((connection = pendingRegistrations.poll()) != null) {
+				try {
+					SelectionKey key = connection.getChannel().register(
+							selector, SelectionKey.OP_READ, connection);
+					connection.setKey(key);
+				} catch (IOException ex) {
+					connection.close();
+				}
+			}
+			while ((connection = pendingFlushes.poll()) != null) {
+				connection.handleWrite();
+			}
+
+			Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+			while (it.hasNext()) {
+				SelectionKey key = it.next();
+				it.remove();
+				connection = (ClientConnection) key.attachment();
+				if (key.isValid() && key.isWritable()) {
+					connection.handleWrite();
+				}
+				if (key.isValid() && key.isReadable()) {
+					connection.handleRead();
+				}
+			}
+		} // while
+
+		try {
+			for (SelectionKey key : selector.keys()) {
+				((ClientConnection) key.attachment()).close();
+			}
+			selector.close();
+		} catch (IOException ex) {
+			server.log(ServerLog.ERROR, "Error in closing the selector", ex);
+		}
+	} // run
+}
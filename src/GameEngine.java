@@ -0,0 +1,72 @@
+/**
+ * An interface for the server-side engine of a card game. A room of a card
+ * game server owns one engine, which holds the authoritative state of the game
+ * (the deck, the cards of every player, and the current player) and validates
+ * every move before the move is broadcast to the clients.
+ */
+public interface GameEngine {
+	/**
+	 * Starts a new game with the specified deck.
+	 * 
+	 * @param deck
+	 *            the deck of (shuffled) cards to be used in this game
+	 */
+	public void start(Deck deck);
+
+	/**
+	 * Validates the move made by the player, and applies it to the state of
+	 * the game if it is legal.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player who makes the move
+	 * @param cardIdx
+	 *            the list of the indices of the cards selected by the player,
+	 *            or null for a pass
+	 * @return true if the move is legal and has been applied; false otherwise
+	 */
+	public boolean applyMove(int playerID, int[] cardIdx);
+
+	/**
+	 * Returns the cards in the hand of the specified player.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player
+	 * @return the list of cards in the hand of the player
+	 */
+	public CardList getCardsInHand(int playerID);
+
+	/**
+	 * Returns the cards played in the last move applied.
+	 * 
+	 * @return the list of cards played in the last move, or null if the last
+	 *         move was a pass
+	 */
+	public CardList getLastPlayed();
+
+	/**
+	 * Returns the index of the current player.
+	 * 
+	 * @return the index of the current player
+	 */
+	public int getCurrentIdx();
+
+	/**
+	 * Checks for end of game.
+	 * 
+	 * @return true if the game ends; false otherwise
+	 */
+	public boolean endOfGame();
+
+	/**
+	 * Returns a copy of the state of the game as seen by the specified player,
+	 * e.g. for a computer player to choose its move on. The copy holds the
+	 * cards of the player, only the numbers of cards of the other players, and
+	 * the hands played so far; it shares nothing that this engine modifies.
+	 * 
+	 * @param playerID
+	 *            the playerID of the player
+	 * @return the copy of the state of the game, or null if this engine does
+	 *         not provide one
+	 */
+	public CardGame getView(int playerID);
+}
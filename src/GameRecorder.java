@@ -0,0 +1,277 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to model an append-only log of the games played on a card
+ * game server, for dispute resolution and analytics. The log file is mapped
+ * into memory region by region, so that appending a game is a copy into the
+ * page cache without a system call. The games are read back by the GameReplay
+ * class.
+ * <p>
+ * A game is buffered by its room (see Game) and appended as one record when it
+ * ends, so that the games of different rooms never interleave. A record is laid
+ * out as follows (big-endian):
+ *
+ * <pre>
+ * byte    RECORD_MAGIC
+ * long    the time the game started, in ms since the epoch
+ * short   the id of the room
+ * byte[52] the shuffled deck, one byte per card (suit * 13 + rank)
+ * short   the number of moves
+ * short[] the moves, each (playerID &lt;&lt; 13) | mask, where mask is a 13-bit
+ *         mask of the indices of the cards played in the hand of the player,
+ *         or 0 for a pass
+ * byte    the playerID of the winner, or -1 if the game was aborted
+ * </pre>
+ *
+ * The end of the log is the first byte which is not RECORD_MAGIC, so that the
+ * unused part of the last mapped region is ignored after a crash.
+ */
+public class GameRecorder {
+	/**
+	 * The first byte of every record.
+	 */
+	public static final byte RECORD_MAGIC = 'G';
+	/**
+	 * The number of cards of the deck in a record.
+	 */
+	public static final int DECK_LENGTH = 52;
+	/**
+	 * The length of a record without its moves, in bytes.
+	 */
+	public static final int RECORD_OVERHEAD = 1 + 8 + 2 + DECK_LENGTH + 2 + 1;
+	/**
+	 * The largest index of a card in the hand of a player a move can hold.
+	 */
+	public static final int MAX_CARD_INDEX = 12;
+
+	// the size of a region of the file mapped at a time
+	private static final int REGION_SIZE = 16 * 1024 * 1024;
+	// the largest number of moves of a record
+	private static final int MAX_NUM_OF_MOVES = Short.MAX_VALUE;
+
+	// the channel of the log file
+	private final FileChannel channel;
+	// the region of the file being appended to
+	private MappedByteBuffer region;
+	// the position of the region in the file
+	private long regionPosition;
+	// the position of the end of the log in the file
+	private long position;
+	// lock guarding the appends
+	private final ReentrantLock lock = new ReentrantLock();
+	// a boolean indicating if the log is open
+	private boolean open = true;
+
+	/**
+	 * Creates and returns an instance of the GameRecorder class, appending to
+	 * the specified file. The file is created if it does not exist.
+	 *
+	 * @param path
+	 *            the path of the log file
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public GameRecorder(String path) throws IOException {
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE);
+		position = findEnd();
+		map(position);
+
+		// drops the unused part of the last region when the process exits
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			public void run() {
+				close();
+			}
+		}));
+	}
+
+	/**
+	 * Starts recording a game with the specified deck. The returned game
+	 * should be used by one room only, under the lock of that room.
+	 *
+	 * @param roomID
+	 *            the id of the room where the game is played
+	 * @param deck
+	 *            the shuffled deck of the game
+	 * @return the game being recorded
+	 */
+	public Game newGame(int roomID, Deck deck) {
+		return new Game(roomID, deck);
+	}
+
+	/**
+	 * Returns the length of the log, in bytes.
+	 *
+	 * @return the length of the log
+	 */
+	public long getLength() {
+		lock.lock();
+		try {
+			return position;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Writes the log to the storage device, and closes the log file. Games
+	 * ending afterwards are not recorded.
+	 */
+	public void close() {
+		lock.lock();
+		try {
+			if (!open) {
+				return;
+			}
+			open = false;
+			region.force();
+			region = null;
+			try {
+				// drops the unused part of the last region where supported
+				channel.truncate(position);
+			} catch (IOException ex) {
+				// the reader stops at the first byte which is not RECORD_MAGIC
+			}
+			channel.close();
+		} catch (IOException ex) {
+			// the log is closed anyway
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Appends a record to the log.
+	 */
+	private void append(byte[] record, int length) throws IOException {
+		lock.lock();
+		try {
+			if (!open) {
+				return;
+			}
+			if (position + length > regionPosition + region.capacity()) {
+				map(position);
+			}
+			region.put((int) (position - regionPosition), record, 0, length);
+			position += length;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Maps the region of the file starting at the specified position.
+	 */
+	private void map(long start) throws IOException {
+		region = channel.map(FileChannel.MapMode.READ_WRITE, start, REGION_SIZE);
+		regionPosition = start;
+	}
+
+	/**
+	 * Returns the position after the last record of the log file.
+	 */
+	private long findEnd() throws IOException {
+		long size = channel.size();
+		long end = 0;
+		ByteBuffer header = ByteBuffer.allocate(RECORD_OVERHEAD - 1);
+		while (end + RECORD_OVERHEAD <= size) {
+			header.clear();
+			channel.read(header, end);
+			if (header.get(0) != RECORD_MAGIC) {
+				break;
+			}
+			int numOfMoves = header.getShort(1 + 8 + 2 + DECK_LENGTH) & 0xFFFF;
+			long length = RECORD_OVERHEAD + 2L * numOfMoves;
+			if (end + length > size) {
+				break;
+			}
+			end += length;
+		}
+		return end;
+	}
+
+	/**
+	 * This inner class is used to model a game being recorded. Its moves are
+	 * buffered until the game ends, when its record is appended to the log.
+	 */
+	public class Game {
+		// the record being built
+		private byte[] record;
+		// the length of the record so far
+		private int length;
+		// the number of moves of the record
+		private int numOfMoves = 0;
+
+		/**
+		 * Creates and returns an instance of the Game class, holding the
+		 * header and the deck of the record.
+		 */
+		private Game(int roomID, Deck deck) {
+			record = new byte[RECORD_OVERHEAD + 2 * 64];
+			ByteBuffer buffer = ByteBuffer.wrap(record);
+			buffer.put(RECORD_MAGIC);
+			buffer.putLong(System.currentTimeMillis());
+			buffer.putShort((short) roomID);
+			for (int i = 0; i < DECK_LENGTH; i++) {
+				Card card = deck.getCard(i);
+				buffer.put((byte) (card.getSuit() * 13 + card.getRank()));
+			}
+			// the number of moves is filled in when the game ends
+			length = buffer.position() + 2;
+		}
+
+		/**
+		 * Records a move applied to the game. The indices refer to the hand
+		 * of the player before the move, as in a MOVE message.
+		 *
+		 * @param playerID
+		 *            the playerID of the player who makes the move
+		 * @param cardIdx
+		 *            the list of the indices of the cards played, or null for
+		 *            a pass
+		 */
+		public void addMove(int playerID, int[] cardIdx) {
+			if (numOfMoves == MAX_NUM_OF_MOVES) {
+				return;
+			}
+			int mask = 0;
+			if (cardIdx != null) {
+				for (int idx : cardIdx) {
+					if (idx >= 0 && idx <= MAX_CARD_INDEX) {
+						mask |= 1 << idx;
+					}
+				}
+			}
+			if (length + 3 > record.length) {
+				record = Arrays.copyOf(record, 2 * record.length);
+			}
+			int move = (playerID << 13) | mask;
+			record[length++] = (byte) (move >> 8);
+			record[length++] = (byte) move;
+			numOfMoves++;
+		}
+
+		/**
+		 * Ends the game, and appends its record to the log.
+		 *
+		 * @param winner
+		 *            the playerID of the winner, or -1 if the game was aborted
+		 * @throws IOException
+		 *             if the log file cannot be extended
+		 */
+		public void end(int winner) throws IOException {
+			int movesPosition = RECORD_OVERHEAD - 1 - 2;
+			record[movesPosition] = (byte) (numOfMoves >> 8);
+			record[movesPosition + 1] = (byte) numOfMoves;
+			record[length] = (byte) winner;
+			append(record, length + 1);
+		}
+	}
+}
@@ -0,0 +1,270 @@
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * This class is used to read back the games of a log written by the
+ * GameRecorder class, and to replay them through a Big Two game. The log is
+ * mapped into memory region by region, and the games are decoded without
+ * copying: the deck and the card indices of the moves are shared objects, valid
+ * until the next game is read.
+ */
+public class GameReplay {
+	// the size of a region of the file mapped at a time
+	private static final int REGION_SIZE = 64 * 1024 * 1024;
+	// the longest record, in bytes
+	private static final int MAX_RECORD_LENGTH = GameRecorder.RECORD_OVERHEAD + 2 * 0xFFFF;
+	// the card indices of each 13-bit mask of a move
+	private static final int[][] CARD_IDX = new int[1 << (GameRecorder.MAX_CARD_INDEX + 1)][];
+	// the cards of each card number (suit * 13 + rank)
+	private static final Card[] CARDS = new Card[GameRecorder.DECK_LENGTH];
+
+	static {
+		for (int mask = 1; mask < CARD_IDX.length; mask++) {
+			int[] cardIdx = new int[Integer.bitCount(mask)];
+			int bits = mask;
+			for (int i = 0; i < cardIdx.length; i++) {
+				cardIdx[i] = Integer.numberOfTrailingZeros(bits);
+				bits &= bits - 1;
+			}
+			CARD_IDX[mask] = cardIdx;
+		}
+		for (int i = 0; i < CARDS.length; i++) {
+			CARDS[i] = BigTwoGame.toCard(i);
+		}
+	}
+
+	private final FileChannel channel;
+	private final long size;
+	private MappedByteBuffer region;
+	private long regionPosition;
+	private long position = 0;
+
+	private final Deck deck = new BigTwoDeck();
+	private long startTime;
+	private int roomID;
+	private int[] moves = new int[64];
+	private int numOfMoves;
+	private int winner;
+
+	/**
+	 * Constructor for opening a log of games for reading.
+	 *
+	 * @param path (String) The path of the log file.
+	 * @throws IOException if the file cannot be opened.
+	 */
+	public GameReplay(String path) throws IOException {
+		channel = FileChannel.open(Paths.get(path), StandardOpenOption.READ);
+		size = channel.size();
+		map(0);
+	}
+
+	/**
+	 * Method for reading the next game of the log.
+	 *
+	 * @return true (boolean) if a game has been read.<p>false (boolean) at the end of the log.
+	 * @throws IOException if the file cannot be read.
+	 */
+	public boolean next() throws IOException {
+		if (position + GameRecorder.RECORD_OVERHEAD > size) {
+			return false;
+		}
+		if (position + MAX_RECORD_LENGTH > regionPosition + region.capacity()
+				&& regionPosition + region.capacity() < size) {
+			map(position);
+		}
+		int offset = (int) (position - regionPosition);
+		if (region.get(offset) != GameRecorder.RECORD_MAGIC) {
+			return false;
+		}
+		offset++;
+		startTime = region.getLong(offset);
+		offset += 8;
+		roomID = region.getShort(offset) & 0xFFFF;
+		offset += 2;
+
+		deck.removeAllCards();
+		for (int i = 0; i < GameRecorder.DECK_LENGTH; i++) {
+			int card = region.get(offset++);
+			if (card < 0 || card >= CARDS.length) {
+				throw new IOException("Invalid card in record at " + position);
+			}
+			deck.addCard(CARDS[card]);
+		}
+
+		numOfMoves = region.getShort(offset) & 0xFFFF;
+		offset += 2;
+		long length = GameRecorder.RECORD_OVERHEAD + 2L * numOfMoves;
+		if (position + length > size) {
+			// a record cut short by a crash
+			return false;
+		}
+		if (numOfMoves > moves.length) {
+			moves = new int[numOfMoves];
+		}
+		for (int i = 0; i < numOfMoves; i++) {
+			moves[i] = region.getShort(offset) & 0xFFFF;
+			offset += 2;
+		}
+		winner = region.get(offset);
+		position += length;
+		return true;
+	}
+
+	/**
+	 * Getter method for the time the current game started.
+	 *
+	 * @return (long) The time, in ms since the epoch.
+	 */
+	public long getStartTime() {
+		return startTime;
+	}
+
+	/**
+	 * Getter method for the id of the room of the current game.
+	 *
+	 * @return (int) The id of the room.
+	 */
+	public int getRoomID() {
+		return roomID;
+	}
+
+	/**
+	 * Getter method for the shuffled deck of the current game.
+	 * The deck is reused for the next game.
+	 *
+	 * @return Deck of the current game.
+	 */
+	public Deck getDeck() {
+		return deck;
+	}
+
+	/**
+	 * Getter method for the number of moves of the current game.
+	 *
+	 * @return (int) The number of moves.
+	 */
+	public int getNumOfMoves() {
+		return numOfMoves;
+	}
+
+	/**
+	 * Getter method for the player making a move of the current game.
+	 *
+	 * @param i (int) The index of the move.
+	 * @return (int) The index of the player making the move.
+	 */
+	public int getPlayerID(int i) {
+		return moves[i] >> 13;
+	}
+
+	/**
+	 * Getter method for the card indices of a move of the current game.
+	 * The array is shared, and must not be modified.
+	 *
+	 * @param i (int) The index of the move.
+	 * @return int[] of the indices of the cards played, or null for a pass.
+	 */
+	public int[] getCardIdx(int i) {
+		return CARD_IDX[moves[i] & 0x1FFF];
+	}
+
+	/**
+	 * Getter method for the winner of the current game.
+	 *
+	 * @return (int) The index of the winner, or -1 if the game was aborted.
+	 */
+	public int getWinner() {
+		return winner;
+	}
+
+	/**
+	 * Method for replaying the current game through a game engine,
+	 * checking every move and the result.
+	 *
+	 * @param engine (GameEngine) The engine replaying the game, e.g. a BigTwoGame.
+	 * @return true (boolean) if every move is legal and the winner is as recorded.<p>false (boolean) otherwise.
+	 */
+	public boolean verify(GameEngine engine) {
+		engine.start(deck);
+		for (int i = 0; i < numOfMoves; i++) {
+			if (!engine.applyMove(getPlayerID(i), getCardIdx(i))) {
+				return false;
+			}
+		}
+		if (winner < 0) {
+			return !engine.endOfGame();
+		}
+		return engine.endOfGame() && numOfMoves > 0 && getPlayerID(numOfMoves - 1) == winner;
+	}
+
+	/**
+	 * Method for replaying the current game through a card game,
+	 * e.g. to show it in a BigTwoClient, with its checkMove() logic.
+	 *
+	 * @param game (CardGame) The card game replaying the game.
+	 */
+	public void replay(CardGame game) {
+		game.start(deck);
+		for (int i = 0; i < numOfMoves; i++) {
+			game.checkMove(getPlayerID(i), getCardIdx(i));
+		}
+	}
+
+	/**
+	 * Method for closing the log file.
+	 */
+	public void close() {
+		try {
+			channel.close();
+		} catch (IOException e) {
+			// doing nothing
+		}
+	}
+
+	/**
+	 * Maps the region of the file starting at the specified position.
+	 */
+	private void map(long start) throws IOException {
+		region = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(REGION_SIZE, size - start));
+		regionPosition = start;
+	}
+
+	/**
+	 * main() method for verifying every game of a log and reporting the replay rate.
+	 *
+	 * @param args (String[]) The path of the log file.
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.out.println("Usage: java GameReplay <log file>");
+			return;
+		}
+		GameReplay replay = new GameReplay(args[0]);
+		BigTwoGame game = new BigTwoGame();
+		long numOfGames = 0;
+		long numOfAborted = 0;
+		long numOfInvalid = 0;
+		long numOfMoves = 0;
+		long startTime = System.nanoTime();
+		while (replay.next()) {
+			numOfGames++;
+			numOfMoves += replay.getNumOfMoves();
+			if (replay.getWinner() < 0) {
+				numOfAborted++;
+			}
+			if (!replay.verify(game)) {
+				numOfInvalid++;
+				System.out.println("Invalid game in room " + replay.getRoomID() + " started at " + replay.getStartTime());
+			}
+		}
+		double seconds = (System.nanoTime() - startTime) / 1e9;
+		replay.close();
+
+		System.out.println("Games:     " + numOfGames + " (" + numOfAborted + " aborted, " + numOfInvalid + " invalid)");
+		System.out.println("Moves:     " + numOfMoves);
+		System.out.printf("Moves/sec: %.0f%n", numOfMoves / seconds);
+	}
+}
@@ -0,0 +1,813 @@
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.random.RandomGenerator;
+
+/**
+ * This class is used to model a room (a table) of a card game server. Each
+ * room holds its own player slots and runs its own card game, independently of
+ * the other rooms of the server.
+ * <p>
+ * The state of a room is guarded by a ReentrantLock rather than by the
+ * monitor of the room, so that the room may also be entered from virtual
+ * threads without pinning their carrier threads. The private methods of a
+ * room are always called with the lock held. Only the actions within the same
+ * room contend for its lock; seats are reserved without any lock, so that a
+ * full room is passed over without waiting for its game traffic.
+ * <p>
+ * If the server has a BotStrategy, the seats left empty are filled with
+ * computer players, which have no connection and are always ready, and a
+ * player leaving a game in progress is taken over by a computer player. The
+ * moves of the computer players are chosen on the bot executor of the server,
+ * on a copy of the game taken with the lock of the room held, and applied
+ * with the lock held again.
+ */
+public class GameRoom {
+	// the server hosting this room
+	private final CardGameServer server;
+	// the metrics of the server
+	private final ServerMetrics metrics;
+	// the id of this room
+	private final int roomID;
+	// The maximum number of players in a card game
+	private final int maxNumOfPlayers;
+	// Array for holding connections of the clients
+	private ClientConnection[] clientConnections;
+	// Array for holding player names of the clients
+	private String[] clientNames;
+	// Array for holding ready states of the clients
+	private boolean[] clientReadyStates;
+	// Array for holding whether each seat is taken by a computer player
+	private boolean[] bots;
+	// number of current players, including the computer players
+	private int numOfPlayers = 0;
+	// number of computer players
+	private int numOfBots = 0;
+	// a boolean indicating if the empty seats are to be filled
+	private boolean fillScheduled = false;
+	// number of moves applied, telling a scheduled bot move if it is stale
+	private int numOfMoves = 0;
+	// number of seats taken or being taken, updated without the lock
+	private final AtomicInteger numOfReservedSeats = new AtomicInteger();
+	// the engine validating the moves, or null if moves are not validated
+	private final GameEngine engine;
+	// a boolean indicating if a game is in progress
+	private boolean gameInProgress = false;
+	// the record of the game in progress, or null if it is not recorded
+	private GameRecorder.Game record = null;
+	// lock guarding the state of this room
+	private final ReentrantLock lock = new ReentrantLock();
+
+	/**
+	 * Creates and returns an instance of the GameRoom class.
+	 *
+	 * @param server
+	 *            the server hosting this room
+	 * @param roomID
+	 *            the id of this room
+	 * @param maxNumOfPlayers
+	 *            the maximum number of players in a card game
+	 */
+	public GameRoom(CardGameServer server, int roomID, int maxNumOfPlayers) {
+		this.server = server;
+		this.metrics = server.getMetrics();
+		this.roomID = roomID;
+		this.maxNumOfPlayers = maxNumOfPlayers;
+
+		// creates arrays for holding client connections, player names, and
+		// ready states
+		clientConnections = new ClientConnection[maxNumOfPlayers];
+		clientNames = new String[maxNumOfPlayers];
+		clientReadyStates = new boolean[maxNumOfPlayers];
+		bots = new boolean[maxNumOfPlayers];
+
+		engine = server.createGameEngine();
+	}
+
+	/**
+	 * Returns the id of this room.
+	 *
+	 * @return the id of this room
+	 */
+	public int getRoomID() {
+		return roomID;
+	}
+
+	/**
+	 * Returns the number of players in this room.
+	 *
+	 * @return the number of players in this room
+	 */
+	public int getNumOfPlayers() {
+		lock.lock();
+		try {
+			return numOfPlayers;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Returns the number of bytes waiting to be sent to the clients in this
+	 * room.
+	 *
+	 * @return the number of bytes waiting to be sent
+	 */
+	public long getQueuedBytes() {
+		lock.lock();
+		try {
+			long queuedBytes = 0;
+			for (ClientConnection connection : clientConnections) {
+				if (connection != null) {
+					queuedBytes += connection.getQueuedBytes();
+				}
+			}
+			return queuedBytes;
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Locks this room. The lock is first tried without reading the clock, and
+	 * only if it is held by another thread is the time waited for it recorded
+	 * in the metrics of the server.
+	 */
+	private void lockRoom() {
+		if (lock.tryLock()) {
+			return;
+		}
+		long start = System.nanoTime();
+		lock.lock();
+		metrics.recordLockWait(System.nanoTime() - start);
+	} // lockRoom
+
+	/**
+	 * Parses the incoming message from the specified client.
+	 *
+	 * @param connection
+	 *            the connection to the specified client
+	 * @param message
+	 *            the message received from the specified client
+	 */
+	public void parseMessage(ClientConnection connection,
+			CardGameMessage message) {
+		lockRoom();
+		try {
+			int i = connection.getSlot();
+			if (clientConnections[i] != connection) {
+				// the connection has already left the room
+				return;
+			}
+			// updates the playerID
+			message.setPlayerID(i);
+
+			// parses the message based on it type
+			switch (message.getType()) {
+			case CardGameMessage.JOIN:
+				// adds a player to the game
+				addPlayer(connection, (String) message.getData());
+				break;
+			case CardGameMessage.READY:
+				// marks the specified player as ready for a new game
+				setReadyState(connection);
+				break;
+			case CardGameMessage.MOVE:
+				if (engine == null) {
+					debug("Broadcasts a \"MOVE\" message from ", connection);
+					// broadcast the MOVE message to all clients
+					broadcastMessage(message);
+				} else {
+					// validates the move before broadcasting it
+					makeMove(connection, message);
+				}
+				break;
+			case CardGameMessage.MSG:
+				debug("Broadcasts a user message from ", connection);
+				// broadcast the user message to all clients
+				broadcastUserMessage(connection, (String) message.getData());
+				break;
+			default:
+				log(ServerLog.WARN, "Wrong message type: " + message.getType());
+				// invalid message
+				break;
+			}
+		} finally {
+			lock.unlock();
+		}
+	} // parseMessage
+
+	/**
+	 * Broadcasts the specified message to all clients in this room. The
+	 * message is encoded once per codec in use, and the resulting read-only
+	 * frame is shared by all the clients using that codec.
+	 *
+	 * @param message
+	 *            the specified message to be broadcast to all clients
+	 */
+	private void broadcastMessage(CardGameMessage message) {
+		long start = System.nanoTime();
+		if (numOfPlayers > 0) {
+			MessageCodec[] codecs = new MessageCodec[maxNumOfPlayers];
+			ByteBuffer[] frames = new ByteBuffer[maxNumOfPlayers];
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				ClientConnection connection = clientConnections[i];
+				if (connection == null) {
+					continue;
+				}
+				MessageCodec codec = connection.getCodec();
+				int j = 0;
+				while (codecs[j] != null && codecs[j] != codec) {
+					j++;
+				}
+				if (codecs[j] == null) {
+					try {
+						frames[j] = MessageFrames.encode(codec, message)
+								.asReadOnlyBuffer();
+					} catch (IOException ex) {
+						log(ServerLog.ERROR,
+								"Error in encoding a message for broadcast", ex);
+						return;
+					}
+					codecs[j] = codec;
+				}
+				// each client gets its own position on the shared frame
+				connection.send(frames[j].duplicate(), message.getType());
+			}
+		}
+		metrics.recordBroadcastTime(System.nanoTime() - start);
+	} // broadcastMessage
+
+	/**
+	 * Validates the specified move with the engine. A legal move is applied
+	 * and the cards played are broadcast to all clients in a PLAYED message;
+	 * an illegal move is only sent back to its player, and a move out of turn
+	 * is ignored.
+	 *
+	 * @param connection
+	 *            the connection to the player who makes the move
+	 * @param message
+	 *            the MOVE message received from the player
+	 */
+	private void makeMove(ClientConnection connection,
+			CardGameMessage message) {
+		int i = connection.getSlot();
+		if (!gameInProgress || i != engine.getCurrentIdx()) {
+			log(ServerLog.WARN, "Ignores a \"MOVE\" message out of turn from "
+					+ connection.getRemoteSocketAddress());
+			return;
+		}
+
+		if (engine.applyMove(i, (int[]) message.getData())) {
+			debug("Broadcasts a \"PLAYED\" message from ", connection);
+			movePlayed(i, (int[]) message.getData());
+		} else {
+			log(ServerLog.WARN, "Rejects an illegal \"MOVE\" message from "
+					+ connection.getRemoteSocketAddress());
+			// lets the player's client report the illegal move
+			connection.sendMessage(message);
+		}
+	} // makeMove
+
+	/**
+	 * Records and broadcasts a move which has just been applied by the engine,
+	 * and lets the next player move if it is a computer player.
+	 *
+	 * @param i
+	 *            the playerID of the player who made the move
+	 * @param cardIdx
+	 *            the indices of the cards played, or null for a pass
+	 */
+	private void movePlayed(int i, int[] cardIdx) {
+		numOfMoves++;
+		if (record != null) {
+			record.addMove(i, cardIdx);
+		}
+		broadcastMessage(new CardGameMessage(CardGameMessage.PLAYED, i,
+				toNumbers(engine.getLastPlayed())));
+		if (engine.endOfGame()) {
+			gameInProgress = false;
+			metrics.gameFinished();
+			endRecord(i);
+			println("Game ends.");
+		} else if (bots[engine.getCurrentIdx()]) {
+			scheduleBotMove();
+		}
+	} // movePlayed
+
+	/**
+	 * Schedules the move of the current player, a computer player, on the bot
+	 * executor of the server. The view of the game seen by the computer player
+	 * is copied with the lock held, and the move is chosen on the copy without
+	 * the lock, so that a slow strategy does not hold up the other actions in
+	 * this room. The move is dropped if another move has been applied or the
+	 * game has ended in the meantime.
+	 */
+	private void scheduleBotMove() {
+		final int moveNumber = numOfMoves;
+		server.getBotExecutor().execute(new Runnable() {
+			public void run() {
+				int i;
+				String name;
+				CardGame view;
+				lockRoom();
+				try {
+					if (!botToMove(moveNumber)) {
+						return;
+					}
+					i = engine.getCurrentIdx();
+					name = clientNames[i];
+					view = engine.getView(i);
+				} finally {
+					lock.unlock();
+				}
+
+				int[] cardIdx = chooseBotMove(view, i, name);
+
+				lockRoom();
+				try {
+					if (botToMove(moveNumber)) {
+						makeBotMove(i, cardIdx);
+					}
+				} finally {
+					lock.unlock();
+				}
+			}
+		});
+	} // scheduleBotMove
+
+	/**
+	 * Returns true if the current player is a computer player and no move has
+	 * been applied since the specified number of moves.
+	 */
+	private boolean botToMove(int moveNumber) {
+		return gameInProgress && numOfMoves == moveNumber
+				&& bots[engine.getCurrentIdx()];
+	}
+
+	/**
+	 * Chooses the move of a computer player with the strategy of the server.
+	 * This is called without the lock of this room, on a view of the game
+	 * which is not shared with the room.
+	 *
+	 * @param view
+	 *            the view of the game seen by the computer player
+	 * @param i
+	 *            the playerID of the computer player
+	 * @param name
+	 *            the name of the computer player
+	 * @return the indices of the cards to be played, or null for a pass or if
+	 *         the strategy fails
+	 */
+	private int[] chooseBotMove(CardGame view, int i, String name) {
+		BotStrategy strategy = server.getBotStrategy();
+		try {
+			if (strategy != null && view != null) {
+				return strategy.chooseMove(view, i);
+			}
+		} catch (RuntimeException ex) {
+			log(ServerLog.ERROR, "Error in choosing the move of " + name, ex);
+		}
+		return null;
+	} // chooseBotMove
+
+	/**
+	 * Makes the move of a computer player, as chosen by the strategy of the
+	 * server. If the move is illegal, the computer player passes, or plays
+	 * its first card if it cannot pass.
+	 *
+	 * @param i
+	 *            the playerID of the computer player
+	 * @param cardIdx
+	 *            the indices of the cards chosen, or null for a pass
+	 */
+	private void makeBotMove(int i, int[] cardIdx) {
+		if (!engine.applyMove(i, cardIdx)) {
+			cardIdx = null;
+			if (!engine.applyMove(i, cardIdx)) {
+				cardIdx = new int[] { 0 };
+				if (!engine.applyMove(i, cardIdx)) {
+					log(ServerLog.ERROR, clientNames[i] + " cannot move");
+					return;
+				}
+			}
+		}
+		movePlayed(i, cardIdx);
+	} // makeBotMove
+
+	/**
+	 * Returns true if computer players may be seated in this room.
+	 */
+	private boolean botsEnabled() {
+		return server.getBotStrategy() != null && engine instanceof CardGame;
+	}
+
+	/**
+	 * Schedules the empty seats of this room to be filled with computer
+	 * players after the fill delay of the server, unless this is already
+	 * scheduled.
+	 */
+	private void scheduleFill() {
+		if (fillScheduled) {
+			return;
+		}
+		fillScheduled = true;
+		server.getBotExecutor().schedule(new Runnable() {
+			public void run() {
+				lockRoom();
+				try {
+					fillScheduled = false;
+					fillWithBots();
+				} finally {
+					lock.unlock();
+				}
+			}
+		}, server.getBotFillDelay(), TimeUnit.MILLISECONDS);
+	} // scheduleFill
+
+	/**
+	 * Fills the empty seats of this room with computer players, if a game is
+	 * not in progress and a player is waiting for it, and starts a game if all
+	 * the players are ready.
+	 */
+	private void fillWithBots() {
+		if (gameInProgress || !botsEnabled() || numOfPlayers == numOfBots) {
+			return;
+		}
+		boolean waiting = false;
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			waiting |= clientConnections[i] != null && clientReadyStates[i];
+		}
+		if (!waiting) {
+			return;
+		}
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clientConnections[i] == null && !bots[i]) {
+				// a seat may be being taken by a new connection
+				if (!reserveSeat()) {
+					break;
+				}
+				bots[i] = true;
+				clientNames[i] = "Bot " + i;
+				clientReadyStates[i] = false;
+				numOfPlayers++;
+				numOfBots++;
+				println(clientNames[i] + " joins the game.");
+				broadcastMessage(new CardGameMessage(CardGameMessage.JOIN, i,
+						clientNames[i]));
+				broadcastMessage(new CardGameMessage(CardGameMessage.READY, i,
+						null));
+			}
+		}
+		startGameIfReady();
+	} // fillWithBots
+
+	/**
+	 * Removes all the computer players from this room, releasing their seats.
+	 */
+	private void removeBots() {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (bots[i]) {
+				bots[i] = false;
+				clientNames[i] = null;
+				numOfPlayers--;
+				numOfBots--;
+				numOfReservedSeats.decrementAndGet();
+			}
+		}
+	} // removeBots
+
+	/**
+	 * Adds a new connection to this room if it is not full. A seat is first
+	 * reserved without locking, so that the lock of this room is only taken
+	 * if the connection is to be seated in this room.
+	 *
+	 * @param connection
+	 *            the connection to be added to this room
+	 * @return true if the connection has been added; false if this room is
+	 *         full
+	 */
+	public boolean addConnection(ClientConnection connection) {
+		if (!reserveSeat()) {
+			return false;
+		}
+
+		lockRoom();
+		try {
+			// locates the first empty slot for the new connection; there is
+			// one, as a seat has been reserved
+			for (int i = 0; i < maxNumOfPlayers; i++) {
+				if (clientConnections[i] == null && !bots[i]) {
+					clientConnections[i] = connection;
+					clientNames[i] = null;
+					clientReadyStates[i] = false;
+					numOfPlayers++;
+					connection.setSeat(this, i);
+					println("Establishes a connection with a client at "
+							+ connection.getRemoteSocketAddress());
+
+					// sends the player list to the new player
+					connection.sendMessage(new CardGameMessage(
+							CardGameMessage.PLAYER_LIST, i, clientNames.clone()));
+					return true;
+				}
+			} // for
+			numOfReservedSeats.decrementAndGet();
+			return false;
+		} finally {
+			lock.unlock();
+		}
+	} // addConnection
+
+	/**
+	 * Reserves a seat in this room, without locking.
+	 *
+	 * @return true if a seat has been reserved; false if this room is full
+	 */
+	private boolean reserveSeat() {
+		while (true) {
+			int reserved = numOfReservedSeats.get();
+			if (reserved >= maxNumOfPlayers) {
+				return false;
+			}
+			if (numOfReservedSeats.compareAndSet(reserved, reserved + 1)) {
+				return true;
+			}
+		}
+	} // reserveSeat
+
+	/**
+	 * Removes a connection from this room (possibly due to connection loss).
+	 *
+	 * @param connection
+	 *            the connection being removed from this room
+	 */
+	public void removeConnection(ClientConnection connection) {
+		lockRoom();
+		try {
+			int i = connection.getSlot();
+			if (numOfPlayers > 0 && clientConnections[i] == connection) {
+				String name = clientNames[i];
+
+				clientConnections[i] = null;
+				clientNames[i] = null;
+				clientReadyStates[i] = false;
+				if (gameInProgress && botsEnabled()
+						&& numOfPlayers - numOfBots > 1) {
+					// a computer player takes over the seat of this player
+					bots[i] = true;
+					numOfBots++;
+					clientNames[i] = name + " (bot)";
+					println(name + " (" + connection.getRemoteSocketAddress()
+							+ ") leaves the game, and is replaced by a bot.");
+					broadcastMessage(new CardGameMessage(CardGameMessage.JOIN,
+							i, clientNames[i]));
+					broadcastMessage(new CardGameMessage(CardGameMessage.MSG,
+							i, name + " left the game, and is replaced by a bot."));
+					if (engine.getCurrentIdx() == i) {
+						scheduleBotMove();
+					}
+					return;
+				}
+				numOfPlayers--;
+				// releases the seat once its slot is empty
+				numOfReservedSeats.decrementAndGet();
+				if (numOfPlayers == numOfBots) {
+					// the computer players do not play on their own
+					removeBots();
+				}
+				// the game cannot go on without this player
+				if (gameInProgress) {
+					gameInProgress = false;
+					metrics.gameAborted();
+					endRecord(-1);
+				}
+
+				println(name + " (" + connection.getRemoteSocketAddress()
+						+ ") leaves the game.");
+
+				String remoteAddress = connection.getRemoteSocketAddress()
+						.toString();
+
+				// broadcasts a message about the leaving of this player
+				broadcastMessage(new CardGameMessage(CardGameMessage.QUIT, i,
+						remoteAddress));
+			}
+		} finally {
+			lock.unlock();
+		}
+	} // removeConnection
+
+	/**
+	 * adds a player to the game.
+	 *
+	 * @param connection
+	 *            the connection to the player who is joining the game
+	 * @param name
+	 *            the name of the player who is joining the game
+	 */
+	private void addPlayer(ClientConnection connection, String name) {
+		int i = connection.getSlot();
+		// updates the name of the new player
+		clientNames[i] = name;
+
+		println(name + " (" + connection.getRemoteSocketAddress()
+				+ ") joins the game.");
+
+		// broadcasts a message about this player joining the game
+		broadcastMessage(new CardGameMessage(CardGameMessage.JOIN, i, name));
+	} // addPlayer
+
+	/**
+	 * Marks the specified player as ready for a new game.
+	 *
+	 * @param connection
+	 *            the connection to the player who becomes ready for a new game
+	 */
+	private void setReadyState(ClientConnection connection) {
+		int i = connection.getSlot();
+		clientReadyStates[i] = true;
+		println(clientNames[i] + " (" + connection.getRemoteSocketAddress()
+				+ " ) is ready for the next game.");
+		broadcastMessage(new CardGameMessage(CardGameMessage.READY, i, null));
+
+		if (numOfPlayers < maxNumOfPlayers && botsEnabled()) {
+			scheduleFill();
+		}
+		startGameIfReady();
+	} // setReadyState
+
+	/**
+	 * Starts a new game if all the seats are taken and all the players are
+	 * ready. The computer players are always ready.
+	 */
+	private void startGameIfReady() {
+		// checks if all players are ready
+		if (numOfPlayers == maxNumOfPlayers) {
+			for (int j = 0; j < maxNumOfPlayers; j++) {
+				if (clientReadyStates[j] == false && !bots[j]) {
+					// returns if any of the players is not ready
+					return;
+				}
+			}
+
+			// resets the ready states of all the players for the next game
+			for (int j = 0; j < maxNumOfPlayers; j++) {
+				clientReadyStates[j] = false;
+			}
+
+			// creates a new deck, shuffles the deck, and starts a new game
+			Deck deck = server.createDeck();
+			RandomGenerator shuffleGenerator = server.getShuffleGenerator();
+			if (shuffleGenerator == null) {
+				deck.shuffle();
+				println("All players are ready. Game starts (seed "
+						+ deck.getSeed() + ").");
+			} else {
+				deck.shuffle(shuffleGenerator);
+				println("All players are ready. Game starts.");
+			}
+			if (engine == null) {
+				broadcastMessage(new CardGameMessage(CardGameMessage.START, -1,
+						deck));
+				metrics.gameStarted();
+			} else {
+				if (gameInProgress) {
+					metrics.gameAborted();
+				}
+				engine.start(deck);
+				gameInProgress = true;
+				metrics.gameStarted();
+				// a game left unfinished is recorded as aborted
+				endRecord(-1);
+				GameRecorder recorder = server.getRecorder();
+				if (recorder != null) {
+					record = recorder.newGame(roomID, deck);
+				}
+				dealCards();
+				if (bots[engine.getCurrentIdx()]) {
+					scheduleBotMove();
+				}
+			}
+		}
+	} // startGameIfReady
+
+	/**
+	 * Appends the record of the game which has just ended to the log of games.
+	 *
+	 * @param winner
+	 *            the playerID of the winner, or -1 if the game was aborted
+	 */
+	private void endRecord(int winner) {
+		if (record == null) {
+			return;
+		}
+		try {
+			record.end(winner);
+		} catch (IOException ex) {
+			log(ServerLog.ERROR, "Error in recording a game", ex);
+		}
+		record = null;
+	}
+
+	/**
+	 * Sends each client a DEAL message holding the numbers of cards of all the
+	 * players and the cards of its own player only.
+	 */
+	private void dealCards() {
+		for (int i = 0; i < maxNumOfPlayers; i++) {
+			if (clientConnections[i] == null) {
+				continue;
+			}
+			int[] cards = toNumbers(engine.getCardsInHand(i));
+			int[] deal = new int[maxNumOfPlayers + cards.length];
+			for (int j = 0; j < maxNumOfPlayers; j++) {
+				deal[j] = engine.getCardsInHand(j).size();
+			}
+			System.arraycopy(cards, 0, deal, maxNumOfPlayers, cards.length);
+			clientConnections[i].sendMessage(new CardGameMessage(
+					CardGameMessage.DEAL, engine.getCurrentIdx(), deal));
+		}
+	} // dealCards
+
+	/**
+	 * Returns the numbers (suit * 13 + rank) of the specified cards, or null if
+	 * there are no cards.
+	 */
+	private static int[] toNumbers(CardList cards) {
+		if (cards == null) {
+			return null;
+		}
+		int[] numbers = new int[cards.size()];
+		for (int i = 0; i < numbers.length; i++) {
+			Card card = cards.getCard(i);
+			numbers[i] = card.getSuit() * 13 + card.getRank();
+		}
+		return numbers;
+	}
+
+	private void broadcastUserMessage(ClientConnection connection,
+			String msg) {
+		int i = connection.getSlot();
+		String longMsg = clientNames[i] + " ("
+				+ connection.getRemoteSocketAddress() + "): " + msg;
+		broadcastMessage(new CardGameMessage(CardGameMessage.MSG, i, longMsg));
+	}
+
+	/**
+	 * Logs the specified message at the INFO level, prefixed with the id of
+	 * this room.
+	 *
+	 * @param msg
+	 *            the message to be logged
+	 */
+	private void println(String msg) {
+		log(ServerLog.INFO, msg);
+	}
+
+	/**
+	 * Logs the specified message at the DEBUG level, followed by the address
+	 * of the specified client. The message is only built if the DEBUG level
+	 * is enabled, as this is done for every message received.
+	 *
+	 * @param msg
+	 *            the message to be logged
+	 * @param connection
+	 *            the connection to the client
+	 */
+	private void debug(String msg, ClientConnection connection) {
+		if (server.getLog().isEnabled(ServerLog.DEBUG)) {
+			log(ServerLog.DEBUG, msg + connection.getRemoteSocketAddress());
+		}
+	}
+
+	/**
+	 * Logs the specified message at the specified level, prefixed with the id
+	 * of this room.
+	 *
+	 * @param level
+	 *            the level of the message
+	 * @param msg
+	 *            the message to be logged
+	 */
+	private void log(int level, String msg) {
+		server.log(level, "[Room " + roomID + "] " + msg);
+	}
+
+	/**
+	 * Logs the specified message and exception at the specified level,
+	 * prefixed with the id of this room.
+	 *
+	 * @param level
+	 *            the level of the message
+	 * @param msg
+	 *            the message to be logged
+	 * @param ex
+	 *            the exception to be logged
+	 */
+	private void log(int level, String msg, Throwable ex) {
+		server.log(level, "[Room " + roomID + "] " + msg, ex);
+	}
+}
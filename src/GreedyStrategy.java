@@ -0,0 +1,26 @@
+/**
+ * Class that implements the BotStrategy interface.
+ * <p>
+ * Leads with the weakest card, and otherwise plays the weakest
+ * hand that beats the last hand on the table, or passes if there
+ * is none.
+ */
+public class GreedyStrategy implements BotStrategy {
+
+	/**
+	 * Method for choosing the move of a player.
+	 * 
+	 * @param game (CardGame) The card game being played.
+	 * @param playerID (int) The index of the player making the move.
+	 * @return int[] specifying the indices of the cards to be played, or null for a pass.
+	 */
+	public int[] chooseMove(CardGame game, int playerID) {
+		// The weakest legal move is the weakest card when leading (the three of Diamonds
+		// in the first hand of the game), and the weakest hand beating the last hand otherwise.
+		int move = MoveGenerator.weakest(game, playerID);
+		if (move == 0) {
+			return null;
+		}
+		return MoveGenerator.toCardIdx(move);
+	}
+}
@@ -8,6 +8,8 @@
 public abstract class Hand extends CardList{
 	
 	private CardGamePlayer player;
+	// cached strength from HandRanking, or -1 if not computed yet
+	private int strength = -1;
 	
 	/**
 	 * Constructor to create an object of this class.
@@ -31,53 +33,85 @@ public abstract class Hand extends CardList{
 		return player;
 	}
 	
+	/**
+	 * Method for adding a card to the Hand, which invalidates the cached strength.
+	 * 
+	 * @param card Card to be appended to the Hand.
+	 */
+	public void addCard(Card card) {
+		super.addCard(card);
+		strength = -1;
+	}
+	
+	/**
+	 * Method for removing a card from the Hand, which invalidates the cached strength.
+	 * removeCard(Card) removes the card through this method.
+	 * 
+	 * @param i (int) The index of the card to be removed.
+	 * @return Card that is removed, or null if the index is invalid.
+	 */
+	public Card removeCard(int i) {
+		strength = -1;
+		return super.removeCard(i);
+	}
+	
+	/**
+	 * Method for replacing a card of the Hand, which invalidates the cached strength.
+	 * 
+	 * @param i (int) The index of the card to be replaced.
+	 * @param card Card to be stored at the index.
+	 * @return Card previously stored at the index, or null if the index is invalid.
+	 */
+	public Card setCard(int i, Card card) {
+		strength = -1;
+		return super.setCard(i, card);
+	}
+	
+	/**
+	 * Method for removing all cards from the Hand, which invalidates the cached strength.
+	 */
+	public void removeAllCards() {
+		super.removeAllCards();
+		strength = -1;
+	}
+	
+	/**
+	 * Method that returns the strength of this Hand, as ranked by HandRanking.
+	 * The strength is computed on first use and cached until the cards of the Hand
+	 * change; sort() keeps the cached strength, as it does not change the cards held.
+	 * 
+	 * @return int value specifying the strength. Of two hands of the same size,
+	 * 			the stronger hand has the larger value. 0 if the cards do not form a legal hand.
+	 */
+	public int getStrength() {
+		if (strength < 0) {
+			strength = HandRanking.strength(HandEvaluator.toMask(this));
+		}
+		return strength;
+	}
+	
 	/**
 	 * Method that returns the top card of the Hand.
 	 * 
 	 * @return Card that specifies the top card of this Hand object.
 	 */
 	public Card getTopCard() {
-		if (this.getType() == "FullHouse" || this.getType() == "Quad") {
-			CardList templist1 = new CardList();
-			CardList templist2 = new CardList();
-			
-			// Full House and Quad have 2 ranks.
-			int rank1 = this.getCard(0).getRank();
-			int rank2 = -1;
-			
-			for (int i = 0; i < 5; i++) {
-				if (this.getCard(i).getRank() != rank1) {
-					rank2 = this.getCard(i).getRank();
-				}
-			}
-			
-			for (int i = 0; i < 5; i++) {
-				if (this.getCard(i).getRank() == rank1) {
-					templist1.addCard(this.getCard(i));
-				} else if (this.getCard(i).getRank() == rank2) {
-					templist2.addCard(this.getCard(i));
-				}
-			}
-			
-			// Default is FullHouse
-			int sizeOfLargestListWithCommonRank = 3;
-			if (this.getType() == "Quad") {
-				sizeOfLargestListWithCommonRank = 4;
-			}
-			
-			// Returns the 'strongest' card from the larger list (quadruple or triplet depending on FullHouse or Quad)
-			if (templist1.size() == sizeOfLargestListWithCommonRank) {
-				templist1.sort();
-				return templist1.getCard(sizeOfLargestListWithCommonRank - 1);
-			} else {
-				templist2.sort();
-				return templist2.getCard(sizeOfLargestListWithCommonRank - 1);
-			}
+		long mask = HandEvaluator.toMask(this);
+		int type = HandEvaluator.SINGLE;
+		if (this.getType() == "FullHouse") {
+			type = HandEvaluator.FULL_HOUSE;
+		} else if (this.getType() == "Quad") {
+			type = HandEvaluator.QUAD;
 		}
 		
-		// For hands other than Quad and Full House
-		this.sort();
-		return this.getCard(this.size() - 1);
+		// Full House and Quad return the strongest card of the triplet or quadruple, other hands their strongest card.
+		int top = HandEvaluator.topCard(mask, type);
+		for (int i = 0; i < this.size(); i++) {
+			if (HandEvaluator.bitIndex(this.getCard(i)) == top) {
+				return this.getCard(i);
+			}
+		}
+		return null;
 	}
 	
 	/**
@@ -101,83 +135,14 @@ public abstract class Hand extends CardList{
 	
 	/**
 	 * Method that checks whether the calling Hand object beats the passed Hand object.
+	 * The strengths double as the validity check, as an illegal hand has strength 0.
 	 * 
 	 * @param hand Hand object to which the calling Hand object is compared.
 	 * @return true (boolean) if the calling Hand does beat the passed Hand.<p>
 	 * 			false (boolean) if the calling Hand does not beat the passed Hand.
 	 */
 	public boolean beats(Hand hand) {
-		if (!this.isValid()) return false;
-		if (!hand.isValid()) return false;
-		if (this.size() != hand.size()) return false;
-		
-		// Getting the top cards of the calling Hand and the passed Hand. Also get corrected ranks for top cards.
-		Card thisTopCard = this.getTopCard();
-		int thisTopCardRank = thisTopCard.getRank();
-		thisTopCardRank = (thisTopCardRank - 2 < 0) ? 13 + thisTopCardRank - 2 : thisTopCardRank - 2;
-		
-		Card handTopCard = hand.getTopCard();
-		int handTopCardRank = handTopCard.getRank();
-		handTopCardRank = (handTopCardRank - 2 < 0) ? 13 + handTopCardRank - 2 : handTopCardRank - 2;
-		
-		if (hand.size() == 1) {
-			return thisTopCard.compareTo(handTopCard) == 1;
-		} else if (hand.size() == 2) {
-			if (thisTopCardRank > handTopCardRank) {
-				return true;
-			} else if (thisTopCardRank < handTopCardRank) {
-				return false;
-			} else if (thisTopCard.getSuit() > handTopCard.getSuit()) {
-				return true;
-			} else {
-				return false;
-			}
-		} else if (hand.size() == 3) {
-			if (thisTopCardRank > handTopCardRank) {
-				return true;
-			} else {
-				return false;
-			}
-		} else if (hand.size() == 5) {
-			if (this.getType() == hand.getType()) {
-				if (this.getType() == "Flush") {
-					if (thisTopCard.getSuit() > handTopCard.getSuit()) {
-						return true;
-					} else if (thisTopCard.getSuit() < handTopCard.getSuit()) {
-						return false;
-					} else {
-						// Will return true if thisTopCard is of a higher rank
-						return thisTopCard.compareTo(handTopCard) == 1;
-					}
-				} else {
-					return thisTopCard.compareTo(handTopCard) ==  1;
-				}
-			} else {
-				if (this.getType() == "Straight Flush") {
-					return true;
-				} else if (this.getType() == "Quad") {
-					if (hand.getType() != "Straight Flush") {
-						return true;
-					} else {
-						return false;
-					}
-				} else if (this.getType() == "Full House") {
-					if (hand.getType() == "Flush" || hand.getType() == "Straight") {
-						return true;
-					} else {
-						return false;
-					}
-				} else if (this.getType() == "Flush") {
-					if (hand.getType() == "Straight") {
-						return true;
-					} else {
-						return false;
-					}
-				} else if (this.getType() == "Straight") {
-					return false;
-				}
-			}
-		}
-		return false;
+		// Same size: a single comparison of the precomputed strengths.
+		return this.size() == hand.size() && hand.getStrength() > 0 && this.getStrength() > hand.getStrength();
 	}
 }
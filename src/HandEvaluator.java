@@ -0,0 +1,246 @@
+/**
+ * This class is used to classify and compare Big Two hands without creating
+ * any objects. A set of cards is encoded as a long bitmask in which the card
+ * of suit s and Big Two rank r (0 = '3', 1 = '4', ..., 11 = 'A', 12 = '2')
+ * occupies bit r * 4 + s, so that a higher bit is always a stronger single
+ * card.
+ */
+public final class HandEvaluator {
+	/**
+	 * Type of a set of cards not forming a valid hand.
+	 */
+	public static final int INVALID = 0;
+	/**
+	 * Type of a Single.
+	 */
+	public static final int SINGLE = 1;
+	/**
+	 * Type of a Pair.
+	 */
+	public static final int PAIR = 2;
+	/**
+	 * Type of a Triple.
+	 */
+	public static final int TRIPLE = 3;
+	/**
+	 * Type of a Straight.
+	 */
+	public static final int STRAIGHT = 4;
+	/**
+	 * Type of a Flush.
+	 */
+	public static final int FLUSH = 5;
+	/**
+	 * Type of a Full House.
+	 */
+	public static final int FULL_HOUSE = 6;
+	/**
+	 * Type of a Quad.
+	 */
+	public static final int QUAD = 7;
+	/**
+	 * Type of a Straight Flush.
+	 */
+	public static final int STRAIGHT_FLUSH = 8;
+
+	// bits of the cards of suit 0 (Diamond); shifted left by s for suit s
+	private static final long SUIT_0 = 0x1111111111111L;
+	// five consecutive Big Two ranks
+	private static final int FIVE_RANKS = 0x1F;
+
+	private HandEvaluator() {
+	}
+
+	/**
+	 * Returns the bit of the specified card in a bitmask.
+	 *
+	 * @param card
+	 *            the card
+	 * @return the index of the bit of the card (0 - 51)
+	 */
+	public static int bitIndex(Card card) {
+		return ((card.getRank() + 11) % 13) * 4 + card.getSuit();
+	}
+
+	/**
+	 * Returns the bit of the specified card in a bitmask.
+	 *
+	 * @param card
+	 *            the card
+	 * @return the bit of the card, or 0 if the card is hidden (see
+	 *         Card.HIDDEN)
+	 */
+	public static long bit(Card card) {
+		return card.isHidden() ? 0L : 1L << bitIndex(card);
+	}
+
+	/**
+	 * Returns the bitmask of the specified list of cards.
+	 *
+	 * @param cards
+	 *            the list of cards
+	 * @return the bitmask of the cards
+	 */
+	public static long toMask(CardList cards) {
+		long mask = 0L;
+		for (int i = 0; i < cards.size(); i++) {
+			mask |= bit(cards.getCard(i));
+		}
+		return mask;
+	}
+
+	/**
+	 * Returns the 13-bit mask of the Big Two ranks present in a bitmask.
+	 *
+	 * @param mask
+	 *            the bitmask of a set of cards
+	 * @return the mask of the ranks present, bit r for Big Two rank r
+	 */
+	public static int rankMask(long mask) {
+		// folds each 4-bit group of a rank onto its lowest bit
+		long ranks = (mask | (mask >>> 1) | (mask >>> 2) | (mask >>> 3)) & SUIT_0;
+		int result = 0;
+		while (ranks != 0) {
+			result |= 1 << (Long.numberOfTrailingZeros(ranks) >>> 2);
+			ranks &= ranks - 1;
+		}
+		return result;
+	}
+
+	/**
+	 * Classifies the set of cards of the specified bitmask.
+	 *
+	 * @param mask
+	 *            the bitmask of a set of cards
+	 * @return the type of the hand formed by the cards, or INVALID
+	 */
+	public static int classify(long mask) {
+		int size = Long.bitCount(mask);
+		if (size == 1) {
+			return SINGLE;
+		}
+		int ranks = rankMask(mask);
+		int numOfRanks = Integer.bitCount(ranks);
+		if (size == 2) {
+			return numOfRanks == 1 ? PAIR : INVALID;
+		}
+		if (size == 3) {
+			return numOfRanks == 1 ? TRIPLE : INVALID;
+		}
+		if (size != 5) {
+			return INVALID;
+		}
+
+		if (numOfRanks == 5) {
+			boolean straight = (ranks >>> Integer.numberOfTrailingZeros(ranks)) == FIVE_RANKS;
+			boolean flush = isFlush(mask);
+			if (straight && flush) {
+				return STRAIGHT_FLUSH;
+			} else if (flush) {
+				return FLUSH;
+			} else if (straight) {
+				return STRAIGHT;
+			}
+			return INVALID;
+		}
+		if (numOfRanks == 2) {
+			int low = Integer.numberOfTrailingZeros(ranks);
+			int lowCount = Long.bitCount(mask & (0xFL << (low * 4)));
+			if (lowCount == 1 || lowCount == 4) {
+				return QUAD;
+			}
+			return FULL_HOUSE;
+		}
+		return INVALID;
+	}
+
+	/**
+	 * Returns the bit of the top card of a hand: the card of the largest rank
+	 * group (the triplet of a Full House, the quadruple of a Quad), and the
+	 * strongest card otherwise.
+	 *
+	 * @param mask
+	 *            the bitmask of the hand
+	 * @param type
+	 *            the type of the hand
+	 * @return the index of the bit of the top card, or -1 for an empty mask
+	 */
+	public static int topCard(long mask, int type) {
+		if (type == FULL_HOUSE || type == QUAD) {
+			int group = (type == QUAD) ? 4 : 3;
+			long rest = mask;
+			while (rest != 0) {
+				int rank = (63 - Long.numberOfLeadingZeros(rest)) >>> 2;
+				long rankBits = mask & (0xFL << (rank * 4));
+				if (Long.bitCount(rankBits) == group) {
+					return 63 - Long.numberOfLeadingZeros(rankBits);
+				}
+				rest &= ~rankBits;
+			}
+		}
+		return 63 - Long.numberOfLeadingZeros(mask);
+	}
+
+	/**
+	 * Returns the key used for comparing hands of the same type. Hands of the
+	 * same type compare as their keys.
+	 *
+	 * @param mask
+	 *            the bitmask of the hand
+	 * @param type
+	 *            the type of the hand
+	 * @return the comparison key of the hand
+	 */
+	public static int key(long mask, int type) {
+		int top = topCard(mask, type);
+		if (type == FLUSH) {
+			// a Flush is compared by its suit first
+			return (top & 3) * 52 + top;
+		}
+		return top;
+	}
+
+	/**
+	 * Returns the strength of a hand. A hand beats another hand of the same
+	 * size if and only if its strength is larger.
+	 *
+	 * @param mask
+	 *            the bitmask of the hand
+	 * @return the strength of the hand, or -1 if it is not a valid hand
+	 */
+	public static int strength(long mask) {
+		int type = classify(mask);
+		if (type == INVALID) {
+			return -1;
+		}
+		return (type << 8) | key(mask, type);
+	}
+
+	/**
+	 * Checks whether the first hand beats the second hand.
+	 *
+	 * @param mask
+	 *            the bitmask of the first hand
+	 * @param other
+	 *            the bitmask of the second hand
+	 * @return true if both are valid hands of the same size and the first one
+	 *         is stronger; false otherwise
+	 */
+	public static boolean beats(long mask, long other) {
+		if (Long.bitCount(mask) != Long.bitCount(other)) {
+			return false;
+		}
+		int strength = strength(mask);
+		int otherStrength = strength(other);
+		return strength >= 0 && otherStrength >= 0 && strength > otherStrength;
+	}
+
+	private static boolean isFlush(long mask) {
+		for (int suit = 0; suit < 4; suit++) {
+			if ((mask & ~(SUIT_0 << suit)) == 0) {
+				return true;
+			}
+		}
+		return false;
+	}
+}
@@ -0,0 +1,139 @@
+/**
+ * This class holds a precomputed ranking of every legal Big Two hand. Each
+ * legal hand of 1, 2, 3 or 5 cards is given a strength, a positive integer
+ * such that a hand beats another hand of the same size if and only if its
+ * strength is larger. Illegal combinations have a strength of 0.
+ * <p>
+ * The tables are indexed by the combinatorial number system, which maps every
+ * k-card subset of the 52 cards (as a HandEvaluator bitmask) to a distinct
+ * index in [0, C(52, k)), so a lookup costs k table reads. The 5-card table
+ * (2,598,960 entries) is only built the first time a 5-card hand is ranked.
+ */
+public final class HandRanking {
+	// binomial coefficients C(n, k) for n up to 52 and k up to 5
+	private static final int[][] BINOMIAL = new int[53][6];
+
+	static {
+		for (int n = 0; n <= 52; n++) {
+			BINOMIAL[n][0] = 1;
+			for (int k = 1; k <= 5 && k <= n; k++) {
+				BINOMIAL[n][k] = BINOMIAL[n - 1][k - 1]
+						+ (k <= n - 1 ? BINOMIAL[n - 1][k] : 0);
+			}
+		}
+	}
+
+	private HandRanking() {
+	}
+
+	/**
+	 * Returns the strength of the hand of the specified bitmask.
+	 *
+	 * @param mask
+	 *            the bitmask of the hand (see HandEvaluator)
+	 * @return the strength of the hand, or 0 if it is not a legal hand
+	 */
+	public static int strength(long mask) {
+		switch (Long.bitCount(mask)) {
+		case 1:
+			return SmallTables.SINGLES[(int) index(mask)];
+		case 2:
+			return SmallTables.PAIRS[(int) index(mask)];
+		case 3:
+			return SmallTables.TRIPLES[(int) index(mask)];
+		case 5:
+			return FiveCardTable.TABLE[(int) index(mask)];
+		default:
+			return 0;
+		}
+	}
+
+	/**
+	 * Checks whether the first hand beats the second hand.
+	 *
+	 * @param mask
+	 *            the bitmask of the first hand
+	 * @param other
+	 *            the bitmask of the second hand
+	 * @return true if both are legal hands of the same size and the first one
+	 *         is stronger; false otherwise
+	 */
+	public static boolean beats(long mask, long other) {
+		if (Long.bitCount(mask) != Long.bitCount(other)) {
+			return false;
+		}
+		int otherStrength = strength(other);
+		return otherStrength > 0 && strength(mask) > otherStrength;
+	}
+
+	/**
+	 * Returns the index of a subset of cards in the combinatorial number
+	 * system: the sum of C(b, i + 1) over its bits b in increasing order.
+	 */
+	private static long index(long mask) {
+		long index = 0;
+		int i = 1;
+		while (mask != 0) {
+			index += BINOMIAL[Long.numberOfTrailingZeros(mask)][i++];
+			mask &= mask - 1;
+		}
+		return index;
+	}
+
+	/**
+	 * Builds the table of all k-card subsets, ranking the legal hands densely
+	 * by their HandEvaluator strength.
+	 */
+	private static char[] buildTable(int k) {
+		char[] table = new char[BINOMIAL[52][k]];
+		// HandEvaluator strengths are below (STRAIGHT_FLUSH + 1) << 8
+		int[] rank = new int[(HandEvaluator.STRAIGHT_FLUSH + 1) << 8];
+
+		// visits every k-subset in increasing order of index, first storing
+		// the HandEvaluator strength plus one (0 for illegal combinations)
+		long mask = (1L << k) - 1;
+		long limit = 1L << 52;
+		int index = 0;
+		while (mask < limit) {
+			int strength = HandEvaluator.strength(mask) + 1;
+			table[index++] = (char) strength;
+			if (strength > 0) {
+				rank[strength - 1] = 1;
+			}
+			// next subset with the same number of bits (Gosper's hack)
+			long lowest = mask & -mask;
+			long ripple = mask + lowest;
+			mask = (((ripple ^ mask) >>> 2) / lowest) | ripple;
+		}
+
+		// replaces the strengths by their dense ranks, starting at 1
+		int numOfDistinct = 0;
+		for (int i = 0; i < rank.length; i++) {
+			if (rank[i] != 0) {
+				rank[i] = ++numOfDistinct;
+			}
+		}
+		for (int i = 0; i < table.length; i++) {
+			if (table[i] != 0) {
+				table[i] = (char) rank[table[i] - 1];
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Holder of the tables of 1, 2 and 3 cards, built on first use.
+	 */
+	private static final class SmallTables {
+		private static final char[] SINGLES = buildTable(1);
+		private static final char[] PAIRS = buildTable(2);
+		private static final char[] TRIPLES = buildTable(3);
+	}
+
+	/**
+	 * Holder of the table of 5 cards, built on first use.
+	 */
+	private static final class FiveCardTable {
+		private static final char[] TABLE = buildTable(5);
+	}
+}
@@ -0,0 +1,340 @@
+import java.util.Arrays;
+
+/**
+ * This class is used to split a whole Big Two hand into the Singles, Pairs,
+ * Triples and 5-card hands it is best played as, e.g. to plan the leads of a
+ * computer player or to hint a human player.
+ * <p>
+ * A split is scored by a Scoring, which gives the cost of each hand of the
+ * split; the split of least total cost is found by dynamic programming over
+ * the subsets of the cards (8192 of them for 13 cards). The best split of a
+ * subset is the best one among the legal hands holding its weakest card,
+ * each followed by the best split of the remaining cards, so that every
+ * split is visited once whatever the order of its hands. The legal hands are
+ * enumerated with MoveGenerator.
+ * <p>
+ * A hand of 13 cards dealt at random is split in about 20 microseconds, and
+ * the worst case, the 13 cards of a suit with their 1287 5-card hands, in about
+ * 0.2 ms (see BigTwoBenchmark). The splits are checked against a brute-force
+ * search by HandSplitterCheck.
+ */
+public final class HandSplitter {
+	/**
+	 * The maximum number of cards in a hand to be split.
+	 */
+	public static final int MAX_NUM_OF_CARDS = 16;
+
+	/**
+	 * An interface for the scoring model of a split: the cost of a split is the
+	 * sum of the costs of its hands.
+	 */
+	public interface Scoring {
+		/**
+		 * Returns the cost of a hand of a split.
+		 *
+		 * @param hand
+		 *            the bitmask of a legal hand (see HandEvaluator)
+		 * @return the cost of the hand, a non-negative integer
+		 */
+		public int cost(long hand);
+	}
+
+	/**
+	 * The scoring model counting the turns taken to play the hand when leading
+	 * every time: each hand of the split costs 1.
+	 */
+	public static final Scoring TURNS = new Scoring() {
+		public int cost(long hand) {
+			return 1;
+		}
+	};
+
+	/**
+	 * The default scoring model, which minimizes the turns taken to play the
+	 * hand, and then prefers the splits whose hands are the hardest to beat.
+	 * A Single, Pair or Triple is the weaker the lower its rank, and a 5-card
+	 * hand the lower its type.
+	 */
+	public static final Scoring DEFAULT = new Scoring() {
+		public int cost(long hand) {
+			// a turn outweighs the weaknesses of up to 13 hands
+			int weakness;
+			if (Long.bitCount(hand) == 5) {
+				weakness = 2 * (HandEvaluator.STRAIGHT_FLUSH - HandEvaluator.classify(hand));
+			} else {
+				weakness = 12 - ((63 - Long.numberOfLeadingZeros(hand)) >>> 2);
+			}
+			return 256 + weakness;
+		}
+	};
+
+	private HandSplitter() {
+	}
+
+	/**
+	 * Returns the best split of the specified cards with the default scoring
+	 * model.
+	 *
+	 * @param cards
+	 *            the cards in the hand of the player
+	 * @return the hands of the split (see split(CardList, Scoring))
+	 */
+	public static int[] split(CardList cards) {
+		return split(cards, DEFAULT);
+	}
+
+	/**
+	 * Returns the best split of the specified cards, i.e. the split into legal
+	 * hands whose total cost is the least under the specified scoring model.
+	 *
+	 * @param cards
+	 *            the cards in the hand of the player
+	 * @param scoring
+	 *            the scoring model
+	 * @return the hands of the split, each a subset of the indices of the
+	 *         cards (bit i standing for card i), in the order of their
+	 *         weakest cards
+	 */
+	public static int[] split(CardList cards, Scoring scoring) {
+		long[] hands = split(HandEvaluator.toMask(cards), scoring);
+		int[] subsets = new int[hands.length];
+		for (int i = 0; i < hands.length; i++) {
+			for (int cardIdx : MoveGenerator.toCardIdx(cards, hands[i])) {
+				subsets[i] |= 1 << cardIdx;
+			}
+		}
+		return subsets;
+	}
+
+	/**
+	 * Returns the best split of the cards of the specified bitmask (see
+	 * HandEvaluator) under the specified scoring model.
+	 *
+	 * @param cards
+	 *            the bitmask of the cards in the hand of the player
+	 * @param scoring
+	 *            the scoring model
+	 * @return the hands of the split, each the bitmask of its cards, in the
+	 *         order of their weakest cards
+	 */
+	public static long[] split(long cards, Scoring scoring) {
+		int n = Long.bitCount(cards);
+		if (n > MAX_NUM_OF_CARDS) {
+			throw new IllegalArgumentException("Too many cards: " + n);
+		}
+		long[] bits = new long[n];
+		long rest = cards;
+		for (int i = 0; i < n; i++) {
+			bits[i] = rest & -rest;
+			rest &= rest - 1;
+		}
+
+		// the legal hands as subsets of the cards, grouped by their weakest card
+		long[] hands = MoveGenerator.generate(cards, 0L, 0L);
+		int[][] byWeakest = new int[n][];
+		int[][] costs = new int[n][];
+		int[] counts = new int[n];
+		int[] subsets = new int[hands.length];
+		for (int h = 0; h < hands.length; h++) {
+			for (int i = 0; i < n; i++) {
+				if ((hands[h] & bits[i]) != 0) {
+					subsets[h] |= 1 << i;
+				}
+			}
+			counts[Integer.numberOfTrailingZeros(subsets[h])]++;
+		}
+		for (int i = 0; i < n; i++) {
+			byWeakest[i] = new int[counts[i]];
+			costs[i] = new int[counts[i]];
+			counts[i] = 0;
+		}
+		for (int h = 0; h < hands.length; h++) {
+			int i = Integer.numberOfTrailingZeros(subsets[h]);
+			int cost = scoring.cost(hands[h]);
+			if (cost < 0) {
+				throw new IllegalArgumentException("Negative cost: " + cost);
+			}
+			byWeakest[i][counts[i]] = subsets[h];
+			costs[i][counts[i]++] = cost;
+		}
+
+		// the bit of the Big Two rank of each card
+		int[] ranks = new int[n];
+		for (int i = 0; i < n; i++) {
+			ranks[i] = 1 << (Long.numberOfTrailingZeros(bits[i]) >>> 2);
+		}
+
+		// best[s] is the least cost of a split of subset s (-1 until it is
+		// known), and choice[s] the hand holding its weakest card in that split
+		int all = (1 << n) - 1;
+		Splits splits = new Splits(byWeakest, costs, ranks, all + 1);
+		splits.best(all);
+		int[] choice = splits.choice;
+
+		long[] split = new long[n];
+		int numOfHands = 0;
+		for (int s = all; s != 0; s ^= choice[s]) {
+			long hand = 0L;
+			for (int i = 0; i < n; i++) {
+				if ((choice[s] & (1 << i)) != 0) {
+					hand |= bits[i];
+				}
+			}
+			split[numOfHands++] = hand;
+		}
+		return Arrays.copyOf(split, numOfHands);
+	}
+
+	/**
+	 * The best splits of the subsets of the cards, found from the whole hand
+	 * down, so that only the subsets left by some split are visited. The
+	 * hands holding the weakest card are tried from the largest, and a hand
+	 * is skipped when its cost and a lower bound of the cost of the remaining
+	 * cards (see minHands()) cannot beat the best split found so far.
+	 * <p>
+	 * The 5-card hands holding the weakest card of a subset are either taken
+	 * from the list of the legal hands or, when there are fewer ways to pick
+	 * 4 more cards of the subset than there are such hands (e.g. late in the
+	 * search of a hand of many cards of one suit), by picking them and looking
+	 * the hand up in a table of the costs of the legal hands.
+	 */
+	private static final class Splits {
+		private final int[][] byWeakest;
+		private final int[][] costs;
+		// the number of 5-card hands among the hands of each weakest card,
+		// which are the last ones
+		private final int[] numOfFiveCardHands;
+		// the cost of each legal hand by subset, or -1 for the other subsets,
+		// created on first use
+		private int[] costOf = null;
+		// the bit of the Big Two rank of each card
+		private final int[] ranks;
+		private final int[] best;
+		private final int[] choice;
+		private final int minCost;
+
+		private Splits(int[][] byWeakest, int[][] costs, int[] ranks, int numOfSubsets) {
+			this.byWeakest = byWeakest;
+			this.costs = costs;
+			this.ranks = ranks;
+			numOfFiveCardHands = new int[byWeakest.length];
+			best = new int[numOfSubsets];
+			choice = new int[numOfSubsets];
+			Arrays.fill(best, 1, numOfSubsets, -1);
+			int min = Integer.MAX_VALUE;
+			for (int i = 0; i < byWeakest.length; i++) {
+				for (int c = 0; c < byWeakest[i].length; c++) {
+					if (Integer.bitCount(byWeakest[i][c]) == 5) {
+						numOfFiveCardHands[i]++;
+					}
+					min = Math.min(min, costs[i][c]);
+				}
+			}
+			minCost = min;
+		}
+
+		/**
+		 * Returns the least cost of a split of subset s.
+		 */
+		private int best(int s) {
+			if (best[s] >= 0) {
+				return best[s];
+			}
+			int i = Integer.numberOfTrailingZeros(s);
+			int weakest = 1 << i;
+			int[] candidates = byWeakest[i];
+			int numOfSmallHands = candidates.length - numOfFiveCardHands[i];
+			int least = Integer.MAX_VALUE;
+			int others = s ^ weakest;
+			int m = Integer.bitCount(others);
+			if (m * (m - 1) * (m - 2) * (m - 3) / 24 < numOfFiveCardHands[i]) {
+				// picks the 4 other cards of each 5-card hand
+				int[] costOf = getCostOf();
+				for (int a = others; a != 0; a &= a - 1) {
+					for (int b = a & (a - 1); b != 0; b &= b - 1) {
+						for (int c = b & (b - 1); c != 0; c &= c - 1) {
+							for (int d = c & (c - 1); d != 0; d &= d - 1) {
+								int hand = weakest | (a & -a) | (b & -b) | (c & -c) | (d & -d);
+								if (costOf[hand] >= 0) {
+									least = tryHand(s, hand, costOf[hand], least);
+								}
+							}
+						}
+					}
+				}
+			} else {
+				for (int c = candidates.length - 1; c >= numOfSmallHands; c--) {
+					if ((candidates[c] & ~s) == 0) {
+						least = tryHand(s, candidates[c], costs[i][c], least);
+					}
+				}
+			}
+			for (int c = numOfSmallHands - 1; c >= 0; c--) {
+				if ((candidates[c] & ~s) == 0) {
+					least = tryHand(s, candidates[c], costs[i][c], least);
+				}
+			}
+			best[s] = least;
+			return least;
+		}
+
+		/**
+		 * Returns the table of the costs of the legal hands by subset,
+		 * creating it on first use.
+		 */
+		private int[] getCostOf() {
+			if (costOf == null) {
+				costOf = new int[best.length];
+				Arrays.fill(costOf, -1);
+				for (int i = 0; i < byWeakest.length; i++) {
+					for (int c = 0; c < byWeakest[i].length; c++) {
+						costOf[byWeakest[i][c]] = costs[i][c];
+					}
+				}
+			}
+			return costOf;
+		}
+
+		/**
+		 * Returns the least cost of a split of subset s holding the specified
+		 * hand, if it is less than the least cost found so far, recording the
+		 * hand as the choice of s; otherwise returns the least cost so far.
+		 */
+		private int tryHand(int s, int hand, int cost, int least) {
+			int rest = s ^ hand;
+			// nothing to beat before the first split of s is found
+			if (least != Integer.MAX_VALUE && cost + (long) minCost * minHands(rest) >= least) {
+				return least;
+			}
+			int total = cost + best(rest);
+			if (total < least) {
+				choice[s] = hand;
+				return total;
+			}
+			return least;
+		}
+
+		/**
+		 * Returns a lower bound of the number of hands in a split of subset s.
+		 * A 5-card hand holds at most 5 cards of at most 5 ranks, and any
+		 * other hand at most 3 cards of a single rank, so with f 5-card hands
+		 * the other hands hold the remaining ranks and cards. For 13 cards of
+		 * one suit, this gives the 5 hands of the best split, instead of the 3
+		 * of one hand per 5 cards.
+		 */
+		private int minHands(int s) {
+			int numOfCards = Integer.bitCount(s);
+			int rankMask = 0;
+			for (int rest = s; rest != 0; rest &= rest - 1) {
+				rankMask |= ranks[Integer.numberOfTrailingZeros(rest)];
+			}
+			int numOfRanks = Integer.bitCount(rankMask);
+			int least = Integer.MAX_VALUE;
+			for (int f = 0; 5 * f <= numOfCards; f++) {
+				int others = Math.max(Math.max(0, numOfRanks - 5 * f), (numOfCards - 5 * f + 2) / 3);
+				least = Math.min(least, f + others);
+			}
+			return least;
+		}
+	}
+}
@@ -0,0 +1,206 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * This class is used to check that the splits of HandSplitter are the best
+ * ones. Hands of 13 cards are dealt from decks shuffled with seeds drawn from
+ * a fixed seed, and a few hands of the worst cases are added (e.g. the 13
+ * cards of a suit). For each hand and each scoring model, the split of
+ * HandSplitter must be a partition of the hand into legal hands, and its cost
+ * the least cost found by a brute-force search. The brute-force search tries
+ * every subset of the cards holding the weakest one as a hand, classified by
+ * HandEvaluator, without the candidates of MoveGenerator or any pruning.
+ */
+public class HandSplitterCheck {
+	/**
+	 * The default number of random hands checked.
+	 */
+	public static final int DEFAULT_NUM_OF_HANDS = 1000;
+
+	// the number of cards in a hand
+	private static final int NUM_OF_CARDS = 13;
+	// the seed from which the seeds of the shuffles are drawn
+	private static final long SEED = 2396L;
+
+	private final int numOfHands;
+	private int numOfFailures = 0;
+
+	/**
+	 * Creates and returns an instance of the HandSplitterCheck class.
+	 *
+	 * @param numOfHands
+	 *            the number of random hands checked
+	 */
+	public HandSplitterCheck(int numOfHands) {
+		this.numOfHands = numOfHands;
+	}
+
+	/**
+	 * Returns the hands of the worst cases: the 13 cards of a suit, the 13
+	 * cards of the lowest ranks, and 13 cards of two suits.
+	 *
+	 * @return the hands of the worst cases
+	 */
+	public static CardList[] worstCases() {
+		CardList oneSuit = new CardList();
+		CardList lowRanks = new CardList();
+		CardList twoSuits = new CardList();
+		for (int i = 0; i < NUM_OF_CARDS; i++) {
+			oneSuit.addCard(BigTwoCard.valueOf(3, i));
+			// from the 3s up, as in Big Two
+			lowRanks.addCard(BigTwoCard.valueOf(i % 4, (2 + i / 4) % 13));
+			twoSuits.addCard(BigTwoCard.valueOf(i % 2 == 0 ? 0 : 2, (2 + i * 6 / 7) % 13));
+		}
+		return new CardList[] { oneSuit, lowRanks, twoSuits };
+	}
+
+	/**
+	 * Returns the least cost of a split of the cards of the specified bitmask
+	 * (see HandEvaluator) under the specified scoring model, by trying every
+	 * subset of the cards.
+	 *
+	 * @param cards
+	 *            the bitmask of the cards
+	 * @param scoring
+	 *            the scoring model
+	 * @return the least cost of a split of the cards
+	 */
+	public static int bruteForce(long cards, HandSplitter.Scoring scoring) {
+		int n = Long.bitCount(cards);
+		long[] bits = new long[n];
+		long rest = cards;
+		for (int i = 0; i < n; i++) {
+			bits[i] = rest & -rest;
+			rest &= rest - 1;
+		}
+		int[] best = new int[1 << n];
+		Arrays.fill(best, 1, best.length, -1);
+		return bruteForce((1 << n) - 1, bits, scoring, best);
+	}
+
+	/**
+	 * Returns the least cost of a split of subset s of the cards, trying every
+	 * subset of s holding its weakest card as a hand.
+	 */
+	private static int bruteForce(int s, long[] bits, HandSplitter.Scoring scoring, int[] best) {
+		if (best[s] >= 0) {
+			return best[s];
+		}
+		int weakest = s & -s;
+		int others = s ^ weakest;
+		int least = Integer.MAX_VALUE;
+		// every subset of the other cards, from all of them down to none
+		for (int t = others;; t = (t - 1) & others) {
+			int subset = weakest | t;
+			long hand = 0L;
+			for (int i = 0; i < bits.length; i++) {
+				if ((subset & (1 << i)) != 0) {
+					hand |= bits[i];
+				}
+			}
+			if (HandEvaluator.classify(hand) != HandEvaluator.INVALID) {
+				least = Math.min(least, scoring.cost(hand) + bruteForce(s ^ subset, bits, scoring, best));
+			}
+			if (t == 0) {
+				break;
+			}
+		}
+		best[s] = least;
+		return least;
+	}
+
+	/**
+	 * Checks the split of a hand under a scoring model against the brute-force
+	 * search, and prints the hand if the check fails.
+	 *
+	 * @param cards
+	 *            the cards of the hand
+	 * @param name
+	 *            the name of the scoring model
+	 * @param scoring
+	 *            the scoring model
+	 * @return true if the split is a partition of the hand into legal hands
+	 *         of the least cost; otherwise false
+	 */
+	public boolean check(CardList cards, String name, HandSplitter.Scoring scoring) {
+		int[] split = HandSplitter.split(cards, scoring);
+		int covered = 0;
+		int cost = 0;
+		String error = null;
+		for (int subset : split) {
+			long hand = 0L;
+			for (int i = 0; i < cards.size(); i++) {
+				if ((subset & (1 << i)) != 0) {
+					hand |= HandEvaluator.bit(cards.getCard(i));
+				}
+			}
+			if ((covered & subset) != 0) {
+				error = "overlapping hands";
+			} else if (HandEvaluator.classify(hand) == HandEvaluator.INVALID) {
+				error = "illegal hand";
+			}
+			covered |= subset;
+			cost += scoring.cost(hand);
+		}
+		int least = bruteForce(HandEvaluator.toMask(cards), scoring);
+		if (error == null && covered != (1 << cards.size()) - 1) {
+			error = "cards left out";
+		} else if (error == null && cost != least) {
+			error = "cost " + cost + " instead of " + least;
+		}
+		if (error != null) {
+			System.out.println("FAILED (" + name + ", " + error + "): " + cards);
+			numOfFailures++;
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Checks the random hands and the worst cases under each scoring model,
+	 * and prints a report.
+	 *
+	 * @return true if every split is the best one; otherwise false
+	 */
+	public boolean run() {
+		String[] names = { "TURNS", "DEFAULT" };
+		HandSplitter.Scoring[] scorings = { HandSplitter.TURNS, HandSplitter.DEFAULT };
+		SplittableRandom seeds = new SplittableRandom(SEED);
+		Deck deck = new BigTwoDeck();
+		int numOfChecks = 0;
+		for (int h = 0; h < numOfHands; h++) {
+			deck.initialize();
+			deck.shuffle(seeds.nextLong());
+			CardList cards = new CardList();
+			for (int i = 0; i < NUM_OF_CARDS; i++) {
+				cards.addCard(deck.getCard(i));
+			}
+			for (int k = 0; k < scorings.length; k++) {
+				check(cards, names[k], scorings[k]);
+				numOfChecks++;
+			}
+		}
+		for (CardList cards : worstCases()) {
+			for (int k = 0; k < scorings.length; k++) {
+				check(cards, names[k], scorings[k]);
+				numOfChecks++;
+			}
+		}
+		System.out.println("Splits checked: " + numOfChecks + " (" + numOfHands + " random hands and "
+				+ worstCases().length + " worst cases, " + scorings.length + " scoring models)");
+		System.out.println(numOfFailures == 0 ? "PASSED" : "FAILED: " + numOfFailures + " splits");
+		return numOfFailures == 0;
+	}
+
+	/**
+	 * Runs the check, and exits with status 1 if it fails.
+	 *
+	 * @param args
+	 *            optionally the number of random hands
+	 */
+	public static void main(String[] args) {
+		int numOfHands = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_NUM_OF_HANDS;
+		boolean passed = new HandSplitterCheck(numOfHands).run();
+		System.exit(passed ? 0 : 1);
+	}
+}
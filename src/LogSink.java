@@ -0,0 +1,14 @@
+/**
+ * An interface for a sink receiving the entries of a server log (see
+ * ServerLog). A sink is called by the writer thread of the log only.
+ */
+public interface LogSink {
+	/**
+	 * Writes a batch of formatted log entries.
+	 * 
+	 * @param text
+	 *            the entries of the batch, one or more lines each ending with
+	 *            a line separator
+	 */
+	public void write(String text);
+}
@@ -0,0 +1,42 @@
+import java.io.IOException;
+
+/**
+ * An interface for converting game messages to and from the payload of a
+ * frame (see MessageFrames). The codec used on a connection is negotiated when
+ * the connection is established.
+ */
+public interface MessageCodec {
+	/**
+	 * Returns the id of this codec, as sent in the connection handshake.
+	 * 
+	 * @return the id of this codec
+	 */
+	public int getCodecID();
+
+	/**
+	 * Encodes the specified message into the payload of a frame.
+	 * 
+	 * @param message
+	 *            the message to be encoded
+	 * @return the payload of the frame
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public byte[] encode(GameMessage message) throws IOException;
+
+	/**
+	 * Decodes the payload of a frame into a message.
+	 * 
+	 * @param payload
+	 *            the array holding the payload
+	 * @param offset
+	 *            the offset of the payload in the array
+	 * @param length
+	 *            the length of the payload
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the payload is not a valid message
+	 */
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException;
+}
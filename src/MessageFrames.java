@@ -0,0 +1,162 @@
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+
+/**
+ * This class is used to convert game messages to and from length-prefixed
+ * frames. Each frame consists of a 4-byte big-endian length followed by a
+ * payload encoded by a MessageCodec, so that a frame can be decoded as soon as
+ * all of its bytes have arrived, without blocking on a stream.
+ * <p>
+ * A connection starts with a handshake: the client sends HANDSHAKE_MAGIC
+ * followed by the id of the codec it prefers, and the server replies with
+ * HANDSHAKE_MAGIC followed by the id of the codec used on the connection.
+ */
+public class MessageFrames {
+	/**
+	 * The size in bytes of the length prefix of a frame.
+	 */
+	public static final int HEADER_LENGTH = 4;
+	/**
+	 * The maximum length in bytes of the payload of a frame.
+	 */
+	public static final int MAX_FRAME_LENGTH = 64 * 1024;
+	/**
+	 * The magic number starting a handshake. It is larger than any valid frame
+	 * length, so it cannot be mistaken for a frame.
+	 */
+	public static final int HANDSHAKE_MAGIC = 0x42325450;
+	/**
+	 * The size in bytes of a handshake.
+	 */
+	public static final int HANDSHAKE_LENGTH = 5;
+
+	private MessageFrames() {
+	}
+
+	/**
+	 * Returns the server-side codec with the specified id, falling back to
+	 * Java serialization for an unknown id.
+	 * 
+	 * @param codecID
+	 *            the id of the codec requested by a client
+	 * @return the codec to be used on the connection
+	 */
+	public static MessageCodec getCodec(int codecID) {
+		if (codecID == BinaryMessageCodec.CODEC_ID) {
+			return BinaryMessageCodec.INSTANCE;
+		}
+		return SerializedMessageCodec.INSTANCE;
+	}
+
+	/**
+	 * Creates a handshake announcing the specified codec.
+	 * 
+	 * @param codecID
+	 *            the id of the codec
+	 * @return a buffer holding the handshake, ready to be written to a channel
+	 */
+	public static ByteBuffer handshake(int codecID) {
+		ByteBuffer handshake = ByteBuffer.allocate(HANDSHAKE_LENGTH);
+		handshake.putInt(HANDSHAKE_MAGIC);
+		handshake.put((byte) codecID);
+		handshake.flip();
+		return handshake;
+	}
+
+	/**
+	 * Writes a handshake announcing the specified codec to a blocking stream.
+	 * 
+	 * @param out
+	 *            the stream to which the handshake is written
+	 * @param codecID
+	 *            the id of the codec
+	 * @throws IOException
+	 *             if the handshake cannot be written
+	 */
+	public static void writeHandshake(OutputStream out, int codecID)
+			throws IOException {
+		out.write(handshake(codecID).array(), 0, HANDSHAKE_LENGTH);
+		out.flush();
+	}
+
+	/**
+	 * Reads a handshake from a blocking stream.
+	 * 
+	 * @param in
+	 *            the stream from which the handshake is read
+	 * @return the id of the codec announced by the handshake
+	 * @throws IOException
+	 *             if the handshake cannot be read or is not valid
+	 */
+	public static int readHandshake(DataInputStream in) throws IOException {
+		if (in.readInt() != HANDSHAKE_MAGIC) {
+			throw new IOException("Invalid handshake");
+		}
+		return in.readUnsignedByte();
+	}
+
+	/**
+	 * Encodes the specified message into a frame.
+	 * 
+	 * @param codec
+	 *            the codec used to encode the message
+	 * @param message
+	 *            the message to be encoded
+	 * @return a buffer holding the frame, ready to be written to a channel
+	 * @throws IOException
+	 *             if the message cannot be encoded
+	 */
+	public static ByteBuffer encode(MessageCodec codec, GameMessage message)
+			throws IOException {
+		byte[] payload = codec.encode(message);
+		ByteBuffer frame = ByteBuffer.allocate(HEADER_LENGTH + payload.length);
+		frame.putInt(payload.length);
+		frame.put(payload);
+		frame.flip();
+		return frame;
+	}
+
+	/**
+	 * Writes the specified message as a single frame to a blocking stream.
+	 * 
+	 * @param out
+	 *            the stream to which the frame is written
+	 * @param codec
+	 *            the codec used to encode the message
+	 * @param message
+	 *            the message to be written
+	 * @throws IOException
+	 *             if the frame cannot be written
+	 */
+	public static void writeFrame(OutputStream out, MessageCodec codec,
+			GameMessage message) throws IOException {
+		ByteBuffer frame = encode(codec, message);
+		// a single write keeps frames from concurrent senders intact
+		out.write(frame.array(), 0, frame.limit());
+		out.flush();
+	}
+
+	/**
+	 * Reads a single frame from a blocking stream and decodes it.
+	 * 
+	 * @param in
+	 *            the stream from which the frame is read
+	 * @param codec
+	 *            the codec used to decode the message
+	 * @return the decoded message
+	 * @throws IOException
+	 *             if the frame cannot be read or is not valid
+	 */
+	public static GameMessage readFrame(DataInputStream in, MessageCodec codec)
+			throws IOException {
+		int length = in.readInt();
+		if (length < 0 || length > MAX_FRAME_LENGTH) {
+			throw new IOException("Invalid frame length: " + length);
+		}
+		byte[] payload = new byte[length];
+		in.readFully(payload);
+		return codec.decode(payload, 0, length);
+	}
+}
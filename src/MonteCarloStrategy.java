@@ -0,0 +1,244 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Class that implements the BotStrategy interface with a determinized Monte
+ * Carlo search, bounded by a time budget per move.
+ * <p>
+ * The cards not seen by the player (neither in its hand nor on the table) are
+ * dealt at random to the other players, as many as each of them holds, and the
+ * rest of the game is played out from each candidate move with greedy moves
+ * for every player. Every play-out samples a new deal, so that the player does
+ * not look at the hidden cards. The candidate of each play-out is chosen with
+ * UCB1 over the wins so far, and the candidate played most often is chosen
+ * when the time budget or the number of play-outs runs out. The play-outs work
+ * on bitmasks of cards (see HandEvaluator) and do not create any card or hand.
+ * <p>
+ * A strategy holds no state between moves, and may be shared by any number of
+ * bots and threads. A bot uses its time budget on every move with more than
+ * one candidate, so the number of bots a core can run is the time between two
+ * moves of a bot divided by the time budget.
+ */
+public class MonteCarloStrategy implements BotStrategy {
+
+	/**
+	 * The default time budget of a move, in milliseconds.
+	 */
+	public static final long DEFAULT_TIME_BUDGET = 10;
+
+	// the bitmask of the 52 cards
+	private static final long ALL_CARDS = (1L << 52) - 1;
+	// the bitmask of the card which has to be played in the first hand of a game
+	private static final long THREE_OF_DIAMONDS = 1L << HandEvaluator.bitIndex(Card.valueOf(0, 2));
+	// the weight of the exploration term of UCB1
+	private static final double EXPLORATION = 0.7;
+	// the number of candidate moves of each size searched, from the weakest
+	private static final int MAX_CANDIDATES_PER_SIZE = 8;
+	// the number of moves after which a play-out is given up as a loss
+	private static final int MAX_PLAYOUT_MOVES = 400;
+
+	private final long timeBudget;
+	private final int maxPlayouts;
+
+	/**
+	 * Constructor for creating a strategy with the default time budget.
+	 */
+	public MonteCarloStrategy() {
+		this(DEFAULT_TIME_BUDGET, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for creating a strategy with a time budget per move.
+	 *
+	 * @param timeBudget (long) The time budget of a move, in milliseconds.
+	 */
+	public MonteCarloStrategy(long timeBudget) {
+		this(timeBudget, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Constructor for creating a strategy with a time budget and a maximum
+	 * number of play-outs per move, whichever runs out first.
+	 *
+	 * @param timeBudget (long) The time budget of a move, in milliseconds.
+	 * @param maxPlayouts (int) The maximum number of play-outs of a move.
+	 */
+	public MonteCarloStrategy(long timeBudget, int maxPlayouts) {
+		if (timeBudget <= 0 || maxPlayouts <= 0) {
+			throw new IllegalArgumentException("The time budget and the number of play-outs must be positive");
+		}
+		this.timeBudget = timeBudget * 1000000L;
+		this.maxPlayouts = maxPlayouts;
+	}
+
+	/**
+	 * Method for choosing the move of a player.
+	 *
+	 * @param game (CardGame) The card game being played.
+	 * @param playerID (int) The index of the player making the move.
+	 * @return int[] specifying the indices of the cards to be played, or null for a pass.
+	 */
+	public int[] chooseMove(CardGame game, int playerID) {
+		long deadline = System.nanoTime() + timeBudget;
+		ArrayList<CardGamePlayer> playerList = game.getPlayerList();
+		ArrayList<Hand> handsOnTable = game.getHandsOnTable();
+		int numOfPlayers = playerList.size();
+		CardList cards = playerList.get(playerID).getCardsInHand();
+		long hand = HandEvaluator.toMask(cards);
+
+		long seen = hand;
+		for (Hand played : handsOnTable) {
+			seen |= HandEvaluator.toMask(played);
+		}
+		Hand lastHand = handsOnTable.isEmpty() ? null : handsOnTable.get(handsOnTable.size() - 1);
+		int lastPlayer = lastHand == null ? -1 : playerList.indexOf(lastHand.getPlayer());
+		long lastTableMask = lastHand == null ? 0L : HandEvaluator.toMask(lastHand);
+		long lastMask = lastPlayer == playerID ? 0L : lastTableMask;
+
+		long[] moves = MoveGenerator.generate(hand, lastMask, lastHand == null ? THREE_OF_DIAMONDS : 0L);
+		long[] candidates = selectCandidates(moves, lastMask != 0L);
+		if (candidates.length == 0) {
+			return null;
+		}
+		if (candidates.length == 1) {
+			return toCardIdx(cards, candidates[0]);
+		}
+
+		// The hidden cards, to be dealt to the other players.
+		long unseen = ALL_CARDS & ~seen;
+		int[] hidden = new int[Long.bitCount(unseen)];
+		for (int i = 0; i < hidden.length; i++) {
+			hidden[i] = Long.numberOfTrailingZeros(unseen);
+			unseen &= unseen - 1;
+		}
+		int[] numOfCards = new int[numOfPlayers];
+		int numOfHidden = 0;
+		for (int i = 0; i < numOfPlayers; i++) {
+			if (i != playerID) {
+				numOfCards[i] = playerList.get(i).getNumOfCards();
+				numOfHidden += numOfCards[i];
+			}
+		}
+		if (numOfHidden != hidden.length) {
+			// the table does not account for every card: plays the weakest move
+			return toCardIdx(cards, candidates[lastMask == 0L ? 0 : 1]);
+		}
+
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int[] visits = new int[candidates.length];
+		double[] wins = new double[candidates.length];
+		long[] hands = new long[numOfPlayers];
+		int numOfPlayouts = 0;
+		while (numOfPlayouts < maxPlayouts && System.nanoTime() < deadline) {
+			// deals the hidden cards at random (Fisher-Yates shuffle)
+			for (int i = hidden.length - 1; i > 0; i--) {
+				int j = random.nextInt(i + 1);
+				int card = hidden[i];
+				hidden[i] = hidden[j];
+				hidden[j] = card;
+			}
+			int next = 0;
+			for (int i = 0; i < numOfPlayers; i++) {
+				hands[i] = (i == playerID) ? hand : 0L;
+				for (int j = 0; j < numOfCards[i]; j++) {
+					hands[i] |= 1L << hidden[next++];
+				}
+			}
+
+			int c = selectUCB1(visits, wins, numOfPlayouts);
+			if (playOut(hands, playerID, candidates[c], lastTableMask, lastPlayer) == playerID) {
+				wins[c]++;
+			}
+			visits[c]++;
+			numOfPlayouts++;
+		}
+
+		int best = 0;
+		for (int c = 1; c < candidates.length; c++) {
+			if (visits[c] > visits[best] || (visits[c] == visits[best] && wins[c] > wins[best])) {
+				best = c;
+			}
+		}
+		return toCardIdx(cards, candidates[best]);
+	}
+
+	/**
+	 * Method for selecting the candidate moves: a pass when following, and the
+	 * weakest moves of each size.
+	 */
+	private static long[] selectCandidates(long[] moves, boolean following) {
+		long[] candidates = new long[moves.length + 1];
+		int n = 0;
+		if (following) {
+			// a pass
+			candidates[n++] = 0L;
+		}
+		int numOfSameSize = 0;
+		for (int i = 0; i < moves.length; i++) {
+			if (i > 0 && Long.bitCount(moves[i]) != Long.bitCount(moves[i - 1])) {
+				numOfSameSize = 0;
+			}
+			if (numOfSameSize++ < MAX_CANDIDATES_PER_SIZE) {
+				candidates[n++] = moves[i];
+			}
+		}
+		if (following && n == 1) {
+			// the only move is a pass
+			return new long[] { 0L };
+		}
+		return Arrays.copyOf(candidates, n);
+	}
+
+	/**
+	 * Method for selecting the candidate of the next play-out, trying every
+	 * candidate once first.
+	 */
+	private static int selectUCB1(int[] visits, double[] wins, int numOfPlayouts) {
+		int best = 0;
+		double bestValue = -1;
+		double logPlayouts = Math.log(Math.max(1, numOfPlayouts));
+		for (int c = 0; c < visits.length; c++) {
+			if (visits[c] == 0) {
+				return c;
+			}
+			double value = wins[c] / visits[c] + EXPLORATION * Math.sqrt(logPlayouts / visits[c]);
+			if (value > bestValue) {
+				best = c;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Method for playing out the rest of a game with greedy moves, after the
+	 * specified move of the specified player.
+	 *
+	 * @return the index of the winner, or -1 if the play-out is given up.
+	 */
+	private static int playOut(long[] hands, int playerID, long move, long lastMask, int lastPlayer) {
+		int numOfPlayers = hands.length;
+		int current = playerID;
+		for (int n = 0; n < MAX_PLAYOUT_MOVES; n++) {
+			if (n > 0) {
+				boolean leading = lastPlayer == current || lastPlayer < 0;
+				move = MoveGenerator.weakest(hands[current], leading ? 0L : lastMask, 0L);
+			}
+			if (move != 0L) {
+				hands[current] &= ~move;
+				if (hands[current] == 0L) {
+					return current;
+				}
+				lastMask = move;
+				lastPlayer = current;
+			}
+			current = (current + 1) % numOfPlayers;
+		}
+		return -1;
+	}
+
+	private static int[] toCardIdx(CardList cards, long move) {
+		return move == 0L ? null : MoveGenerator.toCardIdx(cards, move);
+	}
+}
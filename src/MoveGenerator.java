@@ -0,0 +1,521 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * This class is used to enumerate the legal moves of a Big Two player: every
+ * Single, Pair, Triple and 5-card hand in the cards of the player which beats
+ * the last hand on the table, or every legal hand when the player leads.
+ * <p>
+ * A move is returned as a subset of the indices of the cards in the hand of the
+ * player, bit i standing for card i. Candidates are built from the cards
+ * grouped by rank and by suit (see HandEvaluator) rather than by visiting every
+ * subset of the hand, and the groups which cannot beat the last hand are pruned
+ * by its type and top card before their combinations are visited. The moves
+ * are ranked with HandRanking.
+ */
+public final class MoveGenerator {
+	/**
+	 * The maximum number of cards in a hand.
+	 */
+	public static final int MAX_NUM_OF_CARDS = 31;
+
+	// the card which has to be played in the first hand of a game
+	private static final Card THREE_OF_DIAMONDS = Card.valueOf(0, 2);
+	// the number of Big Two ranks
+	private static final int NUM_OF_RANKS = 13;
+
+	private MoveGenerator() {
+	}
+
+	/**
+	 * Returns the legal moves of the specified player, who is the current
+	 * player of the specified game.
+	 *
+	 * @param game
+	 *            the card game, holding the cards of the player and the hands
+	 *            played on the table
+	 * @param playerID
+	 *            the playerID of the player
+	 * @return the legal moves (see generate(CardList, Hand, Card))
+	 */
+	public static int[] generate(CardGame game, int playerID) {
+		return collect(game, playerID, false).toArray();
+	}
+
+	/**
+	 * Returns the weakest legal move of the specified player, who is the
+	 * current player of the specified game. This is the first move returned
+	 * by generate(), found without visiting the stronger moves.
+	 *
+	 * @param game
+	 *            the card game, holding the cards of the player and the hands
+	 *            played on the table
+	 * @param playerID
+	 *            the playerID of the player
+	 * @return the weakest legal move, or 0 if the player can only pass
+	 */
+	public static int weakest(CardGame game, int playerID) {
+		return collect(game, playerID, true).getWeakest();
+	}
+
+	/**
+	 * Returns the legal moves with the specified cards. The moves are sorted
+	 * by size, and then from the weakest to the strongest hand, so that the
+	 * first move is the weakest one. A pass is not included.
+	 *
+	 * @param cards
+	 *            the cards in the hand of the player
+	 * @param lastHand
+	 *            the hand to be beaten, or null if the player leads
+	 * @param required
+	 *            a card which has to be played, or null
+	 * @return the legal moves, each a subset of the indices of the cards
+	 */
+	public static int[] generate(CardList cards, Hand lastHand, Card required) {
+		return collect(cards, lastHand, required, false).toArray();
+	}
+
+	/**
+	 * Returns the weakest legal move with the specified cards. This is the
+	 * first move returned by generate(), found without visiting the stronger
+	 * moves.
+	 *
+	 * @param cards
+	 *            the cards in the hand of the player
+	 * @param lastHand
+	 *            the hand to be beaten, or null if the player leads
+	 * @param required
+	 *            a card which has to be played, or null
+	 * @return the weakest legal move, or 0 if there is none
+	 */
+	public static int weakest(CardList cards, Hand lastHand, Card required) {
+		return collect(cards, lastHand, required, true).getWeakest();
+	}
+
+	/**
+	 * Returns the legal moves with the cards of the specified bitmask (see
+	 * HandEvaluator), e.g. to search the moves of a game without creating any
+	 * cards or hands. The moves are sorted as by generate(CardList, Hand, Card).
+	 *
+	 * @param cards
+	 *            the bitmask of the cards in the hand of the player
+	 * @param lastHand
+	 *            the bitmask of the hand to be beaten, or 0 if the player leads
+	 * @param required
+	 *            the bitmask of a card which has to be played, or 0
+	 * @return the legal moves, each the bitmask of the cards played
+	 */
+	public static long[] generate(long cards, long lastHand, long required) {
+		Moves moves = collect(toBits(cards), lastHand, required, false);
+		int[] subsets = moves.toArray();
+		long[] masks = new long[subsets.length];
+		for (int i = 0; i < subsets.length; i++) {
+			masks[i] = moves.toMask(subsets[i]);
+		}
+		return masks;
+	}
+
+	/**
+	 * Returns the weakest legal move with the cards of the specified bitmask
+	 * (see HandEvaluator).
+	 *
+	 * @param cards
+	 *            the bitmask of the cards in the hand of the player
+	 * @param lastHand
+	 *            the bitmask of the hand to be beaten, or 0 if the player leads
+	 * @param required
+	 *            the bitmask of a card which has to be played, or 0
+	 * @return the bitmask of the cards of the weakest legal move, or 0 if
+	 *         there is none
+	 */
+	public static long weakest(long cards, long lastHand, long required) {
+		Moves moves = collect(toBits(cards), lastHand, required, true);
+		return moves.toMask(moves.getWeakest());
+	}
+
+	private static Moves collect(CardGame game, int playerID, boolean weakestOnly) {
+		CardList cards = game.getPlayerList().get(playerID).getCardsInHand();
+		ArrayList<Hand> handsOnTable = game.getHandsOnTable();
+		if (handsOnTable.isEmpty()) {
+			// the first hand of a game
+			return collect(cards, null, THREE_OF_DIAMONDS, weakestOnly);
+		}
+		Hand lastHand = handsOnTable.get(handsOnTable.size() - 1);
+		if (lastHand.getPlayer() == game.getPlayerList().get(playerID)) {
+			// everyone else has passed
+			return collect(cards, null, null, weakestOnly);
+		}
+		return collect(cards, lastHand, null, weakestOnly);
+	}
+
+	/**
+	 * Collects the legal moves, in the order of their size and type, so that
+	 * the search for the weakest move stops at the first group of cards which
+	 * holds one.
+	 */
+	private static Moves collect(CardList cards, Hand lastHand, Card required,
+			boolean weakestOnly) {
+		int n = cards.size();
+		if (n > MAX_NUM_OF_CARDS) {
+			throw new IllegalArgumentException("Too many cards: " + n);
+		}
+		long[] bits = new long[n];
+		for (int i = 0; i < n; i++) {
+			bits[i] = HandEvaluator.bit(cards.getCard(i));
+		}
+		return collect(bits, lastHand == null ? 0L : HandEvaluator.toMask(lastHand),
+				required == null ? 0L : 1L << HandEvaluator.bitIndex(required), weakestOnly);
+	}
+
+	/**
+	 * Returns the bit of each card of a bitmask, from the weakest card.
+	 */
+	private static long[] toBits(long cards) {
+		if (Long.bitCount(cards) > MAX_NUM_OF_CARDS) {
+			throw new IllegalArgumentException("Too many cards: " + Long.bitCount(cards));
+		}
+		long[] bits = new long[Long.bitCount(cards)];
+		for (int i = 0; i < bits.length; i++) {
+			bits[i] = cards & -cards;
+			cards &= cards - 1;
+		}
+		return bits;
+	}
+
+	/**
+	 * Collects the legal moves with the cards of the specified bits (card i
+	 * being bits[i]), given the bitmasks of the last hand and of the required
+	 * card (0 if none).
+	 */
+	private static Moves collect(long[] bits, long lastMask, long required,
+			boolean weakestOnly) {
+		int n = bits.length;
+		Moves moves = new Moves(bits, weakestOnly);
+		for (int i = 0; i < n; i++) {
+			int bit = Long.numberOfTrailingZeros(bits[i]);
+			moves.ranks[bit >>> 2] |= 1 << i;
+			moves.suits[bit & 3] |= 1 << i;
+		}
+		moves.required = required;
+
+		int lastSize = 0;
+		int lastType = HandEvaluator.INVALID;
+		int lastRank = 0;
+		if (lastMask != 0L) {
+			lastSize = Long.bitCount(lastMask);
+			if (lastSize == 5) {
+				lastType = HandEvaluator.classify(lastMask);
+				lastRank = HandEvaluator.topCard(lastMask, lastType) >>> 2;
+			} else {
+				// the cards of a Single, Pair or Triple are of the same rank
+				lastRank = (63 - Long.numberOfLeadingZeros(lastMask)) >>> 2;
+			}
+			moves.lastStrength = HandRanking.strength(lastMask);
+		}
+
+		if (lastSize == 0 || lastSize == 1) {
+			addSingles(moves, lastRank);
+		}
+		if (!moves.isDone() && (lastSize == 0 || lastSize == 2)) {
+			addGroups(moves, 2, lastRank);
+		}
+		if (!moves.isDone() && (lastSize == 0 || lastSize == 3)) {
+			addGroups(moves, 3, lastRank);
+		}
+		if (!moves.isDone() && (lastSize == 0 || lastSize == 5)) {
+			addFiveCardHands(moves, lastType, lastRank);
+		}
+		return moves;
+	}
+
+	/**
+	 * Returns the indices of the cards of a move.
+	 *
+	 * @param move
+	 *            a move, as returned by generate()
+	 * @return the list of the indices of the cards
+	 */
+	public static int[] toCardIdx(int move) {
+		int[] cardIdx = new int[Integer.bitCount(move)];
+		for (int i = 0; i < cardIdx.length; i++) {
+			cardIdx[i] = Integer.numberOfTrailingZeros(move);
+			move &= move - 1;
+		}
+		return cardIdx;
+	}
+
+	/**
+	 * Returns the indices of the cards of a move given as a bitmask.
+	 *
+	 * @param cards
+	 *            the cards in the hand of the player
+	 * @param move
+	 *            the bitmask of the cards played, as returned by
+	 *            generate(long, long, long)
+	 * @return the list of the indices of the cards
+	 */
+	public static int[] toCardIdx(CardList cards, long move) {
+		int[] cardIdx = new int[Long.bitCount(move)];
+		int n = 0;
+		for (int i = 0; i < cards.size() && n < cardIdx.length; i++) {
+			long bit = HandEvaluator.bit(cards.getCard(i));
+			if ((move & bit) != 0) {
+				cardIdx[n++] = i;
+				move &= ~bit;
+			}
+		}
+		return cardIdx;
+	}
+
+	private static void addSingles(Moves moves, int fromRank) {
+		for (int rank = fromRank; rank < NUM_OF_RANKS; rank++) {
+			for (int rest = moves.ranks[rank]; rest != 0; rest &= rest - 1) {
+				moves.add(rest & -rest);
+			}
+			if (moves.isDone()) {
+				return;
+			}
+		}
+	}
+
+	/**
+	 * Adds the Pairs (size 2) or Triples (size 3), from the specified rank up.
+	 */
+	private static void addGroups(Moves moves, int size, int fromRank) {
+		for (int rank = fromRank; rank < NUM_OF_RANKS; rank++) {
+			addCombinations(moves, moves.ranks[rank], size, 0);
+			if (moves.isDone()) {
+				return;
+			}
+		}
+	}
+
+	private static void addFiveCardHands(Moves moves, int lastType, int lastRank) {
+		int minType = (lastType == HandEvaluator.INVALID) ? HandEvaluator.STRAIGHT : lastType;
+
+		// Straights and Straight Flushes, by their lowest rank; below the
+		// lowest rank of a Straight beating the last hand, only Straight
+		// Flushes can beat it
+		int straightRank = NUM_OF_RANKS;
+		if (minType <= HandEvaluator.STRAIGHT) {
+			straightRank = (lastType == HandEvaluator.STRAIGHT) ? Math.max(0, lastRank - 4) : 0;
+		}
+		for (int rank = 0; rank + 5 <= NUM_OF_RANKS; rank++) {
+			if (rank >= straightRank) {
+				addStraights(moves, rank, 0, 0);
+			} else {
+				addStraightFlushes(moves, rank);
+			}
+			if (moves.isDone()) {
+				return;
+			}
+		}
+
+		// Flushes, skipping the Straight Flushes added above
+		if (minType <= HandEvaluator.FLUSH) {
+			for (int suit = 0; suit < 4; suit++) {
+				if (Integer.bitCount(moves.suits[suit]) >= 5) {
+					addFlushes(moves, moves.suits[suit]);
+				}
+				if (moves.isDone()) {
+					return;
+				}
+			}
+		}
+
+		// Full Houses, by the rank of their triplet
+		if (minType <= HandEvaluator.FULL_HOUSE) {
+			int fromRank = (lastType == HandEvaluator.FULL_HOUSE) ? lastRank : 0;
+			for (int rank = fromRank; rank < NUM_OF_RANKS; rank++) {
+				int triplet = moves.ranks[rank];
+				if (Integer.bitCount(triplet) < 3) {
+					continue;
+				}
+				for (int pairRank = 0; pairRank < NUM_OF_RANKS; pairRank++) {
+					int pair = moves.ranks[pairRank];
+					if (pairRank == rank || Integer.bitCount(pair) < 2) {
+						continue;
+					}
+					for (int t = triplet; t != 0; t = (t - 1) & triplet) {
+						if (Integer.bitCount(t) == 3) {
+							addCombinations(moves, pair, 2, t);
+						}
+					}
+				}
+				if (moves.isDone()) {
+					return;
+				}
+			}
+		}
+
+		// Quads, by the rank of their quadruple, with any other card
+		if (minType <= HandEvaluator.QUAD) {
+			int fromRank = (lastType == HandEvaluator.QUAD) ? lastRank : 0;
+			for (int rank = fromRank; rank < NUM_OF_RANKS; rank++) {
+				int quadruple = moves.ranks[rank];
+				if (Integer.bitCount(quadruple) == 4) {
+					int others = moves.all & ~quadruple;
+					for (int rest = others; rest != 0; rest &= rest - 1) {
+						moves.add(quadruple | (rest & -rest));
+					}
+				}
+				if (moves.isDone()) {
+					return;
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds every Straight of five consecutive ranks starting at the specified
+	 * rank, choosing one card of each rank in turn.
+	 */
+	private static void addStraights(Moves moves, int rank, int depth, int subset) {
+		if (depth == 5) {
+			moves.add(subset);
+			return;
+		}
+		for (int rest = moves.ranks[rank + depth]; rest != 0; rest &= rest - 1) {
+			addStraights(moves, rank, depth + 1, subset | (rest & -rest));
+		}
+	}
+
+	/**
+	 * Adds the Straight Flushes of five consecutive ranks starting at the
+	 * specified rank.
+	 */
+	private static void addStraightFlushes(Moves moves, int rank) {
+		for (int suit = 0; suit < 4; suit++) {
+			int subset = 0;
+			for (int r = rank; r < rank + 5; r++) {
+				subset |= moves.ranks[r] & moves.suits[suit];
+			}
+			if (Integer.bitCount(subset) == 5) {
+				moves.add(subset);
+			}
+		}
+	}
+
+	private static void addFlushes(Moves moves, int suit) {
+		int[] positions = positions(suit);
+		int n = positions.length;
+		// every 5-subset of the cards of the suit (Gosper's hack)
+		for (int c = 0x1F; c < (1 << n); ) {
+			int subset = 0;
+			for (int rest = c; rest != 0; rest &= rest - 1) {
+				subset |= 1 << positions[Integer.numberOfTrailingZeros(rest)];
+			}
+			if (HandEvaluator.classify(moves.toMask(subset)) != HandEvaluator.STRAIGHT_FLUSH) {
+				moves.add(subset);
+			}
+			int lowest = c & -c;
+			int ripple = c + lowest;
+			c = (((ripple ^ c) >>> 2) / lowest) | ripple;
+		}
+	}
+
+	/**
+	 * Adds every subset of k cards of a group, together with the specified
+	 * cards.
+	 */
+	private static void addCombinations(Moves moves, int group, int k, int with) {
+		if (Integer.bitCount(group) < k) {
+			return;
+		}
+		// the groups of a rank hold up to 4 cards, so all their subsets are visited
+		for (int subset = group; subset != 0; subset = (subset - 1) & group) {
+			if (Integer.bitCount(subset) == k) {
+				moves.add(subset | with);
+			}
+		}
+	}
+
+	private static int[] positions(int set) {
+		int[] positions = new int[Integer.bitCount(set)];
+		for (int i = 0; i < positions.length; i++) {
+			positions[i] = Integer.numberOfTrailingZeros(set);
+			set &= set - 1;
+		}
+		return positions;
+	}
+
+	/**
+	 * The cards of a hand grouped by rank and by suit, and the moves found so
+	 * far, each packed with its size and strength for sorting. When only the
+	 * weakest move is wanted, only the weakest move found so far is kept.
+	 */
+	private static final class Moves {
+		private final long[] bits;
+		private final int[] ranks = new int[NUM_OF_RANKS];
+		private final int[] suits = new int[4];
+		private final int all;
+		private long required = 0L;
+		private int lastStrength = 0;
+		private final boolean weakestOnly;
+		private long[] moves;
+		private int numOfMoves = 0;
+
+		private Moves(long[] bits, boolean weakestOnly) {
+			this.bits = bits;
+			all = (int) ((1L << bits.length) - 1);
+			this.weakestOnly = weakestOnly;
+			moves = new long[weakestOnly ? 1 : 16];
+		}
+
+		/**
+		 * Checks whether the search for the weakest move can stop: the groups
+		 * of cards are visited from the weakest, except that the Straight
+		 * Flushes found among the Straights are stronger than all the other
+		 * 5-card hands.
+		 */
+		private boolean isDone() {
+			return weakestOnly && numOfMoves > 0
+					&& HandEvaluator.classify(toMask((int) moves[0])) != HandEvaluator.STRAIGHT_FLUSH;
+		}
+
+		private int getWeakest() {
+			return numOfMoves == 0 ? 0 : (int) moves[0];
+		}
+
+		private long toMask(int subset) {
+			long mask = 0L;
+			for (int rest = subset; rest != 0; rest &= rest - 1) {
+				mask |= bits[Integer.numberOfTrailingZeros(rest)];
+			}
+			return mask;
+		}
+
+		private void add(int subset) {
+			long mask = toMask(subset);
+			if ((mask & required) != required) {
+				return;
+			}
+			int strength = HandRanking.strength(mask);
+			if (strength <= lastStrength) {
+				return;
+			}
+			long move = ((long) Integer.bitCount(subset) << 48)
+					| ((long) strength << 32) | (subset & 0xFFFFFFFFL);
+			if (weakestOnly) {
+				if (numOfMoves == 0 || move < moves[0]) {
+					moves[0] = move;
+					numOfMoves = 1;
+				}
+				return;
+			}
+			if (numOfMoves == moves.length) {
+				moves = Arrays.copyOf(moves, 2 * numOfMoves);
+			}
+			moves[numOfMoves++] = move;
+		}
+
+		private int[] toArray() {
+			Arrays.sort(moves, 0, numOfMoves);
+			int[] result = new int[numOfMoves];
+			for (int i = 0; i < numOfMoves; i++) {
+				result[i] = (int) moves[i];
+			}
+			return result;
+		}
+	}
+}
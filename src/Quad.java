@@ -26,34 +26,8 @@ public class Quad extends Hand {
 	public boolean isValid() {
 		if (this.size() != 5) return false;
 		
-		int rank1 = this.getCard(0).getRank();
-		int rank2 = -1;
-		
-		// To store quadruple and single
-		CardList templist1 = new CardList();
-		CardList templist2 = new CardList();
-		
-		// Get the second type of rank
-		for (int i = 0; i < 5; i++) {
-			if (this.getCard(i).getRank() != rank1) {
-				rank2 = this.getCard(i).getRank();
-				break;
-			}
-		}
-		
-		// Fill templist1 and templist2
-		for (int i = 0; i < 5; i++) {
-			if (this.getCard(i).getRank() == rank1) {
-				templist1.addCard(this.getCard(i));
-			} else if (this.getCard(i).getRank() == rank2) {
-				templist2.addCard(this.getCard(i));
-			}
-		}
-		
-		if (templist1.size() == 4 && templist2.size() == 1 || templist1.size() == 1 && templist2.size() == 4) {
-			return true;
-		}
-		return false;
+		long mask = HandEvaluator.toMask(this);
+		return HandEvaluator.classify(mask) == HandEvaluator.QUAD;
 	}
 	
 	/**
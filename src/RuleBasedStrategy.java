@@ -0,0 +1,127 @@
+/**
+ * Class that implements the BotStrategy interface with a few rules of
+ * thumb of Big Two players.
+ * <p>
+ * When leading, plays the move getting rid of the most cards for the lowest
+ * top card, without breaking up a Pair or a Triple. When following, plays the
+ * weakest move which neither breaks up a Pair or a Triple nor spends a '2',
+ * and passes otherwise while the other players still have many cards. As soon
+ * as another player is down to 2 cards or less, plays the strongest move to
+ * keep the lead. Only the cards of the player, the numbers of cards of the other
+ * players and the hands on the table are looked at. A move takes microseconds,
+ * well within any time budget.
+ */
+public class RuleBasedStrategy implements BotStrategy {
+
+	// the bitmask of the card which has to be played in the first hand of a game
+	private static final long THREE_OF_DIAMONDS = 1L << HandEvaluator.bitIndex(Card.valueOf(0, 2));
+	// the Big Two rank of the '2', the strongest rank
+	private static final int RANK_OF_TWO = 12;
+	// the number of cards of another player below which the strongest moves are played
+	private static final int DANGER = 2;
+	// the number of cards of the other players above which a '2' is kept
+	private static final int KEEP_TWOS = 5;
+
+	/**
+	 * Method for choosing the move of a player.
+	 *
+	 * @param game (CardGame) The card game being played.
+	 * @param playerID (int) The index of the player making the move.
+	 * @return int[] specifying the indices of the cards to be played, or null for a pass.
+	 */
+	public int[] chooseMove(CardGame game, int playerID) {
+		CardList cards = game.getPlayerList().get(playerID).getCardsInHand();
+		long hand = HandEvaluator.toMask(cards);
+		Hand lastHand = game.getHandsOnTable().isEmpty() ? null
+				: game.getHandsOnTable().get(game.getHandsOnTable().size() - 1);
+		boolean leading = lastHand == null || lastHand.getPlayer() == game.getPlayerList().get(playerID);
+
+		long[] moves = MoveGenerator.generate(hand, leading ? 0L : HandEvaluator.toMask(lastHand),
+				lastHand == null ? THREE_OF_DIAMONDS : 0L);
+		if (moves.length == 0) {
+			return null;
+		}
+
+		// The fewest cards held by another player.
+		int fewestCards = Integer.MAX_VALUE;
+		for (int i = 0; i < game.getPlayerList().size(); i++) {
+			if (i != playerID) {
+				fewestCards = Math.min(fewestCards, game.getPlayerList().get(i).getNumOfCards());
+			}
+		}
+
+		long move = leading ? chooseLead(hand, moves, fewestCards) : chooseFollow(hand, moves, fewestCards);
+		return move == 0 ? null : MoveGenerator.toCardIdx(cards, move);
+	}
+
+	/**
+	 * Method for choosing the move of a player leading.
+	 */
+	private long chooseLead(long hand, long[] moves, int fewestCards) {
+		long best = 0;
+		int bestValue = Integer.MIN_VALUE;
+		int strongestCard = topCard(hand);
+		for (long move : moves) {
+			if (move == hand) {
+				// the last move of the game
+				return move;
+			}
+			int size = Long.bitCount(move);
+			int value = 10 * size - rankOf(topCard(move)) - 6 * numOfBrokenGroups(hand, move);
+			if (size == 1 && fewestCards <= DANGER && topCard(move) != strongestCard) {
+				// a low Single would let the other player go out
+				value -= 20;
+			}
+			if (value > bestValue) {
+				best = move;
+				bestValue = value;
+			}
+		}
+		return best;
+	}
+
+	/**
+	 * Method for choosing the move of a player following, or 0 for a pass.
+	 * The moves are all of the same size, from the weakest.
+	 */
+	private long chooseFollow(long hand, long[] moves, int fewestCards) {
+		if (fewestCards <= DANGER) {
+			return moves[moves.length - 1];
+		}
+		for (long move : moves) {
+			if (Long.bitCount(move) == 5
+					|| (numOfBrokenGroups(hand, move) == 0 && rankOf(topCard(move)) < RANK_OF_TWO)) {
+				return move;
+			}
+		}
+		// Spends a '2' or breaks a group only when the game is getting short.
+		if (fewestCards <= KEEP_TWOS || Long.bitCount(hand) <= KEEP_TWOS) {
+			return moves[0];
+		}
+		return 0;
+	}
+
+	/**
+	 * Method for counting the Pairs, Triples and Quads of the hand of which
+	 * some but not all cards are played.
+	 */
+	private static int numOfBrokenGroups(long hand, long move) {
+		int broken = 0;
+		for (int ranks = HandEvaluator.rankMask(move); ranks != 0; ranks &= ranks - 1) {
+			long group = 0xFL << (4 * Integer.numberOfTrailingZeros(ranks));
+			int held = Long.bitCount(hand & group);
+			if (held >= 2 && Long.bitCount(move & group) < held) {
+				broken++;
+			}
+		}
+		return broken;
+	}
+
+	private static int topCard(long mask) {
+		return 63 - Long.numberOfLeadingZeros(mask);
+	}
+
+	private static int rankOf(int bit) {
+		return bit >>> 2;
+	}
+}
@@ -0,0 +1,66 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputFilter;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+/**
+ * This class implements the MessageCodec interface with Java serialization.
+ * It is the fallback codec supported by every client and server.
+ * <p>
+ * Stream lifecycle: every payload is a self-contained object stream holding a
+ * single message, i.e. the stream is reset after every frame. No handle table
+ * outlives a message on either end, so memory does not grow with the length of
+ * a session, and an object sent again is always sent with its current state
+ * rather than as a back-reference. Resetting per game or by byte budget would
+ * save the class descriptors repeated in every frame, but needs one stream per
+ * connection, which rules out encoding a broadcast frame once for all its
+ * recipients; the binary codec is the compact option instead.
+ * <p>
+ * The object graph of a payload is bounded by a filter, so that a frame cannot
+ * make the decoder allocate more than its own size allows.
+ */
+public class SerializedMessageCodec implements MessageCodec {
+	/**
+	 * The id of this codec.
+	 */
+	public static final int CODEC_ID = 0;
+
+	/**
+	 * The shared instance of this codec. The codec holds no state.
+	 */
+	public static final SerializedMessageCodec INSTANCE = new SerializedMessageCodec();
+
+	// limits of the object graph of a payload; a deck is the largest message
+	private static final ObjectInputFilter FILTER = ObjectInputFilter.Config
+			.createFilter("maxdepth=16;maxrefs=1024;maxarray=1024;maxbytes="
+					+ MessageFrames.MAX_FRAME_LENGTH);
+
+	// implementation of method from the MessageCodec interface
+	public int getCodecID() {
+		return CODEC_ID;
+	}
+
+	// implementation of method from the MessageCodec interface
+	public byte[] encode(GameMessage message) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+		ObjectOutputStream oostream = new ObjectOutputStream(bytes);
+		oostream.writeObject(message);
+		oostream.close();
+		return bytes.toByteArray();
+	}
+
+	// implementation of method from the MessageCodec interface
+	public GameMessage decode(byte[] payload, int offset, int length)
+			throws IOException {
+		ObjectInputStream oistream = new ObjectInputStream(
+				new ByteArrayInputStream(payload, offset, length));
+		oistream.setObjectInputFilter(FILTER);
+		try {
+			return (GameMessage) oistream.readObject();
+		} catch (ClassNotFoundException | ClassCastException ex) {
+			throw new IOException("Invalid message in frame", ex);
+		}
+	}
+}
@@ -0,0 +1,329 @@
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * This class is used to model the log of a card game server. Logging never
+ * blocks on I/O: entries are put in a bounded ring buffer and are formatted
+ * and delivered to the sinks (see LogSink) in batches by a background writer
+ * thread. Entries below the level of the log are discarded without locking,
+ * and entries arriving while the ring buffer is full are dropped and counted.
+ */
+public class ServerLog {
+	/**
+	 * Level of the detailed messages, e.g., a message received or broadcast.
+	 */
+	public static final int DEBUG = 0;
+	/**
+	 * Level of the messages about the state of the server and its rooms.
+	 */
+	public static final int INFO = 1;
+	/**
+	 * Level of the messages about abnormal conditions, e.g., a slow client.
+	 */
+	public static final int WARN = 2;
+	/**
+	 * Level of the messages about errors.
+	 */
+	public static final int ERROR = 3;
+	/**
+	 * The default capacity of the ring buffer, in entries.
+	 */
+	public static final int DEFAULT_CAPACITY = 8192;
+
+	// names of the levels
+	private static final String[] LEVEL_NAMES = { "DEBUG", "INFO", "WARN",
+			"ERROR" };
+	// the longest time the writer waits before delivering a batch, in ms
+	private static final long FLUSH_INTERVAL = 100;
+
+	// the ring buffer: time, level, message and exception of the entries
+	private final long[] times;
+	private final int[] levels;
+	private final String[] messages;
+	private final Throwable[] exceptions;
+	// lock guarding the ring buffer
+	private final ReentrantLock lock = new ReentrantLock();
+	// signalled when entries are put in an empty ring buffer
+	private final Condition notEmpty = lock.newCondition();
+	// index of the oldest entry and number of entries in the ring buffer
+	private int head = 0;
+	private int size = 0;
+	// number of entries dropped since the last batch
+	private long droppedEntries = 0;
+	// the lowest level of the entries kept
+	private volatile int level = INFO;
+	// the sinks receiving the batches
+	private final CopyOnWriteArrayList<LogSink> sinks = new CopyOnWriteArrayList<LogSink>();
+	// the writer thread
+	private final Thread writer;
+	// a boolean indicating if the log is open
+	private volatile boolean open = true;
+
+	/**
+	 * Creates and returns an instance of the ServerLog class with a ring buffer
+	 * of the default capacity.
+	 */
+	public ServerLog() {
+		this(DEFAULT_CAPACITY);
+	}
+
+	/**
+	 * Creates and returns an instance of the ServerLog class, and starts its
+	 * writer thread.
+	 *
+	 * @param capacity
+	 *            the capacity of the ring buffer, in entries
+	 */
+	public ServerLog(int capacity) {
+		times = new long[capacity];
+		levels = new int[capacity];
+		messages = new String[capacity];
+		exceptions = new Throwable[capacity];
+
+		writer = new Thread(new Runnable() {
+			public void run() {
+				writeLoop();
+			}
+		}, "ServerLog");
+		writer.setDaemon(true);
+		writer.start();
+
+		// delivers the remaining entries when the process exits
+		Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+			public void run() {
+				close();
+			}
+		}));
+	}
+
+	/**
+	 * Returns the lowest level of the entries kept by this log.
+	 *
+	 * @return DEBUG, INFO, WARN or ERROR
+	 */
+	public int getLevel() {
+		return level;
+	}
+
+	/**
+	 * Sets the lowest level of the entries kept by this log.
+	 *
+	 * @param level
+	 *            DEBUG, INFO, WARN or ERROR
+	 */
+	public void setLevel(int level) {
+		this.level = level;
+	}
+
+	/**
+	 * Returns the level of the specified name.
+	 *
+	 * @param name
+	 *            the name of a level, e.g., "DEBUG"
+	 * @return the level of the specified name, or -1 if there is none
+	 */
+	public static int parseLevel(String name) {
+		for (int i = 0; i < LEVEL_NAMES.length; i++) {
+			if (LEVEL_NAMES[i].equalsIgnoreCase(name)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Checks whether the entries of the specified level are kept by this log.
+	 *
+	 * @param level
+	 *            DEBUG, INFO, WARN or ERROR
+	 * @return true if the entries of the specified level are kept
+	 */
+	public boolean isEnabled(int level) {
+		return level >= this.level;
+	}
+
+	/**
+	 * Adds a sink receiving the batches of this log.
+	 *
+	 * @param sink
+	 *            the sink to be added
+	 */
+	public void addSink(LogSink sink) {
+		sinks.add(sink);
+	}
+
+	/**
+	 * Removes a sink from this log.
+	 *
+	 * @param sink
+	 *            the sink to be removed
+	 */
+	public void removeSink(LogSink sink) {
+		sinks.remove(sink);
+	}
+
+	/**
+	 * Logs the specified message. This method may be called from any thread
+	 * and never blocks on I/O.
+	 *
+	 * @param level
+	 *            DEBUG, INFO, WARN or ERROR
+	 * @param msg
+	 *            the message to be logged
+	 */
+	public void log(int level, String msg) {
+		log(level, msg, null);
+	}
+
+	/**
+	 * Logs the specified message together with an exception. This method may
+	 * be called from any thread and never blocks on I/O.
+	 *
+	 * @param level
+	 *            DEBUG, INFO, WARN or ERROR
+	 * @param msg
+	 *            the message to be logged
+	 * @param ex
+	 *            the exception to be logged, or null
+	 */
+	public void log(int level, String msg, Throwable ex) {
+		if (level < this.level || !open) {
+			return;
+		}
+		lock.lock();
+		try {
+			if (size == messages.length) {
+				droppedEntries++;
+				return;
+			}
+			int i = (head + size) % messages.length;
+			times[i] = System.currentTimeMillis();
+			levels[i] = level;
+			messages[i] = msg;
+			exceptions[i] = ex;
+			if (size++ == 0) {
+				notEmpty.signal();
+			}
+		} finally {
+			lock.unlock();
+		}
+	}
+
+	/**
+	 * Stops the writer thread once it has delivered the remaining entries.
+	 */
+	public void close() {
+		if (!open) {
+			return;
+		}
+		open = false;
+		lock.lock();
+		try {
+			notEmpty.signal();
+		} finally {
+			lock.unlock();
+		}
+		try {
+			writer.join(1000);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Takes the entries out of the ring buffer in batches, formats them, and
+	 * delivers each batch to the sinks. Run by the writer thread.
+	 */
+	private void writeLoop() {
+		SimpleDateFormat format = new SimpleDateFormat("HH:mm:ss.SSS");
+		StringBuilder batch = new StringBuilder();
+		// the entries of a batch, copied out of the ring buffer
+		long[] batchTimes = new long[messages.length];
+		int[] batchLevels = new int[messages.length];
+		String[] batchMessages = new String[messages.length];
+		Throwable[] batchExceptions = new Throwable[messages.length];
+		while (true) {
+			lock.lock();
+			try {
+				if (size == 0 && droppedEntries == 0) {
+					if (!open) {
+						return;
+					}
+					try {
+						notEmpty.await();
+					} catch (InterruptedException ex) {
+						return;
+					}
+				}
+			} finally {
+				lock.unlock();
+			}
+
+			// lets the entries accumulate, so that a burst makes one batch
+			if (open) {
+				try {
+					TimeUnit.MILLISECONDS.sleep(FLUSH_INTERVAL);
+				} catch (InterruptedException ex) {
+					// delivers what is there
+				}
+			}
+
+			// copies the entries out, and formats them without the lock
+			int numOfEntries;
+			long dropped;
+			lock.lock();
+			try {
+				numOfEntries = size;
+				for (int j = 0; j < numOfEntries; j++) {
+					batchTimes[j] = times[head];
+					batchLevels[j] = levels[head];
+					batchMessages[j] = messages[head];
+					batchExceptions[j] = exceptions[head];
+					messages[head] = null;
+					exceptions[head] = null;
+					head = (head + 1) % messages.length;
+				}
+				size = 0;
+				dropped = droppedEntries;
+				droppedEntries = 0;
+			} finally {
+				lock.unlock();
+			}
+
+			for (int j = 0; j < numOfEntries; j++) {
+				batch.append(format.format(new Date(batchTimes[j]))).append(' ')
+						.append(LEVEL_NAMES[batchLevels[j]]).append(' ')
+						.append(batchMessages[j]).append('\n');
+				if (batchExceptions[j] != null) {
+					StringWriter trace = new StringWriter();
+					batchExceptions[j].printStackTrace(new PrintWriter(trace));
+					batch.append(trace);
+				}
+				batchMessages[j] = null;
+				batchExceptions[j] = null;
+			}
+			if (dropped > 0) {
+				batch.append(dropped).append(" log entries dropped\n");
+			}
+
+			if (batch.length() == 0) {
+				continue;
+			}
+			String text = batch.toString();
+			batch.setLength(0);
+			for (LogSink sink : sinks) {
+				try {
+					sink.write(text);
+				} catch (Exception ex) {
+					// a failing sink must not stop the other sinks
+				}
+			}
+		}
+	}
+}
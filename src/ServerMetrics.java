@@ -0,0 +1,792 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * This class is used to model the metrics of a card game server: counters of
+ * the connections, rooms, messages, bytes and games, and histograms of the
+ * time taken to parse and to broadcast messages, of the time waited for the
+ * locks of the rooms and of the depth of the outbound queues.
+ * <p>
+ * Recording never locks: the counters are LongAdders, which are striped under
+ * contention, and the histograms have log-linear buckets of LongAdders, in
+ * the manner of HdrHistogram, so that a value is recorded with a few shifts
+ * and an add. The gauges (rooms, players and queued bytes) are computed from
+ * the rooms of the server when the metrics are read, and the CPU time of the
+ * process from the operating system. The metrics are exposed
+ * over JMX (see ServerMetricsMBean) and in the Prometheus text format by an
+ * HTTP server (see startHttpServer()).
+ */
+public class ServerMetrics implements ServerMetricsMBean {
+	/**
+	 * The path at which the HTTP server serves the metrics.
+	 */
+	public static final String HTTP_PATH = "/metrics";
+
+	// names of the message types, the last one for the frames without a type
+	private static final String[] TYPE_NAMES = { "PLAYER_LIST", "JOIN", "FULL",
+			"QUIT", "READY", "START", "MOVE", "MSG", "DEAL", "PLAYED", "OTHER" };
+	// the quantiles of the histograms exported to Prometheus
+	private static final double[] QUANTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+	// the server whose metrics are recorded
+	private final CardGameServer server;
+	// connection and room counters
+	private final LongAdder connectionsOpened = new LongAdder();
+	private final LongAdder connectionsClosed = new LongAdder();
+	private final LongAdder roomsCreated = new LongAdder();
+	// message counters, indexed by message type
+	private final LongAdder[] messagesIn = newAdders(TYPE_NAMES.length);
+	private final LongAdder[] messagesOut = newAdders(TYPE_NAMES.length);
+	// byte and frame counters
+	private final LongAdder bytesIn = new LongAdder();
+	private final LongAdder bytesOut = new LongAdder();
+	private final LongAdder framesDropped = new LongAdder();
+	// game counters
+	private final LongAdder gamesStarted = new LongAdder();
+	private final LongAdder gamesFinished = new LongAdder();
+	private final LongAdder gamesAborted = new LongAdder();
+	private final MinuteRate gamesStartedRate = new MinuteRate();
+	private final MinuteRate gamesFinishedRate = new MinuteRate();
+	// histograms, in nanoseconds except the queue depth in bytes
+	private final Histogram parseTime = new Histogram();
+	private final Histogram broadcastTime = new Histogram();
+	private final Histogram lockWaitTime = new Histogram();
+	private final Histogram queueDepth = new Histogram();
+	// the HTTP server exposing the metrics, or null if not started
+	private HttpServer httpServer = null;
+
+	/**
+	 * Creates and returns an instance of the ServerMetrics class.
+	 *
+	 * @param server
+	 *            the server whose metrics are recorded
+	 */
+	public ServerMetrics(CardGameServer server) {
+		this.server = server;
+	}
+
+	/**
+	 * Records a connection accepted.
+	 */
+	public void connectionOpened() {
+		connectionsOpened.increment();
+	}
+
+	/**
+	 * Records a connection closed.
+	 */
+	public void connectionClosed() {
+		connectionsClosed.increment();
+	}
+
+	/**
+	 * Records a room created.
+	 */
+	public void roomCreated() {
+		roomsCreated.increment();
+	}
+
+	/**
+	 * Records a message received.
+	 *
+	 * @param type
+	 *            the type of the message
+	 */
+	public void messageReceived(int type) {
+		messagesIn[typeIndex(type)].increment();
+	}
+
+	/**
+	 * Records a message queued for sending.
+	 *
+	 * @param type
+	 *            the type of the message, or a negative value for a frame
+	 *            without a message (e.g., the handshake)
+	 */
+	public void messageSent(int type) {
+		messagesOut[typeIndex(type)].increment();
+	}
+
+	/**
+	 * Records bytes received.
+	 *
+	 * @param n
+	 *            the number of bytes received
+	 */
+	public void bytesReceived(long n) {
+		if (n > 0) {
+			bytesIn.add(n);
+		}
+	}
+
+	/**
+	 * Records bytes sent.
+	 *
+	 * @param n
+	 *            the number of bytes sent
+	 */
+	public void bytesSent(long n) {
+		if (n > 0) {
+			bytesOut.add(n);
+		}
+	}
+
+	/**
+	 * Records outbound frames dropped by a backpressure policy.
+	 *
+	 * @param n
+	 *            the number of frames dropped
+	 */
+	public void framesDropped(long n) {
+		framesDropped.add(n);
+	}
+
+	/**
+	 * Records a game started.
+	 */
+	public void gameStarted() {
+		gamesStarted.increment();
+		gamesStartedRate.record();
+	}
+
+	/**
+	 * Records a game played to the end.
+	 */
+	public void gameFinished() {
+		gamesFinished.increment();
+		gamesFinishedRate.record();
+	}
+
+	/**
+	 * Records a game aborted, e.g., when a player leaves.
+	 */
+	public void gameAborted() {
+		gamesAborted.increment();
+	}
+
+	/**
+	 * Records the time taken by a room to parse a message.
+	 *
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 */
+	public void recordParseTime(long nanos) {
+		parseTime.record(nanos);
+	}
+
+	/**
+	 * Records the time taken to broadcast a message to the clients of a room.
+	 *
+	 * @param nanos
+	 *            the time taken, in nanoseconds
+	 */
+	public void recordBroadcastTime(long nanos) {
+		broadcastTime.record(nanos);
+	}
+
+	/**
+	 * Records the time waited for the lock of a room held by another thread.
+	 * The uncontended acquisitions of the lock are not recorded, so that they
+	 * cost nothing, and the number of values recorded is the number of
+	 * contended acquisitions.
+	 *
+	 * @param nanos
+	 *            the time waited, in nanoseconds
+	 */
+	public void recordLockWait(long nanos) {
+		lockWaitTime.record(nanos);
+	}
+
+	/**
+	 * Records the depth of an outbound queue after a frame has been queued.
+	 *
+	 * @param bytes
+	 *            the number of bytes queued
+	 */
+	public void recordQueueDepth(long bytes) {
+		queueDepth.record(bytes);
+	}
+
+	/**
+	 * Returns the histogram of the time taken by the rooms to parse messages,
+	 * in nanoseconds.
+	 *
+	 * @return the histogram of the time taken to parse messages
+	 */
+	public Histogram getParseTime() {
+		return parseTime;
+	}
+
+	/**
+	 * Returns the histogram of the time taken to broadcast messages, in
+	 * nanoseconds.
+	 *
+	 * @return the histogram of the time taken to broadcast messages
+	 */
+	public Histogram getBroadcastTime() {
+		return broadcastTime;
+	}
+
+	/**
+	 * Returns the histogram of the time waited for the locks of the rooms in
+	 * the contended acquisitions, in nanoseconds.
+	 *
+	 * @return the histogram of the time waited for the locks of the rooms
+	 */
+	public Histogram getLockWaitTime() {
+		return lockWaitTime;
+	}
+
+	/**
+	 * Returns the histogram of the depths of the outbound queues, in bytes.
+	 *
+	 * @return the histogram of the depths of the outbound queues
+	 */
+	public Histogram getQueueDepth() {
+		return queueDepth;
+	}
+
+	public long getConnectionsOpened() {
+		return connectionsOpened.sum();
+	}
+
+	public long getConnectionsClosed() {
+		return connectionsClosed.sum();
+	}
+
+	public long getActiveConnections() {
+		// reads the closed connections first, so as not to go negative
+		long closed = connectionsClosed.sum();
+		return connectionsOpened.sum() - closed;
+	}
+
+	public long getRoomsCreated() {
+		return roomsCreated.sum();
+	}
+
+	public int getActiveRooms() {
+		int activeRooms = 0;
+		for (GameRoom room : server.getRooms()) {
+			if (room.getNumOfPlayers() > 0) {
+				activeRooms++;
+			}
+		}
+		return activeRooms;
+	}
+
+	public int getPlayers() {
+		int players = 0;
+		for (GameRoom room : server.getRooms()) {
+			players += room.getNumOfPlayers();
+		}
+		return players;
+	}
+
+	public long getMessagesIn() {
+		return sum(messagesIn);
+	}
+
+	public long getMessagesOut() {
+		return sum(messagesOut);
+	}
+
+	public String[] getMessagesInByType() {
+		return byType(messagesIn);
+	}
+
+	public String[] getMessagesOutByType() {
+		return byType(messagesOut);
+	}
+
+	public long getBytesIn() {
+		return bytesIn.sum();
+	}
+
+	public long getBytesOut() {
+		return bytesOut.sum();
+	}
+
+	public long getFramesDropped() {
+		return framesDropped.sum();
+	}
+
+	public long getQueuedBytes() {
+		long queuedBytes = 0;
+		for (GameRoom room : server.getRooms()) {
+			queuedBytes += room.getQueuedBytes();
+		}
+		return queuedBytes;
+	}
+
+	public long getGamesStarted() {
+		return gamesStarted.sum();
+	}
+
+	public long getGamesFinished() {
+		return gamesFinished.sum();
+	}
+
+	public long getGamesAborted() {
+		return gamesAborted.sum();
+	}
+
+	public long getGamesStartedPerMinute() {
+		return gamesStartedRate.perMinute();
+	}
+
+	public long getGamesFinishedPerMinute() {
+		return gamesFinishedRate.perMinute();
+	}
+
+	public double getParseMessageMedianMicros() {
+		return parseTime.getValueAtQuantile(0.5) / 1e3;
+	}
+
+	public double getParseMessageP99Micros() {
+		return parseTime.getValueAtQuantile(0.99) / 1e3;
+	}
+
+	public double getBroadcastP99Micros() {
+		return broadcastTime.getValueAtQuantile(0.99) / 1e3;
+	}
+
+	public long getLockContentions() {
+		return lockWaitTime.getCount();
+	}
+
+	public double getLockWaitP99Micros() {
+		return lockWaitTime.getValueAtQuantile(0.99) / 1e3;
+	}
+
+	public long getQueueDepthP99Bytes() {
+		return queueDepth.getValueAtQuantile(0.99);
+	}
+
+	public double getProcessCpuSeconds() {
+		java.lang.management.OperatingSystemMXBean os = ManagementFactory
+				.getOperatingSystemMXBean();
+		if (os instanceof com.sun.management.OperatingSystemMXBean) {
+			long cpuTime = ((com.sun.management.OperatingSystemMXBean) os)
+					.getProcessCpuTime();
+			if (cpuTime >= 0) {
+				return cpuTime / 1e9;
+			}
+		}
+		return -1;
+	}
+
+	/**
+	 * Registers these metrics with the platform MBean server, under the name
+	 * "CardGameServer:type=ServerMetrics,name=&lt;server name&gt;,port=&lt;port&gt;".
+	 *
+	 * @param serverName
+	 *            the name of the server
+	 * @param port
+	 *            the port at which the server listens
+	 * @return the name under which the metrics have been registered
+	 * @throws JMException
+	 *             if the metrics cannot be registered
+	 */
+	public ObjectName registerMBean(String serverName, int port)
+			throws JMException {
+		ObjectName name = new ObjectName("CardGameServer:type=ServerMetrics,name="
+				+ ObjectName.quote(serverName) + ",port=" + port);
+		ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+		return name;
+	} // registerMBean
+
+	/**
+	 * Starts an HTTP server serving these metrics in the Prometheus text
+	 * format at the path "/metrics" of the specified port. The requests are
+	 * served on the dispatcher thread of the HTTP server.
+	 *
+	 * @param port
+	 *            the port at which the metrics are served
+	 * @throws IOException
+	 *             if the HTTP server cannot be started
+	 */
+	public synchronized void startHttpServer(int port) throws IOException {
+		if (httpServer != null) {
+			throw new IllegalStateException("The HTTP server has been started");
+		}
+		httpServer = HttpServer.create(new InetSocketAddress(port), 0);
+		httpServer.createContext(HTTP_PATH, new HttpHandler() {
+			public void handle(HttpExchange exchange) throws IOException {
+				try {
+					byte[] body = exchange.getRequestMethod().equals("HEAD") ? null
+							: toPrometheus().getBytes(StandardCharsets.UTF_8);
+					exchange.getResponseHeaders().set("Content-Type",
+							"text/plain; version=0.0.4; charset=utf-8");
+					exchange.sendResponseHeaders(200, body == null ? -1
+							: body.length);
+					if (body != null) {
+						OutputStream out = exchange.getResponseBody();
+						out.write(body);
+						out.close();
+					}
+				} finally {
+					exchange.close();
+				}
+			}
+		});
+		httpServer.start();
+		server.println("Serves the metrics at http://localhost:"
+				+ httpServer.getAddress().getPort() + HTTP_PATH);
+	} // startHttpServer
+
+	/**
+	 * Stops the HTTP server serving these metrics, if started.
+	 */
+	public synchronized void stopHttpServer() {
+		if (httpServer != null) {
+			httpServer.stop(0);
+			httpServer = null;
+		}
+	} // stopHttpServer
+
+	/**
+	 * Returns these metrics in the Prometheus text format (version 0.0.4). The
+	 * times are in seconds, and the histograms are exported as summaries.
+	 *
+	 * @return these metrics in the Prometheus text format
+	 */
+	public String toPrometheus() {
+		StringBuilder sb = new StringBuilder(4096);
+		counter(sb, "bigtwo_connections_opened_total",
+				"Connections accepted.", getConnectionsOpened());
+		counter(sb, "bigtwo_connections_closed_total", "Connections closed.",
+				getConnectionsClosed());
+		gauge(sb, "bigtwo_connections", "Connections open.",
+				getActiveConnections());
+		counter(sb, "bigtwo_rooms_created_total", "Rooms created.",
+				getRoomsCreated());
+		gauge(sb, "bigtwo_rooms_active", "Rooms having at least one player.",
+				getActiveRooms());
+		gauge(sb, "bigtwo_players", "Players in the rooms, including bots.",
+				getPlayers());
+		byType(sb, "bigtwo_messages_in_total", "Messages received.",
+				messagesIn);
+		byType(sb, "bigtwo_messages_out_total", "Messages queued for sending.",
+				messagesOut);
+		counter(sb, "bigtwo_bytes_in_total", "Bytes received.", getBytesIn());
+		counter(sb, "bigtwo_bytes_out_total", "Bytes sent.", getBytesOut());
+		counter(sb, "bigtwo_frames_dropped_total",
+				"Outbound frames dropped by the backpressure policy.",
+				getFramesDropped());
+		gauge(sb, "bigtwo_queued_bytes", "Bytes waiting to be sent.",
+				getQueuedBytes());
+		counter(sb, "bigtwo_games_started_total", "Games started.",
+				getGamesStarted());
+		counter(sb, "bigtwo_games_finished_total", "Games played to the end.",
+				getGamesFinished());
+		counter(sb, "bigtwo_games_aborted_total", "Games aborted.",
+				getGamesAborted());
+		gauge(sb, "bigtwo_games_started_per_minute",
+				"Games started in the last minute.", getGamesStartedPerMinute());
+		gauge(sb, "bigtwo_games_finished_per_minute",
+				"Games finished in the last minute.",
+				getGamesFinishedPerMinute());
+		summary(sb, "bigtwo_parse_message_seconds",
+				"Time taken by a room to parse a message.", parseTime, 1e9);
+		summary(sb, "bigtwo_broadcast_seconds",
+				"Time taken to broadcast a message to a room.", broadcastTime,
+				1e9);
+		counter(sb, "bigtwo_room_lock_contended_total",
+				"Acquisitions of the lock of a room held by another thread.",
+				getLockContentions());
+		summary(sb, "bigtwo_room_lock_wait_seconds",
+				"Time waited for the lock of a room in contended acquisitions.",
+				lockWaitTime, 1e9);
+		summary(sb, "bigtwo_outbound_queue_bytes",
+				"Bytes queued for a client after a frame has been queued.",
+				queueDepth, 1);
+		gauge(sb, "bigtwo_process_cpu_seconds",
+				"CPU time used by the server process, or -1 if unsupported.",
+				getProcessCpuSeconds());
+		return sb.toString();
+	} // toPrometheus
+
+	/**
+	 * Appends a counter in the Prometheus text format.
+	 */
+	private static void counter(StringBuilder sb, String name, String help,
+			long value) {
+		header(sb, name, help, "counter");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Appends a gauge in the Prometheus text format.
+	 */
+	private static void gauge(StringBuilder sb, String name, String help,
+			long value) {
+		header(sb, name, help, "gauge");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Appends a gauge with a fractional value in the Prometheus text format.
+	 */
+	private static void gauge(StringBuilder sb, String name, String help,
+			double value) {
+		header(sb, name, help, "gauge");
+		sb.append(name).append(' ').append(value).append('\n');
+	}
+
+	/**
+	 * Appends a counter labelled by message type in the Prometheus text
+	 * format.
+	 */
+	private static void byType(StringBuilder sb, String name, String help,
+			LongAdder[] adders) {
+		header(sb, name, help, "counter");
+		for (int i = 0; i < adders.length; i++) {
+			sb.append(name).append("{type=\"").append(TYPE_NAMES[i])
+					.append("\"} ").append(adders[i].sum()).append('\n');
+		}
+	}
+
+	/**
+	 * Appends a histogram as a summary in the Prometheus text format, its
+	 * values divided by the specified unit.
+	 */
+	private static void summary(StringBuilder sb, String name, String help,
+			Histogram histogram, double unit) {
+		header(sb, name, help, "summary");
+		long[] counts = histogram.snapshot();
+		for (double q : QUANTILES) {
+			sb.append(name).append("{quantile=\"").append(q).append("\"} ")
+					.append(histogram.valueAtQuantile(counts, q) / unit)
+					.append('\n');
+		}
+		sb.append(name).append("_sum ").append(histogram.getSum() / unit)
+				.append('\n');
+		sb.append(name).append("_count ").append(sum(counts)).append('\n');
+	}
+
+	/**
+	 * Appends the HELP and TYPE lines of a metric.
+	 */
+	private static void header(StringBuilder sb, String name, String help,
+			String type) {
+		sb.append("# HELP ").append(name).append(' ').append(help).append('\n');
+		sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+	}
+
+	/**
+	 * Returns the index of the counters of a message type.
+	 */
+	private static int typeIndex(int type) {
+		return (type >= 0 && type < TYPE_NAMES.length - 1) ? type
+				: TYPE_NAMES.length - 1;
+	}
+
+	private static LongAdder[] newAdders(int n) {
+		LongAdder[] adders = new LongAdder[n];
+		for (int i = 0; i < n; i++) {
+			adders[i] = new LongAdder();
+		}
+		return adders;
+	}
+
+	private static long sum(LongAdder[] adders) {
+		long sum = 0;
+		for (LongAdder adder : adders) {
+			sum += adder.sum();
+		}
+		return sum;
+	}
+
+	private static long sum(long[] counts) {
+		long sum = 0;
+		for (long count : counts) {
+			sum += count;
+		}
+		return sum;
+	}
+
+	private static String[] byType(LongAdder[] adders) {
+		String[] counts = new String[adders.length];
+		for (int i = 0; i < adders.length; i++) {
+			counts[i] = TYPE_NAMES[i] + "=" + adders[i].sum();
+		}
+		return counts;
+	}
+
+	/**
+	 * This class is used to model a histogram of non-negative values, with the
+	 * log-linear buckets of HdrHistogram: the values below 8 have a bucket
+	 * each, and every power of two above is split into 8 buckets, so that a
+	 * value is known to within 12.5% over the whole range of long. The counts
+	 * are LongAdders, and a value is recorded without locking.
+	 */
+	public static final class Histogram {
+		// number of buckets per power of two, as a power of two
+		private static final int SUB_BUCKET_BITS = 3;
+		private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+		// number of buckets, up to the highest power of two of long
+		private static final int NUM_OF_BUCKETS = (63 - SUB_BUCKET_BITS + 1)
+				* SUB_BUCKETS;
+
+		// counts of the buckets
+		private final LongAdder[] counts = newAdders(NUM_OF_BUCKETS);
+		// sum of the values recorded
+		private final LongAdder sum = new LongAdder();
+		// largest value recorded
+		private final AtomicLong max = new AtomicLong();
+
+		/**
+		 * Records a value. Negative values are recorded as 0.
+		 *
+		 * @param value
+		 *            the value to be recorded
+		 */
+		public void record(long value) {
+			if (value < 0) {
+				value = 0;
+			}
+			counts[bucketIndex(value)].increment();
+			sum.add(value);
+			long m;
+			while (value > (m = max.get()) && !max.compareAndSet(m, value)) {
+			}
+		}
+
+		/**
+		 * Returns the number of values recorded.
+		 *
+		 * @return the number of values recorded
+		 */
+		public long getCount() {
+			return sum(snapshot());
+		}
+
+		/**
+		 * Returns the sum of the values recorded.
+		 *
+		 * @return the sum of the values recorded
+		 */
+		public long getSum() {
+			return sum.sum();
+		}
+
+		/**
+		 * Returns the largest value recorded.
+		 *
+		 * @return the largest value recorded, or 0 if none has been recorded
+		 */
+		public long getMax() {
+			return max.get();
+		}
+
+		/**
+		 * Returns the value at the specified quantile, i.e., the highest value
+		 * of the bucket holding it.
+		 *
+		 * @param q
+		 *            the quantile, from 0 to 1
+		 * @return the value at the quantile, or 0 if no value has been recorded
+		 */
+		public long getValueAtQuantile(double q) {
+			return valueAtQuantile(snapshot(), q);
+		}
+
+		/**
+		 * Returns a copy of the counts of the buckets.
+		 */
+		private long[] snapshot() {
+			long[] snapshot = new long[NUM_OF_BUCKETS];
+			for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+				snapshot[i] = counts[i].sum();
+			}
+			return snapshot;
+		}
+
+		/**
+		 * Returns the value at the specified quantile of a copy of the counts.
+		 */
+		private long valueAtQuantile(long[] snapshot, double q) {
+			long total = sum(snapshot);
+			if (total == 0) {
+				return 0;
+			}
+			long rank = Math.max(1, (long) Math.ceil(q * total));
+			long seen = 0;
+			for (int i = 0; i < NUM_OF_BUCKETS; i++) {
+				seen += snapshot[i];
+				if (seen >= rank) {
+					return Math.min(highestValue(i), max.get());
+				}
+			}
+			return max.get();
+		}
+
+		/**
+		 * Returns the index of the bucket of a non-negative value.
+		 */
+		private static int bucketIndex(long value) {
+			if (value < SUB_BUCKETS) {
+				return (int) value;
+			}
+			int exponent = 63 - Long.numberOfLeadingZeros(value);
+			int subBucket = (int) (value >>> (exponent - SUB_BUCKET_BITS))
+					& (SUB_BUCKETS - 1);
+			return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+		}
+
+		/**
+		 * Returns the highest value of a bucket.
+		 */
+		private static long highestValue(int index) {
+			if (index < SUB_BUCKETS) {
+				return index;
+			}
+			int shift = index / SUB_BUCKETS - 1;
+			long subBucket = SUB_BUCKETS + index % SUB_BUCKETS;
+			return ((subBucket + 1) << shift) - 1;
+		}
+	}
+
+	/**
+	 * This class is used to count the events of the last minute, in buckets
+	 * of one second. Events are rare (e.g., games started), so the buckets are
+	 * guarded by the monitor of the rate.
+	 */
+	private static final class MinuteRate {
+		private final long[] counts = new long[60];
+		private final long[] seconds = new long[60];
+
+		private synchronized void record() {
+			long now = System.nanoTime() / 1000000000L;
+			int i = (int) Math.floorMod(now, 60L);
+			if (seconds[i] != now) {
+				seconds[i] = now;
+				counts[i] = 0;
+			}
+			counts[i]++;
+		}
+
+		private synchronized long perMinute() {
+			long now = System.nanoTime() / 1000000000L;
+			long perMinute = 0;
+			for (int i = 0; i < 60; i++) {
+				if (now - seconds[i] < 60) {
+					perMinute += counts[i];
+				}
+			}
+			return perMinute;
+		}
+	}
+}
@@ -0,0 +1,201 @@
+/**
+ * The management interface of the metrics of a card game server (see
+ * ServerMetrics), through which the metrics are exposed over JMX. The counts
+ * are totals since the server was started; the latencies are in microseconds.
+ */
+public interface ServerMetricsMBean {
+	/**
+	 * Returns the number of connections accepted.
+	 *
+	 * @return the number of connections accepted
+	 */
+	public long getConnectionsOpened();
+
+	/**
+	 * Returns the number of connections closed.
+	 *
+	 * @return the number of connections closed
+	 */
+	public long getConnectionsClosed();
+
+	/**
+	 * Returns the number of connections open.
+	 *
+	 * @return the number of connections open
+	 */
+	public long getActiveConnections();
+
+	/**
+	 * Returns the number of rooms created.
+	 *
+	 * @return the number of rooms created
+	 */
+	public long getRoomsCreated();
+
+	/**
+	 * Returns the number of rooms having at least one player.
+	 *
+	 * @return the number of rooms having at least one player
+	 */
+	public int getActiveRooms();
+
+	/**
+	 * Returns the number of players in all the rooms, including the computer
+	 * players.
+	 *
+	 * @return the number of players in all the rooms
+	 */
+	public int getPlayers();
+
+	/**
+	 * Returns the number of messages received.
+	 *
+	 * @return the number of messages received
+	 */
+	public long getMessagesIn();
+
+	/**
+	 * Returns the number of messages queued for sending.
+	 *
+	 * @return the number of messages queued for sending
+	 */
+	public long getMessagesOut();
+
+	/**
+	 * Returns the numbers of messages received by message type, e.g.,
+	 * "MOVE=42".
+	 *
+	 * @return the numbers of messages received by message type
+	 */
+	public String[] getMessagesInByType();
+
+	/**
+	 * Returns the numbers of messages queued for sending by message type,
+	 * e.g., "PLAYED=168".
+	 *
+	 * @return the numbers of messages queued for sending by message type
+	 */
+	public String[] getMessagesOutByType();
+
+	/**
+	 * Returns the number of bytes received.
+	 *
+	 * @return the number of bytes received
+	 */
+	public long getBytesIn();
+
+	/**
+	 * Returns the number of bytes sent.
+	 *
+	 * @return the number of bytes sent
+	 */
+	public long getBytesOut();
+
+	/**
+	 * Returns the number of outbound frames dropped by the backpressure
+	 * policies of the connections.
+	 *
+	 * @return the number of outbound frames dropped
+	 */
+	public long getFramesDropped();
+
+	/**
+	 * Returns the number of bytes waiting to be sent to all the clients.
+	 *
+	 * @return the number of bytes waiting to be sent
+	 */
+	public long getQueuedBytes();
+
+	/**
+	 * Returns the number of games started.
+	 *
+	 * @return the number of games started
+	 */
+	public long getGamesStarted();
+
+	/**
+	 * Returns the number of games played to the end.
+	 *
+	 * @return the number of games played to the end
+	 */
+	public long getGamesFinished();
+
+	/**
+	 * Returns the number of games aborted.
+	 *
+	 * @return the number of games aborted
+	 */
+	public long getGamesAborted();
+
+	/**
+	 * Returns the number of games started in the last minute.
+	 *
+	 * @return the number of games started in the last minute
+	 */
+	public long getGamesStartedPerMinute();
+
+	/**
+	 * Returns the number of games finished in the last minute.
+	 *
+	 * @return the number of games finished in the last minute
+	 */
+	public long getGamesFinishedPerMinute();
+
+	/**
+	 * Returns the median time taken by a room to parse a message.
+	 *
+	 * @return the median time taken to parse a message, in microseconds
+	 */
+	public double getParseMessageMedianMicros();
+
+	/**
+	 * Returns the 99th percentile of the time taken by a room to parse a
+	 * message.
+	 *
+	 * @return the 99th percentile of the time taken to parse a message, in
+	 *         microseconds
+	 */
+	public double getParseMessageP99Micros();
+
+	/**
+	 * Returns the 99th percentile of the time taken to broadcast a message to
+	 * the clients of a room.
+	 *
+	 * @return the 99th percentile of the time taken to broadcast a message, in
+	 *         microseconds
+	 */
+	public double getBroadcastP99Micros();
+
+	/**
+	 * Returns the number of acquisitions of the lock of a room which had to
+	 * wait for another thread.
+	 *
+	 * @return the number of contended acquisitions of the locks of the rooms
+	 */
+	public long getLockContentions();
+
+	/**
+	 * Returns the 99th percentile of the time waited for the lock of a room,
+	 * over the contended acquisitions only.
+	 *
+	 * @return the 99th percentile of the time waited for the lock of a room,
+	 *         in microseconds
+	 */
+	public double getLockWaitP99Micros();
+
+	/**
+	 * Returns the 99th percentile of the number of bytes queued for a client
+	 * after a frame has been queued.
+	 *
+	 * @return the 99th percentile of the number of bytes queued for a client
+	 */
+	public long getQueueDepthP99Bytes();
+
+	/**
+	 * Returns the CPU time used by the server process since it was started.
+	 *
+	 * @return the CPU time used by the server process, in seconds, or -1 if
+	 *         it is not supported by the platform
+	 */
+	public double getProcessCpuSeconds();
+}
@@ -24,25 +24,12 @@ public class Straight extends Hand{
 	 * @return true (boolean) if it is a valid Straight.<p>false (boolean) if it isn't a valid Straight.
 	 */
 	public boolean isValid() {
-		
 		if (this.size() != 5) return false;
 		
-		this.sort();
-		
-		// Compare each card to the next
-		for (int i = 0; i < 5 - 1; i++) {
-			int currentRank = this.getCard(i).getRank();
-			currentRank = (currentRank - 2 < 0) ? 13 + currentRank - 2 : currentRank - 2;
-			
-			int nextRank = this.getCard(i + 1).getRank();
-			nextRank = (nextRank - 2 < 0) ? 13 + nextRank - 2 : nextRank - 2;
-			
-			// Meaning of condition: They are not of consecutive ranks.
-			if (nextRank - currentRank != 1) {
-				return false;
-			}
-		}
-		return true;
+		long mask = HandEvaluator.toMask(this);
+		// A Straight Flush is also a valid Straight.
+		int type = HandEvaluator.classify(mask);
+		return type == HandEvaluator.STRAIGHT || type == HandEvaluator.STRAIGHT_FLUSH;
 	}
 	
 	/**
@@ -26,21 +26,8 @@ public class StraightFlush extends Hand {
 	public boolean isValid() {
 		if (this.size() != 5) return false;
 		
-		// Suit of the first card to compare to every other card's suit.
-		int suit = this.getCard(0).getSuit();
-		for (int i = 0; i < 5 - 1; i++) {
-			int currentRank = this.getCard(i).getRank();
-			currentRank = (currentRank - 2 < 0) ? 13 + currentRank - 2 : currentRank - 2;
-			
-			int nextRank = this.getCard(i + 1).getRank();
-			nextRank = (nextRank - 2 < 0) ? 13 + nextRank - 2 : nextRank - 2;
-			
-			// Meaning of condition: They are not of consecutive ranks.
-			if (nextRank - currentRank != 1) return false;
-			// Meaning of condition: They are not of the same suit as the first card. Over the course of the loop this equates to: They are all not of the same suit.
-			if (this.getCard(i).getSuit() != suit) return false;
-		}
-		return true;
+		long mask = HandEvaluator.toMask(this);
+		return HandEvaluator.classify(mask) == HandEvaluator.STRAIGHT_FLUSH;
 	}
 	
 	/**
@@ -0,0 +1,51 @@
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * This class is used to model a log sink writing to a stream, e.g., a log file
+ * or the standard output. Each batch is written and flushed at once.
+ */
+public class StreamLogSink implements LogSink {
+	// the writer of the stream
+	private final Writer writer;
+
+	/**
+	 * Creates and returns an instance of the StreamLogSink class appending to
+	 * the specified file.
+	 * 
+	 * @param fileName
+	 *            the name of the log file
+	 * @throws IOException
+	 *             if the file cannot be opened
+	 */
+	public StreamLogSink(String fileName) throws IOException {
+		this(new FileOutputStream(fileName, true));
+	}
+
+	/**
+	 * Creates and returns an instance of the StreamLogSink class writing to
+	 * the specified stream.
+	 * 
+	 * @param out
+	 *            the stream to be written to
+	 */
+	public StreamLogSink(OutputStream out) {
+		this.writer = new BufferedWriter(new OutputStreamWriter(out,
+				StandardCharsets.UTF_8));
+	}
+
+	// implementation of method from the LogSink interface
+	public void write(String text) {
+		try {
+			writer.write(text);
+			writer.flush();
+		} catch (IOException ex) {
+			// the entries are lost; there is nowhere else to report it
+		}
+	}
+}